@@ -0,0 +1,143 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.dao.JournalEntryDao;
+import gui.ceng.mu.edu.mentalhealthjournal.data.database.JournalDatabase;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.GroupCommitWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for {@link GroupCommitWriter} against an in-memory database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GroupCommitWriterTest {
+
+    private JournalDatabase database;
+    private JournalEntryDao dao;
+    private ExecutorService executor;
+    private GroupCommitWriter writer;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, JournalDatabase.class).build();
+        dao = database.journalEntryDao();
+        executor = Executors.newSingleThreadExecutor();
+        writer = new GroupCommitWriter(database, executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+        database.close();
+    }
+
+    @Test
+    public void burstIsCommittedInFewTransactions() throws Exception {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            JournalEntryEntity entry = new JournalEntryEntity(1704153600000L + i, 3);
+            futures.add(writer.submit(() -> dao.insert(entry), null));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+        // Completed in submission order, so IDs increase with it
+        for (int i = 1; i < futures.size(); i++) {
+            assertTrue(futures.get(i).get() > futures.get(i - 1).get());
+        }
+        assertEquals(200, dao.getEntryCount());
+        assertTrue(writer.getMetrics().batches < 200);
+        assertEquals(200, writer.getMetrics().mutations);
+    }
+
+    @Test
+    public void failingMutationDoesNotRollBackOthers() throws Exception {
+        CompletableFuture<Long> before = writer.submit(
+                () -> dao.insert(new JournalEntryEntity(1704153600000L, 3)), null);
+        CompletableFuture<Long> failing = writer.submit(() -> {
+            throw new IllegalStateException("rejected");
+        }, null);
+        CompletableFuture<Long> after = writer.submit(
+                () -> dao.insert(new JournalEntryEntity(1704240000000L, 4)), null);
+
+        assertNotNull(before.get());
+        assertNotNull(after.get());
+        try {
+            failing.get();
+            fail("Expected the mutation to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(2, dao.getEntryCount());
+    }
+
+    @Test
+    public void errorFailsOnlyItsMutationAndWriterKeepsDraining() throws Exception {
+        CompletableFuture<Long> before = writer.submit(
+                () -> dao.insert(new JournalEntryEntity(1704153600000L, 3)), null);
+        CompletableFuture<Long> failing = writer.submit(() -> {
+            throw new AssertionError("broken invariant");
+        }, null);
+        CompletableFuture<Long> after = writer.submit(
+                () -> dao.insert(new JournalEntryEntity(1704240000000L, 4)), null);
+
+        assertNotNull(before.get());
+        assertNotNull(after.get());
+        try {
+            failing.get();
+            fail("Expected the mutation to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        // The writer still drains mutations submitted afterwards
+        assertNotNull(writer.submit(() -> dao.insert(new JournalEntryEntity(1704326400000L, 5)), null).get());
+        assertEquals(3, dao.getEntryCount());
+    }
+
+    @Test
+    public void transactionListenerSeesCommitsAndRollbacks() throws Exception {
+        List<Boolean> outcomes = new ArrayList<>();
+        GroupCommitWriter listening = new GroupCommitWriter(database, executor, outcomes::add);
+
+        listening.submit(() -> dao.insert(new JournalEntryEntity(1704153600000L, 3)), null).get();
+        try {
+            listening.submit(() -> {
+                throw new IllegalStateException("rejected");
+            }, null).get();
+            fail("Expected the mutation to fail");
+        } catch (ExecutionException expected) {
+            // Rolled back
+        }
+
+        assertEquals(Arrays.asList(true, false), outcomes);
+    }
+
+    @Test
+    public void commitListenerRunsBeforeFutureCompletes() throws Exception {
+        long[] committedId = new long[1];
+        Long id = writer.submit(() -> dao.insert(new JournalEntryEntity(1704153600000L, 5)),
+                result -> committedId[0] = result).get();
+
+        assertEquals(id.longValue(), committedId[0]);
+    }
+}
@@ -0,0 +1,290 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.converter.StringListConverter;
+import gui.ceng.mu.edu.mentalhealthjournal.data.database.JournalDatabase;
+import gui.ceng.mu.edu.mentalhealthjournal.data.database.Migrations;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.TagEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.TagVocabulary;
+import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the Room migrations in {@link Migrations}.
+ * Every version is created or validated from its schema in app/schemas.
+ */
+@RunWith(AndroidJUnit4.class)
+public class JournalDatabaseMigrationTest {
+
+    private static final String TEST_DB = "migration-test.db";
+
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), JournalDatabase.class);
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void migrate1To2_addsIndices() throws IOException {
+        SupportSQLiteDatabase db = createVersion1Database();
+        insertVersion1Entry(db, 1704153600000L, 4, "happy,excited", "First entry", "/photo.jpg");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 2, true, Migrations.MIGRATION_1_2);
+
+        Set<String> indices = getIndexNames(db, "journal_entries");
+        assertTrue(indices.contains("index_journal_entries_timestamp"));
+        assertTrue(indices.contains("index_journal_entries_moodLevel_timestamp"));
+        assertTrue(indices.contains("index_journal_entries_photoPath"));
+        assertTrue(indices.contains("index_journal_entries_voiceMemoPath"));
+        db.close();
+    }
+
+    @Test
+    public void migrate2To3_backfillsTags() throws IOException {
+        SupportSQLiteDatabase db = createVersion1Database();
+        insertVersion1Entry(db, 1704153600000L, 4, "happy,excited", "First entry", null);
+        insertVersion1Entry(db, 1704240000000L, 2, "Happy", null, null);
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 3, true,
+                Migrations.MIGRATION_1_2, Migrations.MIGRATION_2_3);
+
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM tags WHERE category = 'emotion'")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(2, cursor.getInt(0));
+        }
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM entry_tags et "
+                + "INNER JOIN tags t ON t.id = et.tagId WHERE t.name = 'happy'")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(2, cursor.getInt(0));
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrate3To4_indexesExistingEntriesForSearch() throws IOException {
+        SupportSQLiteDatabase db = createVersion1Database();
+        insertVersion1Entry(db, 1704153600000L, 4, "happy,excited", "Walked by the river", null);
+        insertVersion1Entry(db, 1704240000000L, 2, "sad", "Long day at work", null);
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 4, true,
+                Migrations.MIGRATION_1_2, Migrations.MIGRATION_2_3, Migrations.MIGRATION_3_4);
+
+        try (Cursor cursor = db.query("SELECT rowid FROM journal_entries_fts "
+                + "WHERE journal_entries_fts MATCH 'riv*'")) {
+            assertEquals(1, cursor.getCount());
+        }
+
+        // Triggers keep the index in sync with later writes
+        db.execSQL("UPDATE journal_entries SET note = 'River again' WHERE moodLevel = 2");
+        try (Cursor cursor = db.query("SELECT rowid FROM journal_entries_fts "
+                + "WHERE journal_entries_fts MATCH 'river'")) {
+            assertEquals(2, cursor.getCount());
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrate4To5_backfillsDailySummaries() throws IOException {
+        long day = 19724; // 2024-01-02
+        long start = DateUtils.getStartOfEpochDay(day);
+        SupportSQLiteDatabase db = createVersion1Database();
+        insertVersion1Entry(db, start + 3_600_000L, 2, null, null, "/photo.jpg");
+        insertVersion1Entry(db, start + 7_200_000L, 5, null, null, null);
+        insertVersion1Entry(db, DateUtils.getStartOfEpochDay(day + 1), 3, null, null, null);
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 5, true, Migrations.MIGRATION_1_2,
+                Migrations.MIGRATION_2_3, Migrations.MIGRATION_3_4, Migrations.MIGRATION_4_5);
+
+        try (Cursor cursor = db.query("SELECT epochDay, entryCount, moodSum, minMood, maxMood, "
+                + "firstMood, lastMood, photoCount FROM daily_summary ORDER BY epochDay")) {
+            assertEquals(2, cursor.getCount());
+            assertTrue(cursor.moveToFirst());
+            assertEquals(day, cursor.getLong(0));
+            assertEquals(2, cursor.getInt(1));
+            assertEquals(7, cursor.getInt(2));
+            assertEquals(2, cursor.getInt(3));
+            assertEquals(5, cursor.getInt(4));
+            assertEquals(2, cursor.getInt(5));
+            assertEquals(5, cursor.getInt(6));
+            assertEquals(1, cursor.getInt(7));
+            assertTrue(cursor.moveToNext());
+            assertEquals(day + 1, cursor.getLong(0));
+            assertEquals(1, cursor.getInt(1));
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrate5To6_addsTombstoneColumn() throws IOException {
+        SupportSQLiteDatabase db = createVersion1Database();
+        insertVersion1Entry(db, 1704153600000L, 4, "happy", "First entry", null);
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 6, true, Migrations.MIGRATION_1_2,
+                Migrations.MIGRATION_2_3, Migrations.MIGRATION_3_4, Migrations.MIGRATION_4_5,
+                Migrations.MIGRATION_5_6);
+
+        assertTrue(getIndexNames(db, "journal_entries").contains("index_journal_entries_deletedAt"));
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM journal_entries WHERE deletedAt IS NULL")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(1, cursor.getInt(0));
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrate6To7_backfillsEpochDays() throws IOException {
+        long day = 19724; // 2024-01-02
+        SupportSQLiteDatabase db = createVersion1Database();
+        insertVersion1Entry(db, DateUtils.getStartOfEpochDay(day), 3, null, null, null);
+        insertVersion1Entry(db, DateUtils.getEndOfEpochDay(day), 4, null, null, null);
+        insertVersion1Entry(db, DateUtils.getStartOfEpochDay(day + 1) + 60_000L, 5, null, null, null);
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 7, true, Migrations.MIGRATION_1_2,
+                Migrations.MIGRATION_2_3, Migrations.MIGRATION_3_4, Migrations.MIGRATION_4_5,
+                Migrations.MIGRATION_5_6, Migrations.MIGRATION_6_7);
+
+        assertTrue(getIndexNames(db, "journal_entries").contains("index_journal_entries_epochDay_timestamp"));
+        try (Cursor cursor = db.query("SELECT epochDay FROM journal_entries ORDER BY timestamp")) {
+            assertEquals(3, cursor.getCount());
+            assertTrue(cursor.moveToNext());
+            assertEquals(day, cursor.getLong(0));
+            assertTrue(cursor.moveToNext());
+            assertEquals(day, cursor.getLong(0));
+            assertTrue(cursor.moveToNext());
+            assertEquals(day + 1, cursor.getLong(0));
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrate7To8_encodesDefaultTagsAsMasks() throws IOException {
+        SupportSQLiteDatabase db = createVersion1Database();
+        db.execSQL("INSERT INTO journal_entries (timestamp, moodLevel, emotions, sleepTags) VALUES (?, ?, ?, ?)",
+                new Object[]{1704153600000L, 4, "happy,nostalgic,sad", "good sleep,nap,sleep early"});
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 8, true, Migrations.MIGRATION_1_2,
+                Migrations.MIGRATION_2_3, Migrations.MIGRATION_3_4, Migrations.MIGRATION_4_5,
+                Migrations.MIGRATION_5_6, Migrations.MIGRATION_6_7, Migrations.MIGRATION_7_8);
+
+        try (Cursor cursor = db.query("SELECT emotions, emotionMask, sleepTags, sleepMask FROM journal_entries")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("happy,nostalgic,sad", cursor.getString(0));
+            assertEquals(TagVocabulary.EMOTIONS.bitOf("happy") | TagVocabulary.EMOTIONS.bitOf("sad"),
+                    cursor.getLong(1));
+            assertEquals("nap", cursor.getString(2));
+            assertEquals(TagVocabulary.SLEEP.bitOf("good sleep") | TagVocabulary.SLEEP.bitOf("sleep early"),
+                    cursor.getLong(3));
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrate8To9_escapesLegacyTagLists() throws IOException {
+        SupportSQLiteDatabase db = createVersion1Database();
+        db.execSQL("INSERT INTO journal_entries (timestamp, moodLevel, emotions, sleepTags, activities) "
+                        + "VALUES (?, ?, ?, ?, ?)",
+                new Object[]{1704153600000L, 3, "happy,a\\b", "nap\\1,good sleep", "c:\\walks"});
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 9, true, Migrations.ALL);
+
+        try (Cursor cursor = db.query("SELECT emotions, sleepTags, sleepMask, activities FROM journal_entries")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(Arrays.asList("happy", "a\\b"), StringListConverter.toList(cursor.getString(0)));
+            assertEquals(Arrays.asList("nap\\1"), StringListConverter.toList(cursor.getString(1)));
+            assertEquals(TagVocabulary.SLEEP.bitOf("good sleep"), cursor.getLong(2));
+            assertEquals(Arrays.asList("c:\\walks"), StringListConverter.toList(cursor.getString(3)));
+        }
+        try (Cursor cursor = db.query("SELECT t.name FROM tags t INNER JOIN entry_tags et ON et.tagId = t.id "
+                + "WHERE t.category = ? ORDER BY t.name", new Object[]{TagEntity.CATEGORY_EMOTION})) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("a\\b", cursor.getString(0));
+        }
+        db.close();
+    }
+
+    @Test
+    public void migrateAll_preservesEntries() throws IOException {
+        SupportSQLiteDatabase db = createVersion1Database();
+        insertVersion1Entry(db, 1704153600000L, 4, "happy,excited", "First entry", "/photo.jpg");
+        insertVersion1Entry(db, 1704240000000L, 2, null, null, null);
+        db.close();
+
+        JournalDatabase database = Room.databaseBuilder(context, JournalDatabase.class, TEST_DB)
+                .addMigrations(Migrations.ALL)
+                .build();
+        List<JournalEntryEntity> entries = database.journalEntryDao().getAllEntriesSync();
+        database.close();
+
+        assertEquals(2, entries.size());
+        JournalEntryEntity first = entries.get(1);
+        assertEquals(1704153600000L, first.getTimestamp());
+        assertEquals(4, first.getMoodLevel());
+        assertEquals("First entry", first.getNote());
+        assertEquals("/photo.jpg", first.getPhotoPath());
+        assertEquals(2, first.getEmotions().size());
+        assertEquals("happy", first.getEmotions().get(0));
+    }
+
+    private SupportSQLiteDatabase createVersion1Database() throws IOException {
+        return helper.createDatabase(TEST_DB, 1);
+    }
+
+    private static void insertVersion1Entry(SupportSQLiteDatabase db, long timestamp, int moodLevel,
+                                            String emotions, String note, String photoPath) {
+        db.execSQL("INSERT INTO journal_entries (timestamp, moodLevel, emotions, note, photoPath) "
+                + "VALUES (?, ?, ?, ?, ?)", new Object[]{timestamp, moodLevel, emotions, note, photoPath});
+    }
+
+    private static Set<String> getIndexNames(SupportSQLiteDatabase db, String table) {
+        Set<String> names = new HashSet<>();
+        try (Cursor cursor = db.query("PRAGMA index_list(`" + table + "`)")) {
+            int nameColumn = cursor.getColumnIndex("name");
+            while (cursor.moveToNext()) {
+                names.add(cursor.getString(nameColumn));
+            }
+        }
+        return names;
+    }
+}
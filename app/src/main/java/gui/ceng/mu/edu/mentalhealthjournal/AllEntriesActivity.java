@@ -2,18 +2,19 @@ package gui.ceng.mu.edu.mentalhealthjournal;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.View;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.SearchView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.chip.Chip;
-import com.google.android.material.chip.ChipGroup;
+import com.google.android.material.snackbar.Snackbar;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -23,9 +24,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 
-import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntryFilter;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntrySummary;
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.EntryPager;
 import gui.ceng.mu.edu.mentalhealthjournal.data.repository.JournalRepository;
-import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
 import gui.ceng.mu.edu.mentalhealthjournal.util.MoodUtils;
 
 public class AllEntriesActivity extends AppCompatActivity {
@@ -34,6 +36,9 @@ public class AllEntriesActivity extends AppCompatActivity {
     public static final String EXTRA_FILTER_DATE_MILLIS_START = "filter_date_millis_start";
     public static final String EXTRA_FILTER_DATE_MILLIS_END = "filter_date_millis_end";
 
+    private static final int PAGE_SIZE = 30;
+    private static final int PREFETCH_DISTANCE = 10;
+
     private RecyclerView recyclerView;
     private RecentEntriesAdapter adapter;
     private List<JournalEntry> journalEntries = new ArrayList<>();
@@ -41,11 +46,15 @@ public class AllEntriesActivity extends AppCompatActivity {
     private TextView emptyText, titleText, filterSummaryText;
     private Chip chipHasPhoto, chipHasVoice, chipMood1, chipMood2, chipMood3, chipMood4, chipMood5;
 
+    private EntryPager pager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private String currentSearchQuery = "";
     private boolean filterHasPhoto = false, filterHasVoice = false;
     private Set<Integer> selectedMoodLevels = new HashSet<>();
-    private List<JournalEntryEntity> allEntriesCache = new ArrayList<>();
     private long filterStartMillis = -1, filterEndMillis = -1;
+    private int resultCount = 0;
+    // Incremented on every filter change so counts of superseded filters are dropped
+    private int countGeneration = 0;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -57,9 +66,9 @@ public class AllEntriesActivity extends AppCompatActivity {
         String filterDate = getIntent().getStringExtra(EXTRA_FILTER_DATE);
         
         initViews(filterDate);
+        setupPager();
         setupSearch();
         setupFilterChips();
-        loadAllEntries();
     }
 
     private void initViews(String filterDate) {
@@ -92,16 +101,26 @@ public class AllEntriesActivity extends AppCompatActivity {
                 startActivity(intent);
             }
             @Override public void onDeleteEntry(JournalEntry entry) {
-                new AlertDialog.Builder(AllEntriesActivity.this)
-                    .setTitle("Delete Entry").setMessage("Are you sure you want to delete this entry?")
-                    .setPositiveButton("Delete", (d, w) -> { repository.deleteById(entry.getId()); Toast.makeText(AllEntriesActivity.this, "Entry deleted", Toast.LENGTH_SHORT).show(); loadAllEntries(); })
-                    .setNegativeButton("Cancel", null).show();
+                // Reload once the delete has committed, so the page no longer contains it
+                JournalRepository.onMainThread(repository.deleteById(entry.getId())).thenRun(() -> pager.reload());
+                Snackbar.make(findViewById(android.R.id.content), R.string.entry_deleted, Snackbar.LENGTH_LONG)
+                        .setAction(R.string.undo, v -> JournalRepository.onMainThread(repository.restoreEntry(entry.getId()))
+                                .thenRun(() -> pager.reload()))
+                        .show();
             }
         });
         adapter.setOnItemClickListener(e -> { Intent i = new Intent(this, EntryViewActivity.class); i.putExtra(EntryViewActivity.EXTRA_ENTRY_ID, e.getId()); startActivity(i); });
         recyclerView.setAdapter(adapter);
     }
 
+    private void setupPager() {
+        pager = new EntryPager(repository, PAGE_SIZE, PREFETCH_DISTANCE, new EntryPager.Listener() {
+            @Override public void onPageLoaded(List<EntrySummary> page, boolean firstPage) { showPage(page, firstPage); }
+            @Override public void onError(Exception e) { Toast.makeText(AllEntriesActivity.this, "Error loading entries", Toast.LENGTH_SHORT).show(); }
+        });
+        adapter.setOnItemBoundListener(pager::onItemBound);
+    }
+
     private void setupSearch() {
         SearchView searchView = findViewById(R.id.search_view);
         searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
@@ -125,33 +144,21 @@ public class AllEntriesActivity extends AppCompatActivity {
         applyFilters();
     }
 
-    private void loadAllEntries() {
-        if (filterStartMillis > 0 && filterEndMillis > 0) {
-            repository.getEntriesByDateRange(filterStartMillis, filterEndMillis).observe(this, e -> { allEntriesCache.clear(); if (e != null) allEntriesCache.addAll(e); applyFilters(); });
-        } else {
-            repository.getAllEntries().observe(this, e -> { allEntriesCache.clear(); if (e != null) allEntriesCache.addAll(e); applyFilters(); });
-        }
-    }
-
+    /**
+     * Push the current filters to the pager; filtering and search run in SQL,
+     * so only the first page is read before the list is shown.
+     */
     private void applyFilters() {
-        List<JournalEntryEntity> filtered = new ArrayList<>();
-        for (JournalEntryEntity e : allEntriesCache) if (matchesAllFilters(e)) filtered.add(e);
-        updateEntriesList(filtered);
-        updateFilterSummary();
-    }
-
-    private boolean matchesAllFilters(JournalEntryEntity e) {
-        if (!currentSearchQuery.isEmpty()) {
-            String q = currentSearchQuery.toLowerCase();
-            boolean match = (e.getNote() != null && e.getNote().toLowerCase().contains(q)) ||
-                (e.getEmotions() != null && e.getEmotions().toString().toLowerCase().contains(q)) ||
-                (e.getActivities() != null && e.getActivities().toString().toLowerCase().contains(q));
-            if (!match) return false;
-        }
-        if (filterHasPhoto && (e.getPhotoPath() == null || e.getPhotoPath().isEmpty())) return false;
-        if (filterHasVoice && (e.getVoiceMemoPath() == null || e.getVoiceMemoPath().isEmpty())) return false;
-        if (!selectedMoodLevels.isEmpty() && !selectedMoodLevels.contains(e.getMoodLevel())) return false;
-        return true;
+        EntryFilter filter = new EntryFilter(currentSearchQuery, filterHasPhoto, filterHasVoice,
+                selectedMoodLevels, filterStartMillis, filterEndMillis);
+        pager.setFilter(filter);
+        int generation = ++countGeneration;
+        if (filter.isActive()) {
+            repository.countEntries(filter, new JournalRepository.RepositoryCallback<Integer>() {
+                @Override public void onComplete(Integer count) { mainHandler.post(() -> { if (generation == countGeneration) { resultCount = count; updateFilterSummary(); } }); }
+                @Override public void onError(Exception e) { e.printStackTrace(); }
+            });
+        } else updateFilterSummary();
     }
 
     private void updateFilterSummary() {
@@ -165,29 +172,26 @@ public class AllEntriesActivity extends AppCompatActivity {
             filters.add(sb.toString().trim());
         }
         filterSummaryText.setVisibility(filters.isEmpty() ? View.GONE : View.VISIBLE);
-        if (!filters.isEmpty()) filterSummaryText.setText("Filters: " + String.join(" • ", filters) + " (" + journalEntries.size() + " results)");
+        if (!filters.isEmpty()) filterSummaryText.setText("Filters: " + String.join(" • ", filters) + " (" + resultCount + " results)");
     }
 
-    private void updateEntriesList(List<JournalEntryEntity> entities) {
-        journalEntries.clear();
-        if (entities != null && !entities.isEmpty()) {
+    private void showPage(List<EntrySummary> summaries, boolean firstPage) {
+        List<JournalEntry> page = new ArrayList<>(summaries.size());
+        for (EntrySummary s : summaries) page.add(JournalEntry.from(s));
+        if (!firstPage) { adapter.appendEntries(page); return; }
+        adapter.updateEntries(page);
+        if (!page.isEmpty()) {
             emptyText.setVisibility(View.GONE);
             recyclerView.setVisibility(View.VISIBLE);
-            for (JournalEntryEntity e : entities) {
-                String title = e.getNote() != null && !e.getNote().isEmpty() 
-                    ? (e.getNote().length() > 30 ? e.getNote().substring(0, 30) + "..." : e.getNote())
-                    : (e.getEmotions() != null && !e.getEmotions().isEmpty() ? "Feeling " + e.getEmotions().get(0) : MoodUtils.getText(e.getMoodLevel()));
-                journalEntries.add(new JournalEntry(e.getId(), title, DateUtils.getTimeAgo(e.getTimestamp()), e.getMoodIconResource(), e.getMoodBackgroundResource(), e.getMoodLevel()));
-            }
+            recyclerView.scrollToPosition(0);
         } else {
             emptyText.setVisibility(View.VISIBLE);
             recyclerView.setVisibility(View.GONE);
             emptyText.setText(hasActiveFilters() ? "No entries match your filters.\nTry adjusting your search." : "No entries yet.\nStart tracking your mood!");
         }
-        adapter.notifyDataSetChanged();
     }
 
     private boolean hasActiveFilters() { return !currentSearchQuery.isEmpty() || filterHasPhoto || filterHasVoice || !selectedMoodLevels.isEmpty(); }
 
-    @Override protected void onResume() { super.onResume(); loadAllEntries(); }
+    @Override protected void onResume() { super.onResume(); applyFilters(); }
 }
@@ -13,13 +13,12 @@ import android.widget.Toast;
 import androidx.cardview.widget.CardView;
 import androidx.lifecycle.LiveData;
 
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.DailySummaryEntity;
 import gui.ceng.mu.edu.mentalhealthjournal.data.repository.JournalRepository;
 import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
 import gui.ceng.mu.edu.mentalhealthjournal.util.MoodUtils;
@@ -39,7 +38,8 @@ public class CalendarActivity extends BaseNavigationActivity {
     
     private Calendar currentCalendar;
     private JournalRepository repository;
-    private Map<String, List<JournalEntryEntity>> entriesByDate = new HashMap<>();
+    private Map<Long, DailySummaryEntity> summariesByDay = new HashMap<>();
+    private LiveData<List<DailySummaryEntity>> summariesLiveData;
     private int selectedDay = -1;
 
     @Override
@@ -124,15 +124,15 @@ public class CalendarActivity extends BaseNavigationActivity {
         lastDay.set(Calendar.DAY_OF_MONTH, lastDay.getActualMaximum(Calendar.DAY_OF_MONTH));
         long endTime = DateUtils.getEndOfDay(lastDay);
         
-        LiveData<List<JournalEntryEntity>> entriesLiveData = 
-            repository.getEntriesByDateRange(startTime, endTime);
+        // One summary row per day with entries, instead of every entry of the month
+        if (summariesLiveData != null) summariesLiveData.removeObservers(this);
+        summariesLiveData = repository.getDailySummaries(DateUtils.getEpochDay(startTime), DateUtils.getEpochDay(endTime));
         
-        entriesLiveData.observe(this, entries -> {
-            entriesByDate.clear();
-            if (entries != null) {
-                for (JournalEntryEntity entry : entries) {
-                    String dateKey = DateUtils.getDateKey(entry.getTimestamp());
-                    entriesByDate.computeIfAbsent(dateKey, k -> new ArrayList<>()).add(entry);
+        summariesLiveData.observe(this, summaries -> {
+            summariesByDay.clear();
+            if (summaries != null) {
+                for (DailySummaryEntity summary : summaries) {
+                    summariesByDay.put(summary.getEpochDay(), summary);
                 }
             }
             buildCalendarGrid();
@@ -178,15 +178,16 @@ public class CalendarActivity extends BaseNavigationActivity {
                 }
                 
                 String dateKey = DateUtils.getDateKey(cal);
+                DailySummaryEntity summary = summariesByDay.get(DateUtils.getEpochDay(cal));
                 
-                if (entriesByDate.containsKey(dateKey) && !entriesByDate.get(dateKey).isEmpty()) {
-                    List<JournalEntryEntity> dayEntries = entriesByDate.get(dateKey);
-                    int mood = dayEntries.get(0).getMoodLevel();
+                if (summary != null) {
+                    // The latest entry of the day decides the day's mood
+                    int mood = summary.getLastMood();
                     
                     btnAddEntry.setVisibility(View.GONE);
                     imgEmoji.setVisibility(View.VISIBLE);
                     imgEmoji.setImageResource(MoodUtils.getIcon(mood));
-                    imgEmoji.setOnClickListener(v -> showSelectedDayInfo(day, dateKey, dayEntries));
+                    imgEmoji.setOnClickListener(v -> showSelectedDayInfo(day, dateKey, summary));
                 } else if (isFutureDay) {
                     btnAddEntry.setVisibility(View.VISIBLE);
                     btnAddEntry.setAlpha(0.15f);
@@ -214,7 +215,7 @@ public class CalendarActivity extends BaseNavigationActivity {
         }
     }
     
-    private void showSelectedDayInfo(int day, String dateKey, List<JournalEntryEntity> entries) {
+    private void showSelectedDayInfo(int day, String dateKey, DailySummaryEntity summary) {
         selectedDay = day;
         selectedDayCard.setVisibility(View.VISIBLE);
         
@@ -222,8 +223,8 @@ public class CalendarActivity extends BaseNavigationActivity {
         cal.set(Calendar.DAY_OF_MONTH, day);
         selectedDayDate.setText(DateUtils.format(cal, DateUtils.PATTERN_FULL_DATE));
         
-        int mood = entries.get(0).getMoodLevel();
-        int entryCount = entries.size();
+        int mood = summary.getLastMood();
+        int entryCount = summary.getEntryCount();
         
         selectedDayEmoji.setImageResource(MoodUtils.getIcon(mood));
         selectedDayMood.setText(entryCount > 1 ? entryCount + " entries" : MoodUtils.getText(mood));
@@ -0,0 +1,69 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.database.DatabaseScheduler;
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.JournalCompactor;
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.JournalRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JobService that runs once a day while the device is idle and charging: it moves
+ * entries past the archive horizon into the archive database, then runs
+ * {@link JournalCompactor}, so archiving, purging deleted entries and VACUUM never
+ * compete with the user. Archiving goes first, so VACUUM reclaims the space it frees.
+ */
+public class CompactionJobService extends JobService {
+
+    private static final String TAG = "CompactionJobService";
+    private static final int JOB_ID = 2001;
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        DatabaseScheduler.getInstance().background().execute(() -> {
+            boolean failed = false;
+            try {
+                Context context = getApplicationContext();
+                int archived = new JournalRepository(context).archiveOldEntriesSync();
+                Log.i(TAG, "Archived " + archived + " entries");
+                new JournalCompactor(context).compact();
+            } catch (Exception e) {
+                Log.e(TAG, "Compaction failed", e);
+                failed = true;
+            }
+            jobFinished(params, failed);
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Archiving and purges commit in batches, so the next run picks up where this one stopped
+        return true;
+    }
+
+    /**
+     * Schedule the daily compaction job unless it is already scheduled
+     * @param context Context
+     */
+    public static void schedule(Context context) {
+        JobScheduler jobScheduler = context.getSystemService(JobScheduler.class);
+        if (jobScheduler == null || jobScheduler.getPendingJob(JOB_ID) != null) {
+            return;
+        }
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, CompactionJobService.class))
+                .setPeriodic(TimeUnit.DAYS.toMillis(1))
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .setPersisted(true)
+                .build();
+        jobScheduler.schedule(job);
+    }
+}
@@ -1,5 +1,8 @@
 package gui.ceng.mu.edu.mentalhealthjournal;
 
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntrySummary;
+import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
+
 public class JournalEntry {
     private long id;
     private String title;
@@ -17,6 +20,11 @@ public class JournalEntry {
         this.moodLevel = moodLevel;
     }
 
+    public static JournalEntry from(EntrySummary summary) {
+        return new JournalEntry(summary.getId(), summary.getTitle(), DateUtils.getTimeAgo(summary.getTimestamp()),
+                summary.getMoodIconResource(), summary.getMoodBackgroundResource(), summary.getMoodLevel());
+    }
+
     public long getId() { return id; }
     public String getTitle() { return title; }
     public String getDate() { return date; }
@@ -4,27 +4,22 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
-import androidx.appcompat.app.AlertDialog;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.button.MaterialButton;
+import com.google.android.material.snackbar.Snackbar;
 
-import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntrySummary;
 import gui.ceng.mu.edu.mentalhealthjournal.data.repository.JournalRepository;
-import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
-import gui.ceng.mu.edu.mentalhealthjournal.util.MoodUtils;
 import gui.ceng.mu.edu.mentalhealthjournal.util.OnboardingManager;
 
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 public class MainActivity extends BaseNavigationActivity {
 
@@ -47,7 +42,8 @@ public class MainActivity extends BaseNavigationActivity {
         setupBottomNavigation(R.id.navigation_home);
         setupMoodClickListeners();
         setupRecyclerView();
-        repository.getRecentEntriesLive(10).observe(this, this::updateEntries);
+        repository.getRecentSummariesLive(10).observe(this, this::updateEntries);
+        CompactionJobService.schedule(this);
     }
 
     @Override
@@ -89,53 +85,34 @@ public class MainActivity extends BaseNavigationActivity {
             }
             @Override
             public void onDeleteEntry(JournalEntry entry) {
-                new AlertDialog.Builder(MainActivity.this)
-                    .setTitle("Delete Entry").setMessage("Are you sure you want to delete this entry?")
-                    .setPositiveButton("Delete", (d, w) -> { repository.deleteById(entry.getId()); Toast.makeText(MainActivity.this, "Entry deleted", Toast.LENGTH_SHORT).show(); })
-                    .setNegativeButton("Cancel", null).show();
+                // Deletes are tombstones, so they can be undone; the list updates through LiveData
+                repository.deleteById(entry.getId());
+                Snackbar.make(findViewById(android.R.id.content), R.string.entry_deleted, Snackbar.LENGTH_LONG)
+                        .setAction(R.string.undo, v -> repository.restoreEntry(entry.getId()))
+                        .show();
             }
         });
         recyclerView.setAdapter(adapter);
         findViewById(R.id.btn_view_all).setOnClickListener(v -> startActivity(new Intent(this, AllEntriesActivity.class)));
     }
 
-    private void updateEntries(List<JournalEntryEntity> entities) {
+    private void updateEntries(List<EntrySummary> summaries) {
         journalEntries.clear();
-        if (entities != null) {
-            for (JournalEntryEntity e : entities) {
-                String title = e.getNote() != null && !e.getNote().isEmpty() 
-                    ? (e.getNote().length() > 30 ? e.getNote().substring(0, 30) + "..." : e.getNote())
-                    : (e.getEmotions() != null && !e.getEmotions().isEmpty() ? "Feeling " + e.getEmotions().get(0) : MoodUtils.getText(e.getMoodLevel()));
-                journalEntries.add(new JournalEntry(e.getId(), title, DateUtils.getTimeAgo(e.getTimestamp()), 
-                    e.getMoodIconResource(), e.getMoodBackgroundResource(), e.getMoodLevel()));
-            }
+        if (summaries != null) {
+            for (EntrySummary s : summaries) journalEntries.add(JournalEntry.from(s));
         }
         adapter.notifyDataSetChanged();
-        updateStreak(entities);
+        updateStreak();
     }
 
-    private void updateStreak(List<JournalEntryEntity> entities) {
-        if (entities == null || entities.isEmpty()) { streakText.setText("0 days"); return; }
-        Set<String> dates = new HashSet<>();
-        for (JournalEntryEntity e : entities) dates.add(DateUtils.getDateKey(e.getTimestamp()));
-        
-        Calendar cal = Calendar.getInstance();
-        int streak = 0;
-        String today = DateUtils.getDateKey(cal.getTimeInMillis());
-        
-        if (dates.contains(today)) {
-            streak = 1;
-            cal.add(Calendar.DAY_OF_YEAR, -1);
-            while (dates.contains(DateUtils.getDateKey(cal.getTimeInMillis()))) { streak++; cal.add(Calendar.DAY_OF_YEAR, -1); }
-        } else {
-            cal.add(Calendar.DAY_OF_YEAR, -1);
-            if (dates.contains(DateUtils.getDateKey(cal.getTimeInMillis()))) {
-                streak = 1;
-                cal.add(Calendar.DAY_OF_YEAR, -1);
-                while (dates.contains(DateUtils.getDateKey(cal.getTimeInMillis()))) { streak++; cal.add(Calendar.DAY_OF_YEAR, -1); }
-            }
-        }
-        streakText.setText(streak + " days");
+    private void updateStreak() {
+        // Kept by the repository's streak tracker, the same value the stats screen shows
+        JournalRepository.onMainThread(repository.getStreaksAsync())
+                .whenComplete((streaks, error) -> {
+                    if (!isDestroyed()) {
+                        streakText.setText((error == null ? streaks.current : 0) + " days");
+                    }
+                });
     }
 
     private void updateGreeting() {
@@ -148,5 +125,5 @@ public class MainActivity extends BaseNavigationActivity {
     }
 
     @Override
-    protected void onResume() { super.onResume(); updateUserName(); }
+    protected void onResume() { super.onResume(); updateUserName(); updateStreak(); }
 }
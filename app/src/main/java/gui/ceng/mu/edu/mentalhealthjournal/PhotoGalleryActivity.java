@@ -56,7 +56,7 @@ public class PhotoGalleryActivity extends AppCompatActivity {
     }
 
     private void loadPhotos() {
-        repository.getAllEntries().observe(this, entities -> {
+        repository.getEntriesWithPhotosLive().observe(this, entities -> {
             photoPaths.clear();
 
             if (entities != null) {
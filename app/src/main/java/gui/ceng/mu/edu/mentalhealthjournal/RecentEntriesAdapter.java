@@ -16,6 +16,7 @@ public class RecentEntriesAdapter extends RecyclerView.Adapter<RecentEntriesAdap
     private List<JournalEntry> entries;
     private OnEntryActionListener listener;
     private OnItemClickListener itemClickListener;
+    private OnItemBoundListener itemBoundListener;
 
     public interface OnEntryActionListener {
         void onEditEntry(JournalEntry entry);
@@ -26,6 +27,13 @@ public class RecentEntriesAdapter extends RecyclerView.Adapter<RecentEntriesAdap
         void onItemClick(JournalEntry entry);
     }
 
+    /**
+     * Notified for every bound row, used to prefetch the next page of a paged list
+     */
+    public interface OnItemBoundListener {
+        void onItemBound(int position);
+    }
+
     public RecentEntriesAdapter(List<JournalEntry> entries, OnEntryActionListener listener) {
         this.entries = entries;
         this.listener = listener;
@@ -35,6 +43,20 @@ public class RecentEntriesAdapter extends RecyclerView.Adapter<RecentEntriesAdap
         this.itemClickListener = listener;
     }
 
+    public void setOnItemBoundListener(OnItemBoundListener listener) {
+        this.itemBoundListener = listener;
+    }
+
+    /**
+     * Append a page of entries to the end of the list
+     * @param page The entries to append
+     */
+    public void appendEntries(List<JournalEntry> page) {
+        int start = entries.size();
+        entries.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
     /**
      * Update the entries list with new data and refresh the adapter
      * @param newEntries The new list of entries to display
@@ -62,6 +84,10 @@ public class RecentEntriesAdapter extends RecyclerView.Adapter<RecentEntriesAdap
         holder.moodIcon.setImageResource(entry.getMoodIcon());
         holder.moodIcon.setBackgroundResource(entry.getMoodBackground());
 
+        if (itemBoundListener != null) {
+            itemBoundListener.onItemBound(position);
+        }
+
         // Item click listener for viewing entry details
         holder.itemView.setOnClickListener(v -> {
             if (itemClickListener != null) {
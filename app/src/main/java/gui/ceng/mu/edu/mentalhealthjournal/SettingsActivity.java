@@ -20,6 +20,8 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.SwitchCompat;
 
+import com.google.android.material.snackbar.Snackbar;
+
 import gui.ceng.mu.edu.mentalhealthjournal.data.repository.JournalRepository;
 import gui.ceng.mu.edu.mentalhealthjournal.util.BackupManager;
 
@@ -305,11 +307,16 @@ public class SettingsActivity extends AppCompatActivity {
     private void showClearDataDialog() {
         new AlertDialog.Builder(this)
                 .setTitle("Clear All Data")
-                .setMessage("Are you sure you want to delete all journal entries? This action cannot be undone.")
-                .setPositiveButton("Delete All", (dialog, which) -> {
-                    repository.deleteAllEntries();
-                    showToast("All entries deleted");
-                })
+                .setMessage("Are you sure you want to delete all journal entries?")
+                .setPositiveButton("Delete All", (dialog, which) ->
+                        JournalRepository.onMainThread(repository.deleteAllEntries()).thenAccept(deletedAt -> {
+                            if (isDestroyed()) {
+                                return;
+                            }
+                            Snackbar.make(findViewById(android.R.id.content), "All entries deleted", Snackbar.LENGTH_LONG)
+                                    .setAction(R.string.undo, v -> repository.restoreAllEntries(deletedAt))
+                                    .show();
+                        }))
                 .setNegativeButton("Cancel", null)
                 .setIcon(android.R.drawable.ic_dialog_alert)
                 .show();
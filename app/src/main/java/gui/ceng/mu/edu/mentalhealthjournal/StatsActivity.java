@@ -2,8 +2,6 @@ package gui.ceng.mu.edu.mentalhealthjournal;
 
 import android.graphics.Color;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.widget.TextView;
 
 import androidx.core.content.ContextCompat;
@@ -26,19 +24,15 @@ import com.github.mikephil.charting.data.PieEntry;
 import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 import com.github.mikephil.charting.formatter.ValueFormatter;
 
-import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
 import gui.ceng.mu.edu.mentalhealthjournal.data.repository.JournalRepository;
 import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
+import gui.ceng.mu.edu.mentalhealthjournal.util.Lttb;
 import gui.ceng.mu.edu.mentalhealthjournal.util.MoodUtils;
+import gui.ceng.mu.edu.mentalhealthjournal.util.StatsEngine;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Activity displaying comprehensive statistics with charts.
@@ -46,12 +40,18 @@ import java.util.Map;
  */
 public class StatsActivity extends BaseNavigationActivity {
 
-    private static final int PERIOD_WEEKLY = 0;
-    private static final int PERIOD_MONTHLY = 1;
-    private static final int PERIOD_YEARLY = 2;
+    private static final int PERIOD_WEEKLY = StatsEngine.PERIOD_WEEKLY;
+    private static final int PERIOD_MONTHLY = StatsEngine.PERIOD_MONTHLY;
+    private static final int PERIOD_YEARLY = StatsEngine.PERIOD_YEARLY;
+
+    // Horizontal space per mood trend point; longer trends are downsampled to fit the chart
+    private static final float TREND_POINT_SPACING_DP = 8f;
+    // Value labels and circles only stay readable up to about a month of points
+    private static final int TREND_MAX_LABELLED_POINTS = 31;
 
     private JournalRepository repository;
-    private Handler mainHandler;
+    // Incremented on every load, so results of a superseded period are dropped
+    private int loadGeneration;
     private int currentPeriod = PERIOD_WEEKLY;
 
     // Views
@@ -68,7 +68,6 @@ public class StatsActivity extends BaseNavigationActivity {
         setContentView(R.layout.activity_stats);
 
         repository = new JournalRepository(this);
-        mainHandler = new Handler(Looper.getMainLooper());
 
         // Check for period parameter from intent
         String period = getIntent().getStringExtra("period");
@@ -86,8 +85,7 @@ public class StatsActivity extends BaseNavigationActivity {
         
         // Update tab selection based on period
         updateTabSelection();
-        
-        loadStatistics();
+        // Statistics are loaded in onResume, which always follows onCreate
     }
 
     private void updateTabSelection() {
@@ -270,156 +268,74 @@ public class StatsActivity extends BaseNavigationActivity {
         long startTime = range[0];
         long endTime = range[1];
 
-        // Load entries for the selected period
-        repository.getEntriesInRangeSync(startTime, endTime, new JournalRepository.RepositoryCallback<List<JournalEntryEntity>>() {
-            @Override
-            public void onComplete(List<JournalEntryEntity> entries) {
-                mainHandler.post(() -> {
-                    updateOverviewStats(entries, startTime, endTime);
-                    updateMoodLineChart(entries);
-                    updateMoodPieChart(entries);
-                    updateEntriesBarChart(entries);
-                });
-            }
-
-            @Override
-            public void onError(Exception e) {
-                e.printStackTrace();
-            }
-        });
-
-        // Load media statistics
-        loadMediaStats(startTime, endTime);
-    }
-
-    private void updateOverviewStats(List<JournalEntryEntity> entries, long startTime, long endTime) {
-        // Total entries
-        statTotalEntries.setText(String.valueOf(entries.size()));
-
-        // Average mood
-        if (!entries.isEmpty()) {
-            float totalMood = 0;
-            for (JournalEntryEntity entry : entries) {
-                totalMood += entry.getMoodLevel();
-            }
-            float avgMood = totalMood / entries.size();
-            statAvgMood.setText(String.format(Locale.US, "%.1f", avgMood));
-        } else {
-            statAvgMood.setText("--");
-        }
-
-        // Calculate streak
-        calculateStreak(entries);
-    }
-
-    private void calculateStreak(List<JournalEntryEntity> allEntries) {
-        if (allEntries.isEmpty()) {
-            statStreak.setText("0");
+        int generation = ++loadGeneration;
+
+        // Counts, mood histogram and media totals come from one aggregate query,
+        // the trend and entries charts from per-day aggregates; the repository
+        // runs both in parallel, builds the chart models in the background and
+        // keeps them until the next journal write.
+        CompletableFuture<StatsEngine.Result> models =
+                repository.getPeriodChartsAsync(currentPeriod, startTime, endTime);
+        if (models.isDone() && !models.isCompletedExceptionally()) {
+            // Cached: draw now instead of a frame later
+            showStatistics(models.join());
             return;
         }
 
-        // Get all entries to calculate proper streak
-        repository.getEntriesInRangeSync(0, System.currentTimeMillis(), new JournalRepository.RepositoryCallback<List<JournalEntryEntity>>() {
-            @Override
-            public void onComplete(List<JournalEntryEntity> entries) {
-                mainHandler.post(() -> {
-                    int streak = calculateConsecutiveDays(entries);
-                    statStreak.setText(String.valueOf(streak));
+        JournalRepository.onMainThread(models)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                        return;
+                    }
+                    // A newer period was selected while this one was loading
+                    if (generation != loadGeneration || isDestroyed()) {
+                        return;
+                    }
+                    showStatistics(result);
                 });
-            }
-
-            @Override
-            public void onError(Exception e) {
-                mainHandler.post(() -> statStreak.setText("0"));
-            }
-        });
     }
 
-    private int calculateConsecutiveDays(List<JournalEntryEntity> entries) {
-        if (entries.isEmpty()) return 0;
-
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd", Locale.US);
-        Map<String, Boolean> datesWithEntries = new HashMap<>();
-
-        for (JournalEntryEntity entry : entries) {
-            String dateKey = dateFormat.format(new Date(entry.getTimestamp()));
-            datesWithEntries.put(dateKey, true);
-        }
-
-        Calendar calendar = Calendar.getInstance();
-        String today = dateFormat.format(calendar.getTime());
-
-        // Check if there's an entry today
-        if (!datesWithEntries.containsKey(today)) {
-            // Check yesterday
-            calendar.add(Calendar.DAY_OF_YEAR, -1);
-            today = dateFormat.format(calendar.getTime());
-            if (!datesWithEntries.containsKey(today)) {
-                return 0;
-            }
-        }
+    private void showStatistics(StatsEngine.Result result) {
+        updateOverviewStats(result);
+        updateMoodPieChart(result);
+        updateMediaStats(result);
+        updateMoodLineChart(result.moodTrend);
+        updateEntriesBarChart(result.entryCounts);
+    }
 
-        int streak = 0;
-        calendar = Calendar.getInstance();
+    private void updateOverviewStats(StatsEngine.Result result) {
+        statTotalEntries.setText(String.valueOf(result.totalEntries));
+        statAvgMood.setText(result.averageMood);
 
-        while (true) {
-            String dateKey = dateFormat.format(calendar.getTime());
-            if (datesWithEntries.containsKey(dateKey)) {
-                streak++;
-                calendar.add(Calendar.DAY_OF_YEAR, -1);
-            } else {
-                break;
-            }
-        }
+        updateStreak();
+    }
 
-        return streak;
+    private void updateStreak() {
+        // Kept by the repository's streak tracker, the same value the home screen shows
+        JournalRepository.onMainThread(repository.getStreaksAsync())
+                .whenComplete((streaks, error) -> {
+                    if (isDestroyed()) {
+                        return;
+                    }
+                    statStreak.setText(error == null ? String.valueOf(streaks.current) : "0");
+                });
     }
 
-    private void updateMoodLineChart(List<JournalEntryEntity> entries) {
-        if (entries.isEmpty()) {
+    private void updateMoodLineChart(StatsEngine.Series trend) {
+        if (trend.isEmpty()) {
             moodLineChart.clear();
             moodLineChart.invalidate();
             return;
         }
 
-        ArrayList<Entry> lineEntries = new ArrayList<>();
-        ArrayList<String> labels = new ArrayList<>();
-
-        SimpleDateFormat dateFormat;
-        switch (currentPeriod) {
-            case PERIOD_YEARLY:
-                dateFormat = new SimpleDateFormat("MMM", Locale.US);
-                break;
-            case PERIOD_MONTHLY:
-                dateFormat = new SimpleDateFormat("dd", Locale.US);
-                break;
-            default:
-                dateFormat = new SimpleDateFormat("EEE", Locale.US);
-                break;
-        }
-
-        // Group entries by date and calculate average mood per day
-        Map<String, List<Integer>> moodsByDate = new HashMap<>();
-        for (JournalEntryEntity entry : entries) {
-            String dateKey = dateFormat.format(new Date(entry.getTimestamp()));
-            if (!moodsByDate.containsKey(dateKey)) {
-                moodsByDate.put(dateKey, new ArrayList<>());
-            }
-            moodsByDate.get(dateKey).add(entry.getMoodLevel());
-        }
-
-        int index = 0;
-        for (JournalEntryEntity entry : entries) {
-            String dateKey = dateFormat.format(new Date(entry.getTimestamp()));
-            if (!labels.contains(dateKey)) {
-                labels.add(dateKey);
-                List<Integer> moods = moodsByDate.get(dateKey);
-                float avgMood = 0;
-                for (int mood : moods) avgMood += mood;
-                avgMood /= moods.size();
-                lineEntries.add(new Entry(index++, avgMood));
-            }
+        // Points keep their index, so the x axis labels and spacing match the full trend
+        int[] points = Lttb.select(trend.values, maxTrendPoints());
+        ArrayList<Entry> lineEntries = new ArrayList<>(points.length);
+        for (int i : points) {
+            lineEntries.add(new Entry(i, trend.values[i]));
         }
+        boolean labelled = points.length <= TREND_MAX_LABELLED_POINTS;
 
         int accentColor = ContextCompat.getColor(this, R.color.accent_color);
         int textColor = ContextCompat.getColor(this, R.color.text_primary);
@@ -431,6 +347,8 @@ public class StatsActivity extends BaseNavigationActivity {
         dataSet.setDrawCircleHole(false);
         dataSet.setValueTextColor(textColor);
         dataSet.setValueTextSize(10f);
+        dataSet.setDrawValues(labelled);
+        dataSet.setDrawCircles(labelled);
         dataSet.setMode(LineDataSet.Mode.CUBIC_BEZIER);
         dataSet.setDrawFilled(true);
         dataSet.setFillColor(accentColor);
@@ -444,29 +362,32 @@ public class StatsActivity extends BaseNavigationActivity {
             }
         });
 
-        moodLineChart.getXAxis().setValueFormatter(new IndexAxisValueFormatter(labels));
+        moodLineChart.getXAxis().setValueFormatter(new IndexAxisValueFormatter(trend.labels));
         moodLineChart.setData(lineData);
         moodLineChart.animateX(500);
         moodLineChart.invalidate();
     }
 
-    private void updateMoodPieChart(List<JournalEntryEntity> entries) {
-        if (entries.isEmpty()) {
+    /**
+     * Number of mood trend points the chart can show, from its width
+     */
+    private int maxTrendPoints() {
+        // Not laid out yet when a cached result is shown right away
+        int width = moodLineChart.getWidth() > 0
+                ? moodLineChart.getWidth()
+                : getResources().getDisplayMetrics().widthPixels;
+        float spacing = TREND_POINT_SPACING_DP * getResources().getDisplayMetrics().density;
+        return Math.max(Lttb.MIN_POINTS, (int) (width / spacing));
+    }
+
+    private void updateMoodPieChart(StatsEngine.Result result) {
+        StatsEngine.Series shares = result.moodShares;
+        if (shares.isEmpty()) {
             moodPieChart.clear();
             moodPieChart.invalidate();
             return;
         }
 
-        int[] moodCounts = new int[5]; // Index 0-4 for mood levels 1-5
-        for (JournalEntryEntity entry : entries) {
-            int moodLevel = entry.getMoodLevel();
-            if (moodLevel >= 1 && moodLevel <= 5) {
-                moodCounts[moodLevel - 1]++;
-            }
-        }
-
-        ArrayList<PieEntry> pieEntries = new ArrayList<>();
-        String[] moodNames = {"Very Bad", "Bad", "Normal", "Good", "Very Good"};
         int[] moodColors = {
                 Color.parseColor("#F44336"), // Very Bad - Red
                 Color.parseColor("#FF9800"), // Bad - Orange
@@ -475,18 +396,11 @@ public class StatsActivity extends BaseNavigationActivity {
                 Color.parseColor("#4CAF50")  // Very Good - Green
         };
 
-        ArrayList<Integer> colors = new ArrayList<>();
-        for (int i = 0; i < 5; i++) {
-            if (moodCounts[i] > 0) {
-                pieEntries.add(new PieEntry(moodCounts[i], moodNames[i]));
-                colors.add(moodColors[i]);
-            }
-        }
-
-        if (pieEntries.isEmpty()) {
-            moodPieChart.clear();
-            moodPieChart.invalidate();
-            return;
+        ArrayList<PieEntry> pieEntries = new ArrayList<>(shares.size());
+        ArrayList<Integer> colors = new ArrayList<>(shares.size());
+        for (int i = 0; i < shares.size(); i++) {
+            pieEntries.add(new PieEntry(shares.values[i], shares.labels[i]));
+            colors.add(moodColors[result.moodShareLevels[i] - 1]);
         }
 
         PieDataSet dataSet = new PieDataSet(pieEntries, "");
@@ -508,73 +422,10 @@ public class StatsActivity extends BaseNavigationActivity {
         moodPieChart.invalidate();
     }
 
-    private void loadMediaStats(long startTime, long endTime) {
-        // Photos count
-        repository.getPhotoCountInRange(startTime, endTime, new JournalRepository.RepositoryCallback<Integer>() {
-            @Override
-            public void onComplete(Integer count) {
-                mainHandler.post(() -> statPhotos.setText(String.valueOf(count)));
-            }
-
-            @Override
-            public void onError(Exception e) {
-                mainHandler.post(() -> statPhotos.setText("0"));
-            }
-        });
-
-        // Voice memos count
-        repository.getVoiceMemoCountInRange(startTime, endTime, new JournalRepository.RepositoryCallback<Integer>() {
-            @Override
-            public void onComplete(Integer count) {
-                mainHandler.post(() -> statVoiceMemos.setText(String.valueOf(count)));
-            }
-
-            @Override
-            public void onError(Exception e) {
-                mainHandler.post(() -> statVoiceMemos.setText("0"));
-            }
-        });
-
-        // Media bar chart
-        updateMediaBarChart(startTime, endTime);
-    }
-
-    private void updateMediaBarChart(long startTime, long endTime) {
-        final int[] photoCount = {0};
-        final int[] voiceCount = {0};
-        final int[] callbacksComplete = {0};
-
-        repository.getPhotoCountInRange(startTime, endTime, new JournalRepository.RepositoryCallback<Integer>() {
-            @Override
-            public void onComplete(Integer count) {
-                photoCount[0] = count;
-                callbacksComplete[0]++;
-                if (callbacksComplete[0] == 2) {
-                    mainHandler.post(() -> renderMediaBarChart(photoCount[0], voiceCount[0]));
-                }
-            }
-
-            @Override
-            public void onError(Exception e) {
-                callbacksComplete[0]++;
-            }
-        });
-
-        repository.getVoiceMemoCountInRange(startTime, endTime, new JournalRepository.RepositoryCallback<Integer>() {
-            @Override
-            public void onComplete(Integer count) {
-                voiceCount[0] = count;
-                callbacksComplete[0]++;
-                if (callbacksComplete[0] == 2) {
-                    mainHandler.post(() -> renderMediaBarChart(photoCount[0], voiceCount[0]));
-                }
-            }
-
-            @Override
-            public void onError(Exception e) {
-                callbacksComplete[0]++;
-            }
-        });
+    private void updateMediaStats(StatsEngine.Result result) {
+        statPhotos.setText(String.valueOf(result.photoCount));
+        statVoiceMemos.setText(String.valueOf(result.voiceCount));
+        renderMediaBarChart(result.photoCount, result.voiceCount);
     }
 
     private void renderMediaBarChart(int photos, int voiceMemos) {
@@ -606,52 +457,16 @@ public class StatsActivity extends BaseNavigationActivity {
         mediaBarChart.invalidate();
     }
 
-    private void updateEntriesBarChart(List<JournalEntryEntity> entries) {
-        if (entries.isEmpty()) {
+    private void updateEntriesBarChart(StatsEngine.Series counts) {
+        if (counts.isEmpty()) {
             entriesBarChart.clear();
             entriesBarChart.invalidate();
             return;
         }
 
-        SimpleDateFormat dateFormat;
-        int numBars;
-
-        switch (currentPeriod) {
-            case PERIOD_YEARLY:
-                dateFormat = new SimpleDateFormat("MMM", Locale.US);
-                numBars = 12;
-                break;
-            case PERIOD_MONTHLY:
-                dateFormat = new SimpleDateFormat("W", Locale.US);
-                numBars = 4;
-                break;
-            default:
-                dateFormat = new SimpleDateFormat("EEE", Locale.US);
-                numBars = 7;
-                break;
-        }
-
-        // Count entries per time period
-        Map<String, Integer> entriesByPeriod = new HashMap<>();
-        for (JournalEntryEntity entry : entries) {
-            String key = dateFormat.format(new Date(entry.getTimestamp()));
-            entriesByPeriod.put(key, entriesByPeriod.getOrDefault(key, 0) + 1);
-        }
-
-        ArrayList<BarEntry> barEntries = new ArrayList<>();
-        ArrayList<String> labels = new ArrayList<>();
-
-        int index = 0;
-        for (Map.Entry<String, Integer> mapEntry : entriesByPeriod.entrySet()) {
-            barEntries.add(new BarEntry(index, mapEntry.getValue()));
-            labels.add(mapEntry.getKey());
-            index++;
-        }
-
-        if (barEntries.isEmpty()) {
-            entriesBarChart.clear();
-            entriesBarChart.invalidate();
-            return;
+        ArrayList<BarEntry> barEntries = new ArrayList<>(counts.size());
+        for (int i = 0; i < counts.size(); i++) {
+            barEntries.add(new BarEntry(i, counts.values[i]));
         }
 
         BarDataSet dataSet = new BarDataSet(barEntries, "Entries");
@@ -668,7 +483,7 @@ public class StatsActivity extends BaseNavigationActivity {
             }
         });
 
-        entriesBarChart.getXAxis().setValueFormatter(new IndexAxisValueFormatter(labels));
+        entriesBarChart.getXAxis().setValueFormatter(new IndexAxisValueFormatter(counts.labels));
         entriesBarChart.setData(barData);
         entriesBarChart.animateY(500);
         entriesBarChart.invalidate();
@@ -682,6 +497,9 @@ public class StatsActivity extends BaseNavigationActivity {
     @Override
     protected void onResume() {
         super.onResume();
+        // Compute every period at once, so switching tabs draws from the cache;
+        // the current period's load below joins its computation
+        repository.prefetchPeriodChartsAsync();
         loadStatistics();
     }
 }
@@ -0,0 +1,33 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.JournalRepository;
+
+/**
+ * BroadcastReceiver that handles time zone changes.
+ * Entries are bucketed into local days when written, so a new zone
+ * re-buckets every entry and rebuilds the daily summaries.
+ */
+public class TimeZoneReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "TimeZoneReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!Intent.ACTION_TIMEZONE_CHANGED.equals(intent.getAction())) {
+            return;
+        }
+        PendingResult pendingResult = goAsync();
+        new JournalRepository(context.getApplicationContext()).rebuildDailySummaries()
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Rebuilding days after time zone change failed", error);
+                    }
+                    pendingResult.finish();
+                });
+    }
+}
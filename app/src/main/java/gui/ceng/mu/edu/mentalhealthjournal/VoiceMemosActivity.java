@@ -62,7 +62,7 @@ public class VoiceMemosActivity extends AppCompatActivity {
     }
 
     private void loadVoiceMemos() {
-        repository.getAllEntries().observe(this, entities -> {
+        repository.getEntriesWithVoiceMemosLive().observe(this, entities -> {
             voiceMemos.clear();
 
             if (entities != null) {
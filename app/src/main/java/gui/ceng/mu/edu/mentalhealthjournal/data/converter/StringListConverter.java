@@ -2,16 +2,34 @@ package gui.ceng.mu.edu.mentalhealthjournal.data.converter;
 
 import androidx.room.TypeConverter;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Type converter for Room database to convert List<String> to/from a comma-separated String.
+ * Commas and backslashes inside a tag are escaped with a backslash, so any tag round-trips;
+ * lists stored before escaping existed are escaped by {@code Migrations.MIGRATION_8_9}.
+ *
+ * Rows share their lists: every distinct tag is interned in a global pool and every
+ * distinct column value maps to one immutable list, so reading many entries with the
+ * same tags allocates no new strings or lists. Both pools are bounded; past the bound
+ * values are still converted correctly, just not shared.
  */
 public class StringListConverter {
 
-    private static final String SEPARATOR = ",";
+    private static final char SEPARATOR = ',';
+    private static final char ESCAPE = '\\';
+
+    // Most distinct tags kept in the intern pool
+    static final int MAX_INTERNED_TAGS = 2048;
+
+    // Most distinct column values whose lists are shared
+    static final int MAX_SHARED_LISTS = 2048;
+
+    private static final ConcurrentHashMap<String, String> internedTags = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, List<String>> sharedLists = new ConcurrentHashMap<>();
 
     @TypeConverter
     public static String fromList(List<String> list) {
@@ -20,19 +38,113 @@ public class StringListConverter {
         }
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < list.size(); i++) {
-            sb.append(list.get(i));
-            if (i < list.size() - 1) {
+            if (i > 0) {
                 sb.append(SEPARATOR);
             }
+            String tag = String.valueOf(list.get(i));
+            for (int j = 0; j < tag.length(); j++) {
+                char c = tag.charAt(j);
+                if (c == SEPARATOR || c == ESCAPE) {
+                    sb.append(ESCAPE);
+                }
+                sb.append(c);
+            }
         }
         return sb.toString();
     }
 
+    /**
+     * Parse a column value into a list of tags
+     * @param data The comma-separated tags, may be null
+     * @return Immutable list, shared with other rows holding the same value
+     */
     @TypeConverter
     public static List<String> toList(String data) {
         if (data == null || data.isEmpty()) {
-            return new ArrayList<>();
+            return Collections.emptyList();
+        }
+        List<String> shared = sharedLists.get(data);
+        if (shared != null) {
+            return shared;
+        }
+        List<String> list = Collections.unmodifiableList(Arrays.asList(parse(data)));
+        if (sharedLists.size() < MAX_SHARED_LISTS) {
+            List<String> raced = sharedLists.putIfAbsent(data, list);
+            if (raced != null) {
+                return raced;
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Split on unescaped separators without regular expressions.
+     * Trailing empty tags are dropped, as {@code String.split} did.
+     */
+    private static String[] parse(String data) {
+        int length = data.length();
+        int count = 1;
+        int end = 0;
+        // First pass: count tags, and find where the last non-empty one ends
+        for (int i = 0; i < length; i++) {
+            char c = data.charAt(i);
+            if (c == ESCAPE && i + 1 < length) {
+                i++;
+                end = i + 1;
+            } else if (c == SEPARATOR) {
+                count++;
+            } else {
+                end = i + 1;
+            }
+        }
+        if (end == 0) {
+            return new String[0];
+        }
+        String[] tags = new String[count];
+        int n = 0;
+        int start = 0;
+        StringBuilder unescaped = null;
+        for (int i = 0; i < end; i++) {
+            char c = data.charAt(i);
+            if (c == ESCAPE && i + 1 < length) {
+                if (unescaped == null) {
+                    unescaped = new StringBuilder();
+                }
+                unescaped.append(data, start, i);
+                start = ++i;
+            } else if (c == SEPARATOR) {
+                tags[n++] = tag(data, start, i, unescaped);
+                start = i + 1;
+                unescaped = null;
+            }
+        }
+        tags[n++] = tag(data, start, end, unescaped);
+        return n == count ? tags : Arrays.copyOf(tags, n);
+    }
+
+    private static String tag(String data, int start, int end, StringBuilder unescaped) {
+        if (unescaped != null) {
+            return intern(unescaped.append(data, start, end).toString());
+        }
+        return intern(data.substring(start, end));
+    }
+
+    /**
+     * Get the pooled instance of a tag
+     * @param tag The tag
+     * @return An equal, shared string
+     */
+    static String intern(String tag) {
+        String pooled = internedTags.get(tag);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (internedTags.size() < MAX_INTERNED_TAGS) {
+            pooled = internedTags.putIfAbsent(tag, tag);
+            if (pooled != null) {
+                return pooled;
+            }
         }
-        return new ArrayList<>(Arrays.asList(data.split(SEPARATOR)));
+        return tag;
     }
 }
@@ -0,0 +1,164 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.DailySummaryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
+
+import java.util.List;
+
+/**
+ * Data Access Object for the daily_summary rollup table.
+ * Summaries are recomputed per affected day from the live (not deleted) journal entries
+ * stored with that epoch day, so they stay exact however an entry changed; callers run this inside their write transaction.
+ */
+@Dao
+public interface DailySummaryDao {
+
+    /**
+     * Insert or replace the summary of a day
+     * @param summary The summary to store
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(DailySummaryEntity summary);
+
+    /**
+     * Delete the summary of a day
+     * @param epochDay The local epoch day
+     */
+    @Query("DELETE FROM daily_summary WHERE epochDay = :epochDay")
+    void deleteDay(long epochDay);
+
+    /**
+     * Delete all summaries
+     */
+    @Query("DELETE FROM daily_summary")
+    void deleteAll();
+
+    /**
+     * Get the summaries of a range of days
+     * @param startDay First epoch day (inclusive)
+     * @param endDay Last epoch day (inclusive)
+     * @return LiveData list of summaries, oldest first; days without entries are absent
+     */
+    @Query("SELECT * FROM daily_summary WHERE epochDay >= :startDay AND epochDay <= :endDay ORDER BY epochDay ASC")
+    LiveData<List<DailySummaryEntity>> getSummariesLive(long startDay, long endDay);
+
+    /**
+     * Get the summaries of a range of days synchronously
+     * @param startDay First epoch day (inclusive)
+     * @param endDay Last epoch day (inclusive)
+     * @return List of summaries, oldest first; days without entries are absent
+     */
+    @Query("SELECT * FROM daily_summary WHERE epochDay >= :startDay AND epochDay <= :endDay ORDER BY epochDay ASC")
+    List<DailySummaryEntity> getSummariesSync(long startDay, long endDay);
+
+    /**
+     * Get every day with entries, e.g. to rebuild streaks
+     * @return Epoch days, oldest first
+     */
+    @Query("SELECT epochDay FROM daily_summary ORDER BY epochDay ASC")
+    List<Long> getEpochDays();
+
+    /**
+     * Count all live entries, archived ones included
+     * @return Number of entries
+     */
+    @Query("SELECT COALESCE(SUM(entryCount), 0) FROM daily_summary")
+    int getTotalEntryCount();
+
+    /**
+     * Count all live entries with a photo, archived ones included
+     * @return Number of entries
+     */
+    @Query("SELECT COALESCE(SUM(photoCount), 0) FROM daily_summary")
+    int getTotalPhotoCount();
+
+    /**
+     * Count all live entries with a voice memo, archived ones included
+     * @return Number of entries
+     */
+    @Query("SELECT COALESCE(SUM(voiceCount), 0) FROM daily_summary")
+    int getTotalVoiceCount();
+
+    /**
+     * Check whether a day has entries
+     * @param epochDay The local epoch day
+     * @return Whether the day has a summary row
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM daily_summary WHERE epochDay = :epochDay)")
+    boolean hasDay(long epochDay);
+
+    /**
+     * Aggregate the entries of a day into a summary row
+     * @param epochDay The local epoch day
+     * @return The aggregate; entryCount is 0 if the day has no entries
+     */
+    @Query("SELECT :epochDay AS epochDay, COUNT(*) AS entryCount, " +
+           "COALESCE(SUM(moodLevel), 0) AS moodSum, " +
+           "COALESCE(MIN(moodLevel), 0) AS minMood, COALESCE(MAX(moodLevel), 0) AS maxMood, " +
+           "COALESCE((SELECT moodLevel FROM journal_entries WHERE epochDay = :epochDay " +
+           "AND deletedAt IS NULL ORDER BY timestamp ASC, id ASC LIMIT 1), 0) AS firstMood, " +
+           "COALESCE((SELECT moodLevel FROM journal_entries WHERE epochDay = :epochDay " +
+           "AND deletedAt IS NULL ORDER BY timestamp DESC, id DESC LIMIT 1), 0) AS lastMood, " +
+           "COALESCE(SUM(CASE WHEN photoPath IS NOT NULL AND photoPath != '' THEN 1 ELSE 0 END), 0) AS photoCount, " +
+           "COALESCE(SUM(CASE WHEN voiceMemoPath IS NOT NULL AND voiceMemoPath != '' THEN 1 ELSE 0 END), 0) AS voiceCount " +
+           "FROM journal_entries WHERE epochDay = :epochDay AND deletedAt IS NULL")
+    DailySummaryEntity aggregateDay(long epochDay);
+
+    /**
+     * Insert the summaries of every day with entries, grouped by the stored epoch day
+     */
+    @Query("INSERT INTO daily_summary (epochDay, entryCount, moodSum, minMood, maxMood, " +
+           "firstMood, lastMood, photoCount, voiceCount) " +
+           "SELECT e.epochDay, COUNT(*), SUM(e.moodLevel), MIN(e.moodLevel), MAX(e.moodLevel), " +
+           "(SELECT f.moodLevel FROM journal_entries f WHERE f.epochDay = e.epochDay " +
+           "AND f.deletedAt IS NULL ORDER BY f.timestamp ASC, f.id ASC LIMIT 1), " +
+           "(SELECT l.moodLevel FROM journal_entries l WHERE l.epochDay = e.epochDay " +
+           "AND l.deletedAt IS NULL ORDER BY l.timestamp DESC, l.id DESC LIMIT 1), " +
+           "SUM(CASE WHEN e.photoPath IS NOT NULL AND e.photoPath != '' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN e.voiceMemoPath IS NOT NULL AND e.voiceMemoPath != '' THEN 1 ELSE 0 END) " +
+           "FROM journal_entries e WHERE e.deletedAt IS NULL GROUP BY e.epochDay")
+    void insertAllFromEntries();
+
+    /**
+     * Recompute the summary of one day from its entries.
+     * Must be called on a background thread.
+     * @param epochDay The local epoch day
+     */
+    @Transaction
+    default void recomputeDay(long epochDay) {
+        DailySummaryEntity summary = aggregateDay(epochDay);
+        if (summary == null || summary.getEntryCount() == 0) {
+            deleteDay(epochDay);
+        } else {
+            upsert(summary);
+        }
+    }
+
+    /**
+     * Recompute the summary of the day containing a timestamp.
+     * Must be called on a background thread.
+     * @param timestamp Entry timestamp in milliseconds
+     */
+    default void recomputeDayOf(long timestamp) {
+        recomputeDay(DateUtils.getEpochDay(timestamp));
+    }
+
+    /**
+     * Drop all summaries and recompute them from journal_entries in one grouped query,
+     * e.g. after a bulk restore or a time zone change.
+     * The entries' epoch days must be current (see {@code JournalEntryDao#recomputeEpochDays}).
+     * Must be called on a background thread.
+     */
+    @Transaction
+    default void rebuild() {
+        deleteAll();
+        insertAllFromEntries();
+    }
+}
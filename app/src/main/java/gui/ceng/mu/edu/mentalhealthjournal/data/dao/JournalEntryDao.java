@@ -1,19 +1,32 @@
 package gui.ceng.mu.edu.mentalhealthjournal.data.dao;
 
+import android.database.Cursor;
+
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.room.Upsert;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntrySearchResult;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntrySummary;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.MoodLevelStats;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.Tombstone;
+import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
 
 import java.util.List;
 
 /**
  * Data Access Object for JournalEntryEntity.
  * Provides methods to interact with the journal_entries table.
+ * Deleted entries stay as tombstones (deletedAt set) until compaction purges them;
+ * every read query excludes them.
  */
 @Dao
 public interface JournalEntryDao {
@@ -26,6 +39,22 @@ public interface JournalEntryDao {
     @Insert
     long insert(JournalEntryEntity entry);
 
+    /**
+     * Insert several journal entries in one statement batch
+     * @param entries The entries to insert
+     * @return The row IDs of the inserted entries, in order
+     */
+    @Insert
+    List<Long> insertAll(List<JournalEntryEntity> entries);
+
+    /**
+     * Insert entries, or update those whose ID already exists
+     * @param entries The entries to write
+     * @return For each entry in order, the new row ID, or -1 if an existing row was updated
+     */
+    @Upsert
+    List<Long> upsertAll(List<JournalEntryEntity> entries);
+
     /**
      * Update an existing journal entry
      * @param entry The entry to update
@@ -41,7 +70,7 @@ public interface JournalEntryDao {
     void delete(JournalEntryEntity entry);
 
     /**
-     * Delete a journal entry by ID
+     * Permanently delete a journal entry by ID (see {@link #markDeleted} for user deletes)
      * @param id The ID of the entry to delete
      */
     @Query("DELETE FROM journal_entries WHERE id = :id")
@@ -51,14 +80,14 @@ public interface JournalEntryDao {
      * Get all journal entries ordered by timestamp (newest first)
      * @return LiveData list of all entries
      */
-    @Query("SELECT * FROM journal_entries ORDER BY timestamp DESC")
+    @Query("SELECT * FROM journal_entries WHERE deletedAt IS NULL ORDER BY timestamp DESC")
     LiveData<List<JournalEntryEntity>> getAllEntries();
 
     /**
      * Get all journal entries synchronously (for background operations)
      * @return List of all entries
      */
-    @Query("SELECT * FROM journal_entries ORDER BY timestamp DESC")
+    @Query("SELECT * FROM journal_entries WHERE deletedAt IS NULL ORDER BY timestamp DESC")
     List<JournalEntryEntity> getAllEntriesSync();
 
     /**
@@ -66,16 +95,32 @@ public interface JournalEntryDao {
      * @param id The ID of the entry
      * @return The journal entry
      */
-    @Query("SELECT * FROM journal_entries WHERE id = :id")
+    @Query("SELECT * FROM journal_entries WHERE id = :id AND deletedAt IS NULL")
     JournalEntryEntity getEntryById(long id);
 
+    /**
+     * Get the timestamp of an entry, including a deleted one
+     * @param id The ID of the entry
+     * @return The timestamp, or null if the entry does not exist
+     */
+    @Query("SELECT timestamp FROM journal_entries WHERE id = :id")
+    Long getTimestampById(long id);
+
+    /**
+     * Get the timestamp of a live entry
+     * @param id The ID of the entry
+     * @return The timestamp, or null if the entry does not exist or is deleted
+     */
+    @Query("SELECT timestamp FROM journal_entries WHERE id = :id AND deletedAt IS NULL")
+    Long getLiveTimestampById(long id);
+
     /**
      * Get entries for a specific date range
      * @param startTime Start timestamp
      * @param endTime End timestamp
      * @return LiveData list of entries in the date range
      */
-    @Query("SELECT * FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime ORDER BY timestamp DESC")
+    @Query("SELECT * FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime AND deletedAt IS NULL ORDER BY timestamp DESC")
     LiveData<List<JournalEntryEntity>> getEntriesByDateRange(long startTime, long endTime);
 
     /**
@@ -84,14 +129,14 @@ public interface JournalEntryDao {
      * @param endTime End timestamp
      * @return List of entries in the date range
      */
-    @Query("SELECT * FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime ORDER BY timestamp DESC")
+    @Query("SELECT * FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime AND deletedAt IS NULL ORDER BY timestamp DESC")
     List<JournalEntryEntity> getEntriesByDateRangeSync(long startTime, long endTime);
 
     /**
      * Get the count of all entries
      * @return Total number of entries
      */
-    @Query("SELECT COUNT(*) FROM journal_entries")
+    @Query("SELECT COUNT(*) FROM journal_entries WHERE deletedAt IS NULL")
     int getEntryCount();
 
     /**
@@ -99,7 +144,7 @@ public interface JournalEntryDao {
      * @param moodLevel The mood level (1-5)
      * @return Count of entries with that mood level
      */
-    @Query("SELECT COUNT(*) FROM journal_entries WHERE moodLevel = :moodLevel")
+    @Query("SELECT COUNT(*) FROM journal_entries WHERE moodLevel = :moodLevel AND deletedAt IS NULL")
     int getEntryCountByMood(int moodLevel);
 
     /**
@@ -107,7 +152,7 @@ public interface JournalEntryDao {
      * @param limit Maximum number of entries to return
      * @return List of recent entries
      */
-    @Query("SELECT * FROM journal_entries ORDER BY timestamp DESC LIMIT :limit")
+    @Query("SELECT * FROM journal_entries WHERE deletedAt IS NULL ORDER BY timestamp DESC LIMIT :limit")
     List<JournalEntryEntity> getRecentEntries(int limit);
 
     /**
@@ -115,22 +160,150 @@ public interface JournalEntryDao {
      * @param limit Maximum number of entries
      * @return LiveData list of recent entries
      */
-    @Query("SELECT * FROM journal_entries ORDER BY timestamp DESC LIMIT :limit")
+    @Query("SELECT * FROM journal_entries WHERE deletedAt IS NULL ORDER BY timestamp DESC LIMIT :limit")
     LiveData<List<JournalEntryEntity>> getRecentEntriesLive(int limit);
 
     /**
-     * Delete all entries
+     * Get summaries of the most recent entries for list screens
+     * @param limit Maximum number of entries
+     * @return LiveData list of recent entry summaries
+     */
+    @Query("SELECT " + EntrySummary.COLUMNS + " FROM journal_entries WHERE deletedAt IS NULL ORDER BY timestamp DESC LIMIT :limit")
+    LiveData<List<EntrySummary>> getRecentSummariesLive(int limit);
+
+    /**
+     * Permanently delete all entries, including tombstones (for restoring a backup)
      */
     @Query("DELETE FROM journal_entries")
     void deleteAllEntries();
 
+    // ========== Tombstone Queries ==========
+
+    /**
+     * Soft-delete an entry by setting its tombstone
+     * @param id The ID of the entry
+     * @param deletedAt Deletion time in milliseconds
+     * @return Number of entries deleted (0 if already deleted or missing)
+     */
+    @Query("UPDATE journal_entries SET deletedAt = :deletedAt WHERE id = :id AND deletedAt IS NULL")
+    int markDeleted(long id, long deletedAt);
+
+    /**
+     * Soft-delete every live entry
+     * @param deletedAt Deletion time in milliseconds
+     * @return Number of entries deleted
+     */
+    @Query("UPDATE journal_entries SET deletedAt = :deletedAt WHERE deletedAt IS NULL")
+    int markAllDeleted(long deletedAt);
+
+    /**
+     * Undo the soft delete of an entry
+     * @param id The ID of the entry
+     * @return Number of entries restored (0 if not deleted or already purged)
+     */
+    @Query("UPDATE journal_entries SET deletedAt = NULL WHERE id = :id AND deletedAt IS NOT NULL")
+    int restoreDeleted(long id);
+
+    /**
+     * Undo a delete-all by restoring the entries it tombstoned
+     * @param deletedAt Deletion time the delete-all used
+     * @return Number of entries restored
+     */
+    @Query("UPDATE journal_entries SET deletedAt = NULL WHERE deletedAt = :deletedAt")
+    int restoreDeletedAt(long deletedAt);
+
+    /**
+     * Get the timestamps of the entries tombstoned by one delete
+     * @param deletedAt Deletion time of the delete
+     * @return List of entry timestamps
+     */
+    @Query("SELECT timestamp FROM journal_entries WHERE deletedAt = :deletedAt")
+    List<Long> getTimestampsDeletedAt(long deletedAt);
+
+    /**
+     * Get tombstones older than a cutoff, oldest first
+     * @param cutoff Tombstones deleted before this time are returned
+     * @param limit Maximum number of tombstones
+     * @return List of tombstones with their media paths
+     */
+    @Query("SELECT id, photoPath, voiceMemoPath FROM journal_entries " +
+           "WHERE deletedAt IS NOT NULL AND deletedAt < :cutoff ORDER BY deletedAt ASC LIMIT :limit")
+    List<Tombstone> getExpiredTombstones(long cutoff, int limit);
+
+    /**
+     * Permanently delete entries; their tag links are removed by cascade
+     * @param ids The IDs of the entries
+     */
+    @Query("DELETE FROM journal_entries WHERE id IN (:ids)")
+    void deleteByIds(List<Long> ids);
+
+    /**
+     * Get the live entries of the oldest days before a cutoff, for moving into the archive.
+     * Whole days are returned, so a day with more entries than the limit is not split.
+     * @param cutoffDay Entries of epoch days before this one are returned
+     * @param limit Approximate maximum number of entries
+     * @return List of entries, oldest first
+     */
+    @Query("SELECT * FROM journal_entries WHERE deletedAt IS NULL AND epochDay < :cutoffDay " +
+           "AND epochDay <= (SELECT MAX(epochDay) FROM (SELECT epochDay FROM journal_entries " +
+           "WHERE deletedAt IS NULL AND epochDay < :cutoffDay ORDER BY epochDay LIMIT :limit)) " +
+           "ORDER BY timestamp ASC")
+    List<JournalEntryEntity> getArchivableEntries(long cutoffDay, int limit);
+
+    /**
+     * Count the entries, deleted or not, that reference a media file
+     * @param path The media file path
+     * @return Number of referencing entries
+     */
+    @Query("SELECT COUNT(*) FROM journal_entries WHERE photoPath = :path OR voiceMemoPath = :path")
+    int countMediaReferences(String path);
+
+    // ========== Epoch Day Maintenance ==========
+
+    /**
+     * Get the earliest entry timestamp, deleted or not, after a time
+     * @param after Exclusive lower bound
+     * @return The timestamp, or null if there is none
+     */
+    @Query("SELECT MIN(timestamp) FROM journal_entries WHERE timestamp > :after")
+    Long getFirstTimestampAfter(long after);
+
+    /**
+     * Label every entry in a time range with an epoch day
+     * @param epochDay The local epoch day
+     * @param startTime Start timestamp of the day
+     * @param endTime End timestamp of the day
+     */
+    @Query("UPDATE journal_entries SET epochDay = :epochDay WHERE timestamp >= :startTime AND timestamp <= :endTime")
+    void assignEpochDay(long epochDay, long startTime, long endTime);
+
+    /**
+     * Recompute the epoch day of every entry in the current time zone,
+     * with one range update per day that has entries.
+     * Must be called on a background thread.
+     * @return Number of days updated
+     */
+    @Transaction
+    default int recomputeEpochDays() {
+        int days = 0;
+        Long timestamp = getFirstTimestampAfter(Long.MIN_VALUE);
+        while (timestamp != null) {
+            long epochDay = DateUtils.getEpochDay(timestamp);
+            long endOfDay = DateUtils.getEndOfEpochDay(epochDay);
+            assignEpochDay(epochDay, DateUtils.getStartOfEpochDay(epochDay), endOfDay);
+            days++;
+            timestamp = getFirstTimestampAfter(endOfDay);
+        }
+        return days;
+    }
+
     /**
      * Get average mood for a date range (for statistics)
      * @param startTime Start timestamp
      * @param endTime End timestamp
      * @return Average mood level
      */
-    @Query("SELECT AVG(moodLevel) FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime")
+    @Query("SELECT AVG(moodLevel) FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime AND deletedAt IS NULL")
     float getAverageMood(long startTime, long endTime);
 
     // ========== Statistics Queries ==========
@@ -141,7 +314,7 @@ public interface JournalEntryDao {
      * @param endTime End timestamp
      * @return Count of entries with photos
      */
-    @Query("SELECT COUNT(*) FROM journal_entries WHERE photoPath IS NOT NULL AND photoPath != '' AND timestamp >= :startTime AND timestamp <= :endTime")
+    @Query("SELECT COUNT(*) FROM journal_entries WHERE photoPath IS NOT NULL AND photoPath != '' AND timestamp >= :startTime AND timestamp <= :endTime AND deletedAt IS NULL")
     int getPhotoCountInRange(long startTime, long endTime);
 
     /**
@@ -150,21 +323,21 @@ public interface JournalEntryDao {
      * @param endTime End timestamp
      * @return Count of entries with voice memos
      */
-    @Query("SELECT COUNT(*) FROM journal_entries WHERE voiceMemoPath IS NOT NULL AND voiceMemoPath != '' AND timestamp >= :startTime AND timestamp <= :endTime")
+    @Query("SELECT COUNT(*) FROM journal_entries WHERE voiceMemoPath IS NOT NULL AND voiceMemoPath != '' AND timestamp >= :startTime AND timestamp <= :endTime AND deletedAt IS NULL")
     int getVoiceMemoCountInRange(long startTime, long endTime);
 
     /**
      * Count all entries with photos
      * @return Total count of entries with photos
      */
-    @Query("SELECT COUNT(*) FROM journal_entries WHERE photoPath IS NOT NULL AND photoPath != ''")
+    @Query("SELECT COUNT(*) FROM journal_entries WHERE photoPath IS NOT NULL AND photoPath != '' AND deletedAt IS NULL")
     int getTotalPhotoCount();
 
     /**
      * Count all entries with voice memos
      * @return Total count of entries with voice memos
      */
-    @Query("SELECT COUNT(*) FROM journal_entries WHERE voiceMemoPath IS NOT NULL AND voiceMemoPath != ''")
+    @Query("SELECT COUNT(*) FROM journal_entries WHERE voiceMemoPath IS NOT NULL AND voiceMemoPath != '' AND deletedAt IS NULL")
     int getTotalVoiceMemoCount();
 
     /**
@@ -173,7 +346,7 @@ public interface JournalEntryDao {
      * @param endTime End timestamp
      * @return Count of entries
      */
-    @Query("SELECT COUNT(*) FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime")
+    @Query("SELECT COUNT(*) FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime AND deletedAt IS NULL")
     int getEntryCountInRange(long startTime, long endTime);
 
     /**
@@ -183,52 +356,102 @@ public interface JournalEntryDao {
      * @param endTime End timestamp
      * @return Count of entries with that mood level in range
      */
-    @Query("SELECT COUNT(*) FROM journal_entries WHERE moodLevel = :moodLevel AND timestamp >= :startTime AND timestamp <= :endTime")
+    @Query("SELECT COUNT(*) FROM journal_entries WHERE moodLevel = :moodLevel AND timestamp >= :startTime AND timestamp <= :endTime AND deletedAt IS NULL")
     int getMoodCountInRange(int moodLevel, long startTime, long endTime);
 
+    /**
+     * Get entry and media counts per mood level in a date range, in one pass
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return One row per mood level present in the range
+     */
+    @Query("SELECT moodLevel, COUNT(*) AS entryCount, " +
+           "SUM(CASE WHEN photoPath IS NOT NULL AND photoPath != '' THEN 1 ELSE 0 END) AS photoCount, " +
+           "SUM(CASE WHEN voiceMemoPath IS NOT NULL AND voiceMemoPath != '' THEN 1 ELSE 0 END) AS voiceCount " +
+           "FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime AND deletedAt IS NULL " +
+           "GROUP BY moodLevel")
+    List<MoodLevelStats> getMoodLevelStatsInRange(long startTime, long endTime);
+
     /**
      * Get entries in date range synchronously for statistics
      * @param startTime Start timestamp
      * @param endTime End timestamp
      * @return List of entries
      */
-    @Query("SELECT * FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime ORDER BY timestamp ASC")
+    @Query("SELECT * FROM journal_entries WHERE timestamp >= :startTime AND timestamp <= :endTime AND deletedAt IS NULL ORDER BY timestamp ASC")
     List<JournalEntryEntity> getEntriesInRangeSync(long startTime, long endTime);
 
     // ========== Search and Filter Queries ==========
 
     /**
-     * Search entries by keyword in note, emotions, and activities
-     * @param keyword The search keyword (will be wrapped with % for LIKE query)
+     * Search entries by keyword in note, emotions, and activities using the full-text index
+     * @param query FTS4 MATCH expression (see FtsUtils.buildPrefixQuery)
      * @return List of matching entries
      */
-    @Query("SELECT * FROM journal_entries WHERE " +
-           "note LIKE '%' || :keyword || '%' OR " +
-           "emotions LIKE '%' || :keyword || '%' OR " +
-           "activities LIKE '%' || :keyword || '%' " +
-           "ORDER BY timestamp DESC")
-    List<JournalEntryEntity> searchEntriesByKeyword(String keyword);
+    @Query("SELECT journal_entries.* FROM journal_entries " +
+           "INNER JOIN journal_entries_fts ON journal_entries_fts.rowid = journal_entries.id " +
+           "WHERE journal_entries_fts MATCH :query AND journal_entries.deletedAt IS NULL " +
+           "ORDER BY journal_entries.timestamp DESC")
+    List<JournalEntryEntity> searchEntriesByKeyword(String query);
+
+    /**
+     * Full-text search returning ranking and highlighting data with each entry
+     * @param query FTS4 MATCH expression (see FtsUtils.buildPrefixQuery)
+     * @param limit Maximum number of results
+     * @return Unordered matching entries with matchinfo and offsets
+     */
+    @Query("SELECT journal_entries.*, " +
+           "matchinfo(journal_entries_fts, 'pcx') AS matchInfo, " +
+           "offsets(journal_entries_fts) AS matchOffsets " +
+           "FROM journal_entries_fts " +
+           "INNER JOIN journal_entries ON journal_entries.id = journal_entries_fts.rowid " +
+           "WHERE journal_entries_fts MATCH :query AND journal_entries.deletedAt IS NULL LIMIT :limit")
+    List<EntrySearchResult> searchEntries(String query, int limit);
+
+    /**
+     * Get the IDs of entries matching a full-text query
+     * @param query FTS4 MATCH expression (see FtsUtils.buildPrefixQuery)
+     * @return List of matching entry IDs
+     */
+    @Query("SELECT journal_entries_fts.rowid FROM journal_entries_fts " +
+           "INNER JOIN journal_entries ON journal_entries.id = journal_entries_fts.rowid " +
+           "WHERE journal_entries_fts MATCH :query AND journal_entries.deletedAt IS NULL")
+    List<Long> searchEntryIds(String query);
 
     /**
      * Get entries with photos
      * @return List of entries that have photos attached
      */
-    @Query("SELECT * FROM journal_entries WHERE photoPath IS NOT NULL AND photoPath != '' ORDER BY timestamp DESC")
+    @Query("SELECT * FROM journal_entries WHERE photoPath IS NOT NULL AND photoPath != '' AND deletedAt IS NULL ORDER BY timestamp DESC")
     List<JournalEntryEntity> getEntriesWithPhotos();
 
+    /**
+     * Get entries with photos - LiveData version for the photo gallery
+     * @return LiveData list of entries that have photos attached
+     */
+    @Query("SELECT * FROM journal_entries WHERE photoPath IS NOT NULL AND photoPath != '' AND deletedAt IS NULL ORDER BY timestamp DESC")
+    LiveData<List<JournalEntryEntity>> getEntriesWithPhotosLive();
+
     /**
      * Get entries with voice memos
      * @return List of entries that have voice memos attached
      */
-    @Query("SELECT * FROM journal_entries WHERE voiceMemoPath IS NOT NULL AND voiceMemoPath != '' ORDER BY timestamp DESC")
+    @Query("SELECT * FROM journal_entries WHERE voiceMemoPath IS NOT NULL AND voiceMemoPath != '' AND deletedAt IS NULL ORDER BY timestamp DESC")
     List<JournalEntryEntity> getEntriesWithVoiceMemos();
 
+    /**
+     * Get entries with voice memos - LiveData version for the voice memo list
+     * @return LiveData list of entries that have voice memos attached
+     */
+    @Query("SELECT * FROM journal_entries WHERE voiceMemoPath IS NOT NULL AND voiceMemoPath != '' AND deletedAt IS NULL ORDER BY timestamp DESC")
+    LiveData<List<JournalEntryEntity>> getEntriesWithVoiceMemosLive();
+
     /**
      * Get entries by mood level
      * @param moodLevel The mood level (1-5)
      * @return List of entries with that mood level
      */
-    @Query("SELECT * FROM journal_entries WHERE moodLevel = :moodLevel ORDER BY timestamp DESC")
+    @Query("SELECT * FROM journal_entries WHERE moodLevel = :moodLevel AND deletedAt IS NULL ORDER BY timestamp DESC")
     List<JournalEntryEntity> getEntriesByMoodLevel(int moodLevel);
 
     /**
@@ -236,6 +459,63 @@ public interface JournalEntryDao {
      * @param moodLevels List of mood levels to filter by
      * @return List of entries with any of the specified mood levels
      */
-    @Query("SELECT * FROM journal_entries WHERE moodLevel IN (:moodLevels) ORDER BY timestamp DESC")
+    @Query("SELECT * FROM journal_entries WHERE moodLevel IN (:moodLevels) AND deletedAt IS NULL ORDER BY timestamp DESC")
     List<JournalEntryEntity> getEntriesByMoodLevels(List<Integer> moodLevels);
+
+    /**
+     * Get entries carrying a tag and all default tags of two masks (see TagVocabulary).
+     * The tag is found through the entry_tags index; bitwise tests cannot use an index,
+     * so the masks are residual predicates, checked on the tagged entries only.
+     * @param category Category of the tag (see TagEntity)
+     * @param name Name of the tag (case-insensitive)
+     * @param emotionMask Required TagVocabulary.EMOTIONS bits, 0 for none
+     * @param sleepMask Required TagVocabulary.SLEEP bits, 0 for none
+     * @return List of matching entries, newest first
+     */
+    @Query("SELECT e.* FROM journal_entries e " +
+           "INNER JOIN entry_tags et ON et.entryId = e.id " +
+           "INNER JOIN tags t ON t.id = et.tagId " +
+           "WHERE t.category = :category AND t.name = :name " +
+           "AND (e.emotionMask & :emotionMask) = :emotionMask AND (e.sleepMask & :sleepMask) = :sleepMask " +
+           "AND e.deletedAt IS NULL ORDER BY e.timestamp DESC")
+    List<JournalEntryEntity> getEntriesWithTagAndMasks(String category, String name, long emotionMask, long sleepMask);
+
+    /**
+     * Count entries in a date range carrying all default tags of two masks
+     * @param emotionMask Required TagVocabulary.EMOTIONS bits, 0 for none
+     * @param sleepMask Required TagVocabulary.SLEEP bits, 0 for none
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return Number of matching entries
+     */
+    @Query("SELECT COUNT(*) FROM journal_entries WHERE (emotionMask & :emotionMask) = :emotionMask " +
+           "AND (sleepMask & :sleepMask) = :sleepMask " +
+           "AND timestamp >= :startTime AND timestamp <= :endTime AND deletedAt IS NULL")
+    int countEntriesWithMasksInRange(long emotionMask, long sleepMask, long startTime, long endTime);
+
+    // ========== Paging Queries ==========
+
+    /**
+     * Get one keyset page of entry summaries
+     * @param query Page query built by EntryFilter.toPageQuery
+     * @return Summaries of the page, newest first
+     */
+    @RawQuery
+    List<EntrySummary> getSummaryPage(SupportSQLiteQuery query);
+
+    /**
+     * Count entries matching a filter
+     * @param query Count query built by EntryFilter.toCountQuery
+     * @return Number of matching entries
+     */
+    @RawQuery
+    int countEntries(SupportSQLiteQuery query);
+
+    /**
+     * Open a cursor over entries, for streaming whole-journal passes
+     * @param query Stream query built by EntryCursor.buildQuery
+     * @return Cursor the caller must close
+     */
+    @RawQuery
+    Cursor streamEntries(SupportSQLiteQuery query);
 }
@@ -0,0 +1,129 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.EntryTagEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.TagEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.TagCount;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the tag dictionary and the entry_tags junction table.
+ * Keeps the normalized tag index in sync with the tag lists stored on each entry.
+ */
+@Dao
+public interface TagDao {
+
+    /**
+     * Insert a tag if it does not exist yet
+     * @param tag The tag to insert
+     * @return The row ID of the new tag, or -1 if it already existed
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertTag(TagEntity tag);
+
+    /**
+     * Get the ID of a tag
+     * @param category The tag category
+     * @param name The tag name (case-insensitive)
+     * @return The tag ID, or null if the tag does not exist
+     */
+    @Query("SELECT id FROM tags WHERE category = :category AND name = :name")
+    Long getTagId(String category, String name);
+
+    /**
+     * Link an entry to tags, ignoring links that already exist
+     * @param entryTags The links to insert
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertEntryTags(List<EntryTagEntity> entryTags);
+
+    /**
+     * Remove all tag links of an entry
+     * @param entryId The ID of the entry
+     */
+    @Query("DELETE FROM entry_tags WHERE entryId = :entryId")
+    void deleteTagsForEntry(long entryId);
+
+    /**
+     * Get the tag links of entries, e.g. to move them into the archive with the entries
+     * @param entryIds The IDs of the entries
+     * @return The links of those entries
+     */
+    @Query("SELECT * FROM entry_tags WHERE entryId IN (:entryIds)")
+    List<EntryTagEntity> getEntryTags(List<Long> entryIds);
+
+    /**
+     * Get entries tagged with a specific tag
+     * @param category The tag category
+     * @param name The tag name (case-insensitive)
+     * @return List of tagged entries, newest first
+     */
+    @Query("SELECT e.* FROM journal_entries e " +
+           "INNER JOIN entry_tags et ON et.entryId = e.id " +
+           "INNER JOIN tags t ON t.id = et.tagId " +
+           "WHERE t.category = :category AND t.name = :name AND e.deletedAt IS NULL " +
+           "ORDER BY e.timestamp DESC")
+    List<JournalEntryEntity> getEntriesWithTag(String category, String name);
+
+    /**
+     * Get how often each tag of a category was used in a date range
+     * @param category The tag category
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @param limit Maximum number of tags to return
+     * @return Tags ordered by usage, most used first
+     */
+    @Query("SELECT t.name AS name, COUNT(*) AS count FROM journal_entries e " +
+           "INNER JOIN entry_tags et ON et.entryId = e.id " +
+           "INNER JOIN tags t ON t.id = et.tagId " +
+           "WHERE t.category = :category AND e.timestamp >= :startTime AND e.timestamp <= :endTime " +
+           "AND e.deletedAt IS NULL " +
+           "GROUP BY t.id ORDER BY count DESC, t.name ASC LIMIT :limit")
+    List<TagCount> getTagFrequencies(String category, long startTime, long endTime, int limit);
+
+    /**
+     * Replace the tag links of an entry with its current emotions, sleep tags and activities
+     * @param entryId The ID of the entry
+     * @param entry The entry holding the tag lists
+     */
+    @Transaction
+    default void replaceTagsForEntry(long entryId, JournalEntryEntity entry) {
+        deleteTagsForEntry(entryId);
+        insertTagsForEntry(entryId, TagEntity.CATEGORY_EMOTION, entry.getEmotions());
+        insertTagsForEntry(entryId, TagEntity.CATEGORY_SLEEP, entry.getSleepTags());
+        insertTagsForEntry(entryId, TagEntity.CATEGORY_ACTIVITY, entry.getActivities());
+    }
+
+    /**
+     * Link an entry to the given tags, creating dictionary rows as needed
+     * @param entryId The ID of the entry
+     * @param category The tag category
+     * @param names The tag names
+     */
+    default void insertTagsForEntry(long entryId, String category, List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return;
+        }
+        List<EntryTagEntity> links = new ArrayList<>(names.size());
+        for (String rawName : names) {
+            if (rawName == null || rawName.trim().isEmpty()) {
+                continue;
+            }
+            String name = rawName.trim();
+            long tagId = insertTag(new TagEntity(category, name));
+            if (tagId == -1) {
+                tagId = getTagId(category, name);
+            }
+            links.add(new EntryTagEntity(entryId, tagId));
+        }
+        insertEntryTags(links);
+    }
+}
@@ -0,0 +1,224 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.database;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-wide executors for database work, split into priority lanes:
+ * interactive reads, a single serial writer, and low-priority background jobs
+ * (backup, restore, rebuilds). Room uses the read lane for its queries and
+ * LiveData refreshes and the write lane for its transactions.
+ * Singleton pattern, so screens share threads instead of each creating a pool.
+ */
+public final class DatabaseScheduler {
+
+    private static final String TAG = "DatabaseScheduler";
+
+    // Tasks that waited longer than this in a queue are logged
+    private static final long SLOW_WAIT_MS = 250;
+
+    private static final int READ_THREADS = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Priority lanes, from most to least latency-sensitive.
+     */
+    public enum Lane {
+        READ("db-read", Process.THREAD_PRIORITY_DEFAULT, READ_THREADS),
+        WRITE("db-write", Process.THREAD_PRIORITY_DEFAULT, 1),
+        BACKGROUND("db-background", Process.THREAD_PRIORITY_BACKGROUND, 1);
+
+        final String threadName;
+        final int threadPriority;
+        final int threads;
+
+        Lane(String threadName, int threadPriority, int threads) {
+            this.threadName = threadName;
+            this.threadPriority = threadPriority;
+            this.threads = threads;
+        }
+    }
+
+    private static volatile DatabaseScheduler INSTANCE;
+
+    private final LaneExecutor readExecutor = new LaneExecutor(Lane.READ);
+    private final LaneExecutor writeExecutor = new LaneExecutor(Lane.WRITE);
+    private final LaneExecutor backgroundExecutor = new LaneExecutor(Lane.BACKGROUND);
+
+    // Completion stages that update views are chained onto this executor
+    private final Executor mainThreadExecutor;
+
+    private DatabaseScheduler() {
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThreadExecutor = mainHandler::post;
+    }
+
+    /**
+     * Get the singleton instance of the scheduler.
+     * Uses double-checked locking for thread safety.
+     * @return The scheduler instance
+     */
+    public static DatabaseScheduler getInstance() {
+        if (INSTANCE == null) {
+            synchronized (DatabaseScheduler.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new DatabaseScheduler();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @return Executor for reads a screen is waiting on
+     */
+    public Executor read() {
+        return readExecutor;
+    }
+
+    /**
+     * @return Serial executor for writes; tasks run one at a time in submission order
+     */
+    public Executor write() {
+        return writeExecutor;
+    }
+
+    /**
+     * @return Low-priority serial executor for bulk jobs that no screen is waiting on
+     */
+    public Executor background() {
+        return backgroundExecutor;
+    }
+
+    /**
+     * @return Executor that posts tasks to the main thread, for completion stages that touch views
+     */
+    public Executor mainThread() {
+        return mainThreadExecutor;
+    }
+
+    /**
+     * Get a snapshot of the queue metrics of every lane.
+     * @return One entry per lane, in lane order
+     */
+    public List<LaneMetrics> getMetrics() {
+        List<LaneMetrics> metrics = new ArrayList<>(3);
+        metrics.add(readExecutor.snapshot());
+        metrics.add(writeExecutor.snapshot());
+        metrics.add(backgroundExecutor.snapshot());
+        return metrics;
+    }
+
+    /**
+     * Point-in-time queue metrics of one lane.
+     */
+    public static final class LaneMetrics {
+        public final Lane lane;
+        // Tasks waiting in the queue
+        public final int queueDepth;
+        // Tasks currently running
+        public final int active;
+        public final long completed;
+        public final long averageWaitMs;
+        public final long maxWaitMs;
+
+        LaneMetrics(Lane lane, int queueDepth, int active, long completed, long averageWaitMs, long maxWaitMs) {
+            this.lane = lane;
+            this.queueDepth = queueDepth;
+            this.active = active;
+            this.completed = completed;
+            this.averageWaitMs = averageWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: queued=%d active=%d completed=%d avgWait=%dms maxWait=%dms",
+                    lane, queueDepth, active, completed, averageWaitMs, maxWaitMs);
+        }
+    }
+
+    /**
+     * Thread pool of one lane that records how long tasks wait before running.
+     */
+    private static final class LaneExecutor implements Executor {
+
+        private final Lane lane;
+        private final ThreadPoolExecutor pool;
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        LaneExecutor(Lane lane) {
+            this.lane = lane;
+            this.pool = new ThreadPoolExecutor(lane.threads, lane.threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new LaneThreadFactory(lane));
+            this.pool.allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(@NonNull Runnable task) {
+            long enqueued = System.nanoTime();
+            pool.execute(() -> {
+                long wait = System.nanoTime() - enqueued;
+                totalWaitNanos.addAndGet(wait);
+                maxWaitNanos.accumulateAndGet(wait, Math::max);
+                if (TimeUnit.NANOSECONDS.toMillis(wait) > SLOW_WAIT_MS) {
+                    Log.w(TAG, lane + " task waited " + TimeUnit.NANOSECONDS.toMillis(wait) + "ms, "
+                            + pool.getQueue().size() + " still queued");
+                }
+                try {
+                    task.run();
+                } finally {
+                    completed.incrementAndGet();
+                }
+            });
+        }
+
+        LaneMetrics snapshot() {
+            long done = completed.get();
+            long averageWait = done > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / done) : 0;
+            return new LaneMetrics(lane, pool.getQueue().size(), pool.getActiveCount(), done,
+                    averageWait, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        }
+    }
+
+    /**
+     * Names lane threads and applies the lane's thread priority.
+     */
+    private static final class LaneThreadFactory implements ThreadFactory {
+
+        private final Lane lane;
+        private final AtomicInteger count = new AtomicInteger();
+
+        LaneThreadFactory(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(lane.threadPriority);
+                runnable.run();
+            }, lane.threadName + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -8,17 +8,29 @@ import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
 
 import gui.ceng.mu.edu.mentalhealthjournal.data.converter.StringListConverter;
+import gui.ceng.mu.edu.mentalhealthjournal.data.dao.DailySummaryDao;
 import gui.ceng.mu.edu.mentalhealthjournal.data.dao.JournalEntryDao;
+import gui.ceng.mu.edu.mentalhealthjournal.data.dao.TagDao;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.DailySummaryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.EntryTagEntity;
 import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryFts;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.TagEntity;
 
 /**
  * Room Database class for the Mental Health Journal app.
  * Singleton pattern to ensure only one instance of the database exists.
  */
 @Database(
-    entities = {JournalEntryEntity.class},
-    version = 1,
-    exportSchema = false
+    entities = {
+        JournalEntryEntity.class,
+        JournalEntryFts.class,
+        TagEntity.class,
+        EntryTagEntity.class,
+        DailySummaryEntity.class
+    },
+    version = 9,
+    exportSchema = true
 )
 @TypeConverters(StringListConverter.class)
 public abstract class JournalDatabase extends RoomDatabase {
@@ -32,6 +44,18 @@ public abstract class JournalDatabase extends RoomDatabase {
      */
     public abstract JournalEntryDao journalEntryDao();
 
+    /**
+     * Get the TagDao
+     * @return The DAO for the tag dictionary and entry tags
+     */
+    public abstract TagDao tagDao();
+
+    /**
+     * Get the DailySummaryDao
+     * @return The DAO for the per-day rollup table
+     */
+    public abstract DailySummaryDao dailySummaryDao();
+
     /**
      * Get the singleton instance of the database.
      * Uses double-checked locking for thread safety.
@@ -48,7 +72,9 @@ public abstract class JournalDatabase extends RoomDatabase {
                             JournalDatabase.class,
                             DATABASE_NAME
                     )
-                    .fallbackToDestructiveMigration()
+                    .addMigrations(Migrations.ALL)
+                    .setQueryExecutor(DatabaseScheduler.getInstance().read())
+                    .setTransactionExecutor(DatabaseScheduler.getInstance().write())
                     .build();
                 }
             }
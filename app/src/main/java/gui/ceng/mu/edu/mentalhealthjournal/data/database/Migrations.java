@@ -0,0 +1,318 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.converter.StringListConverter;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.TagEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.TagVocabulary;
+import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
+
+/**
+ * Schema migrations for {@link JournalDatabase}.
+ * Every version bump must add a migration here and register it in {@link #ALL};
+ * user data is never dropped on upgrade.
+ */
+public final class Migrations {
+
+    // Prevent instantiation
+    private Migrations() {}
+
+    /**
+     * Version 1 -> 2: index the columns used by range, mood and media filters.
+     */
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_journal_entries_timestamp` "
+                    + "ON `journal_entries` (`timestamp`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_journal_entries_moodLevel_timestamp` "
+                    + "ON `journal_entries` (`moodLevel`, `timestamp`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_journal_entries_photoPath` "
+                    + "ON `journal_entries` (`photoPath`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_journal_entries_voiceMemoPath` "
+                    + "ON `journal_entries` (`voiceMemoPath`)");
+        }
+    };
+
+    /**
+     * Version 2 -> 3: add the tag dictionary and entry_tags junction table,
+     * then index the tags already stored on existing entries.
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `tags` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`category` TEXT NOT NULL, `name` TEXT NOT NULL COLLATE NOCASE)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_tags_category_name` "
+                    + "ON `tags` (`category`, `name`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `entry_tags` ("
+                    + "`entryId` INTEGER NOT NULL, `tagId` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`entryId`, `tagId`), "
+                    + "FOREIGN KEY(`entryId`) REFERENCES `journal_entries`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`tagId`) REFERENCES `tags`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_entry_tags_tagId_entryId` "
+                    + "ON `entry_tags` (`tagId`, `entryId`)");
+
+            try (Cursor cursor = db.query("SELECT id, emotions, sleepTags, activities FROM journal_entries")) {
+                while (cursor.moveToNext()) {
+                    long entryId = cursor.getLong(0);
+                    backfillTags(db, entryId, TagEntity.CATEGORY_EMOTION, cursor.getString(1));
+                    backfillTags(db, entryId, TagEntity.CATEGORY_SLEEP, cursor.getString(2));
+                    backfillTags(db, entryId, TagEntity.CATEGORY_ACTIVITY, cursor.getString(3));
+                }
+            }
+        }
+    };
+
+    /**
+     * Link an existing entry to the tags in one of its stored tag columns.
+     */
+    private static void backfillTags(SupportSQLiteDatabase db, long entryId, String category, String data) {
+        for (String rawName : splitLegacy(data)) {
+            if (rawName == null || rawName.trim().isEmpty()) {
+                continue;
+            }
+            String name = rawName.trim();
+            db.execSQL("INSERT OR IGNORE INTO tags (category, name) VALUES (?, ?)",
+                    new Object[]{category, name});
+            db.execSQL("INSERT OR IGNORE INTO entry_tags (entryId, tagId) "
+                    + "SELECT ?, id FROM tags WHERE category = ? AND name = ?",
+                    new Object[]{entryId, category, name});
+        }
+    }
+
+    /**
+     * Version 3 -> 4: add the external-content FTS4 index over note, emotions and
+     * activities, the triggers Room uses to keep it in sync, and index existing rows.
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `journal_entries_fts` USING FTS4("
+                    + "`note` TEXT, `emotions` TEXT, `activities` TEXT, "
+                    + "tokenize=unicode61, content=`journal_entries`, prefix=`2,3`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_journal_entries_fts_BEFORE_UPDATE "
+                    + "BEFORE UPDATE ON `journal_entries` BEGIN "
+                    + "DELETE FROM `journal_entries_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_journal_entries_fts_BEFORE_DELETE "
+                    + "BEFORE DELETE ON `journal_entries` BEGIN "
+                    + "DELETE FROM `journal_entries_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_journal_entries_fts_AFTER_UPDATE "
+                    + "AFTER UPDATE ON `journal_entries` BEGIN "
+                    + "INSERT INTO `journal_entries_fts`(`docid`, `note`, `emotions`, `activities`) "
+                    + "VALUES (NEW.`rowid`, NEW.`note`, NEW.`emotions`, NEW.`activities`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_journal_entries_fts_AFTER_INSERT "
+                    + "AFTER INSERT ON `journal_entries` BEGIN "
+                    + "INSERT INTO `journal_entries_fts`(`docid`, `note`, `emotions`, `activities`) "
+                    + "VALUES (NEW.`rowid`, NEW.`note`, NEW.`emotions`, NEW.`activities`); END");
+            db.execSQL("INSERT INTO `journal_entries_fts`(`journal_entries_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * Version 4 -> 5: add the daily_summary rollup table and fill it from existing entries.
+     * Days are bucketed in the device time zone, like {@code DailySummaryDao}.
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `daily_summary` ("
+                    + "`epochDay` INTEGER NOT NULL, `entryCount` INTEGER NOT NULL, "
+                    + "`moodSum` INTEGER NOT NULL, `minMood` INTEGER NOT NULL, `maxMood` INTEGER NOT NULL, "
+                    + "`firstMood` INTEGER NOT NULL, `lastMood` INTEGER NOT NULL, "
+                    + "`photoCount` INTEGER NOT NULL, `voiceCount` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`epochDay`))");
+
+            TreeSet<Long> days = new TreeSet<>();
+            try (Cursor cursor = db.query("SELECT timestamp FROM journal_entries")) {
+                while (cursor.moveToNext()) {
+                    days.add(DateUtils.getEpochDay(cursor.getLong(0)));
+                }
+            }
+            for (long epochDay : days) {
+                long start = DateUtils.getStartOfEpochDay(epochDay);
+                long end = DateUtils.getEndOfEpochDay(epochDay);
+                db.execSQL("INSERT INTO daily_summary SELECT ?, COUNT(*), SUM(moodLevel), MIN(moodLevel), MAX(moodLevel), "
+                        + "(SELECT moodLevel FROM journal_entries WHERE timestamp >= ? AND timestamp <= ? "
+                        + "ORDER BY timestamp ASC, id ASC LIMIT 1), "
+                        + "(SELECT moodLevel FROM journal_entries WHERE timestamp >= ? AND timestamp <= ? "
+                        + "ORDER BY timestamp DESC, id DESC LIMIT 1), "
+                        + "SUM(CASE WHEN photoPath IS NOT NULL AND photoPath != '' THEN 1 ELSE 0 END), "
+                        + "SUM(CASE WHEN voiceMemoPath IS NOT NULL AND voiceMemoPath != '' THEN 1 ELSE 0 END) "
+                        + "FROM journal_entries WHERE timestamp >= ? AND timestamp <= ?",
+                        new Object[]{epochDay, start, end, start, end, start, end});
+            }
+        }
+    };
+
+    /**
+     * Version 5 -> 6: tombstone column for soft deletes, indexed for compaction.
+     * Existing entries are live, so the column starts out NULL.
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `journal_entries` ADD COLUMN `deletedAt` INTEGER");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_journal_entries_deletedAt` "
+                    + "ON `journal_entries` (`deletedAt`)");
+        }
+    };
+
+    /**
+     * Version 6 -> 7: local epoch day of every entry, indexed with the timestamp so
+     * day lookups and per-day aggregates no longer convert timestamps row by row.
+     * Days are bucketed in the device time zone, like {@code JournalEntryDao#recomputeEpochDays}.
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `journal_entries` ADD COLUMN `epochDay` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_journal_entries_epochDay_timestamp` "
+                    + "ON `journal_entries` (`epochDay`, `timestamp`)");
+
+            // One range update per day that has entries, walking the timestamp index
+            long after = Long.MIN_VALUE;
+            while (true) {
+                long timestamp;
+                try (Cursor cursor = db.query("SELECT MIN(timestamp) FROM journal_entries WHERE timestamp > ?",
+                        new Object[]{after})) {
+                    if (!cursor.moveToFirst() || cursor.isNull(0)) {
+                        break;
+                    }
+                    timestamp = cursor.getLong(0);
+                }
+                long epochDay = DateUtils.getEpochDay(timestamp);
+                after = DateUtils.getEndOfEpochDay(epochDay);
+                db.execSQL("UPDATE journal_entries SET epochDay = ? WHERE timestamp >= ? AND timestamp <= ?",
+                        new Object[]{epochDay, DateUtils.getStartOfEpochDay(epochDay), after});
+            }
+        }
+    };
+
+    /**
+     * Version 7 -> 8: default emotions and sleep tags as {@link TagVocabulary} bitmasks.
+     * The sleepTags column keeps only custom sleep tags from now on; emotions stay
+     * complete as text because the full-text index reads that column. Uses its own
+     * copy of the version 8 vocabularies, as a migration must not follow later changes.
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `journal_entries` ADD COLUMN `emotionMask` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `journal_entries` ADD COLUMN `sleepMask` INTEGER NOT NULL DEFAULT 0");
+
+            // Read everything first, so the updates never touch rows under an open cursor
+            List<Object[]> updates = new ArrayList<>();
+            try (Cursor cursor = db.query("SELECT id, emotions, sleepTags FROM journal_entries "
+                    + "WHERE emotions IS NOT NULL OR sleepTags IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    List<String> emotions = splitLegacy(cursor.getString(1));
+                    List<String> sleepTags = splitLegacy(cursor.getString(2));
+                    updates.add(new Object[]{
+                            maskOfV8(EMOTIONS_V8, emotions),
+                            maskOfV8(SLEEP_V8, sleepTags),
+                            joinLegacy(customTagsOfV8(SLEEP_V8, sleepTags)),
+                            cursor.getLong(0)});
+                }
+            }
+            for (Object[] args : updates) {
+                db.execSQL("UPDATE journal_entries SET emotionMask = ?, sleepMask = ?, sleepTags = ? WHERE id = ?",
+                        args);
+            }
+        }
+    };
+
+    /**
+     * Version 8 -> 9: escape backslashes in the tag list columns, as
+     * {@link StringListConverter} reads them as escapes from now on. Tags could not
+     * contain commas before, since lists were split on every comma.
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            for (String column : new String[]{"emotions", "sleepTags", "activities"}) {
+                db.execSQL("UPDATE `journal_entries` SET `" + column + "` = "
+                        + "REPLACE(`" + column + "`, '\\', '\\\\') WHERE INSTR(`" + column + "`, '\\') > 0");
+            }
+        }
+    };
+
+    // Default emotions and sleep tags in mask bit order as of version 8
+    private static final List<String> EMOTIONS_V8 = Arrays.asList(
+            "happy", "excited", "grateful", "relaxed", "content",
+            "tired", "unsure", "bored", "anxious", "angry",
+            "stressed", "sad", "desperate");
+    private static final List<String> SLEEP_V8 = Arrays.asList(
+            "good sleep", "medium sleep", "bad sleep", "sleep early");
+
+    /**
+     * Encode the tags of a version 8 vocabulary as a mask, ignoring other tags
+     */
+    private static long maskOfV8(List<String> vocabulary, List<String> tags) {
+        long mask = 0;
+        for (String tag : tags) {
+            int bit = vocabulary.indexOf(tag);
+            if (bit >= 0) {
+                mask |= 1L << bit;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Get the tags outside a version 8 vocabulary, in order
+     */
+    private static List<String> customTagsOfV8(List<String> vocabulary, List<String> tags) {
+        List<String> custom = new ArrayList<>();
+        for (String tag : tags) {
+            if (!vocabulary.contains(tag)) {
+                custom.add(tag);
+            }
+        }
+        return custom;
+    }
+
+    /**
+     * Split a tag list column as stored before version 9, without escapes
+     */
+    private static List<String> splitLegacy(String data) {
+        if (data == null || data.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(data.split(","));
+    }
+
+    /**
+     * Join a tag list as stored before version 9, without escapes
+     */
+    private static String joinLegacy(List<String> tags) {
+        return tags.isEmpty() ? null : String.join(",", tags);
+    }
+
+    /**
+     * All migrations in version order, for {@code Room.databaseBuilder#addMigrations}.
+     */
+    public static final Migration[] ALL = {
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8,
+            MIGRATION_8_9
+    };
+}
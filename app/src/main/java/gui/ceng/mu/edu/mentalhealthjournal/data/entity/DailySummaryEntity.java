@@ -0,0 +1,119 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.entity;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Entity class holding the rolled-up entries of one local day.
+ * Maintained by {@code DailySummaryDao} in the same transaction as every entry write,
+ * so calendar and statistics views read one row per day instead of every entry.
+ * Days without entries have no row.
+ */
+@Entity(tableName = "daily_summary")
+public class DailySummaryEntity {
+
+    // Local epoch day (days since 1970-01-01 in the device time zone)
+    @PrimaryKey
+    private long epochDay;
+
+    // Number of entries on this day
+    private int entryCount;
+
+    // Sum of mood levels, for averages over any range of days
+    private int moodSum;
+
+    private int minMood;
+
+    private int maxMood;
+
+    // Mood of the earliest entry of the day
+    private int firstMood;
+
+    // Mood of the latest entry of the day
+    private int lastMood;
+
+    // Number of entries with a photo
+    private int photoCount;
+
+    // Number of entries with a voice memo
+    private int voiceCount;
+
+    public long getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(long epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(int entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public int getMoodSum() {
+        return moodSum;
+    }
+
+    public void setMoodSum(int moodSum) {
+        this.moodSum = moodSum;
+    }
+
+    public int getMinMood() {
+        return minMood;
+    }
+
+    public void setMinMood(int minMood) {
+        this.minMood = minMood;
+    }
+
+    public int getMaxMood() {
+        return maxMood;
+    }
+
+    public void setMaxMood(int maxMood) {
+        this.maxMood = maxMood;
+    }
+
+    public int getFirstMood() {
+        return firstMood;
+    }
+
+    public void setFirstMood(int firstMood) {
+        this.firstMood = firstMood;
+    }
+
+    public int getLastMood() {
+        return lastMood;
+    }
+
+    public void setLastMood(int lastMood) {
+        this.lastMood = lastMood;
+    }
+
+    public int getPhotoCount() {
+        return photoCount;
+    }
+
+    public void setPhotoCount(int photoCount) {
+        this.photoCount = photoCount;
+    }
+
+    public int getVoiceCount() {
+        return voiceCount;
+    }
+
+    public void setVoiceCount(int voiceCount) {
+        this.voiceCount = voiceCount;
+    }
+
+    /**
+     * Helper method to get the average mood of the day
+     */
+    public float getAverageMood() {
+        return entryCount > 0 ? (float) moodSum / entryCount : 0f;
+    }
+}
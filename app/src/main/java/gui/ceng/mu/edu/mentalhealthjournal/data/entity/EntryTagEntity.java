@@ -0,0 +1,58 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.entity;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * Junction entity linking journal entries to tags.
+ * Rows are removed automatically when either the entry or the tag is deleted.
+ */
+@Entity(
+    tableName = "entry_tags",
+    primaryKeys = {"entryId", "tagId"},
+    foreignKeys = {
+        @ForeignKey(
+            entity = JournalEntryEntity.class,
+            parentColumns = "id",
+            childColumns = "entryId",
+            onDelete = ForeignKey.CASCADE
+        ),
+        @ForeignKey(
+            entity = TagEntity.class,
+            parentColumns = "id",
+            childColumns = "tagId",
+            onDelete = ForeignKey.CASCADE
+        )
+    },
+    indices = {
+        @Index(value = {"tagId", "entryId"})
+    }
+)
+public class EntryTagEntity {
+
+    private long entryId;
+
+    private long tagId;
+
+    public EntryTagEntity(long entryId, long tagId) {
+        this.entryId = entryId;
+        this.tagId = tagId;
+    }
+
+    public long getEntryId() {
+        return entryId;
+    }
+
+    public void setEntryId(long entryId) {
+        this.entryId = entryId;
+    }
+
+    public long getTagId() {
+        return tagId;
+    }
+
+    public void setTagId(long tagId) {
+        this.tagId = tagId;
+    }
+}
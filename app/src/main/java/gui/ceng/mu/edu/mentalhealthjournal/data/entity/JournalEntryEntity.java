@@ -1,19 +1,36 @@
 package gui.ceng.mu.edu.mentalhealthjournal.data.entity;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters;
 
 import gui.ceng.mu.edu.mentalhealthjournal.data.converter.StringListConverter;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.TagVocabulary;
 import gui.ceng.mu.edu.mentalhealthjournal.util.MoodUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Entity class representing a journal entry in the database.
  * Stores mood, activities, emotions, sleep quality, notes, and media attachments.
+ *
+ * Indices back the range, mood and media filters in {@code JournalEntryDao};
+ * any change here needs a matching migration in {@code Migrations}.
  */
-@Entity(tableName = "journal_entries")
+@Entity(
+    tableName = "journal_entries",
+    indices = {
+        @Index(value = {"timestamp"}),
+        @Index(value = {"moodLevel", "timestamp"}),
+        @Index(value = {"photoPath"}),
+        @Index(value = {"voiceMemoPath"}),
+        @Index(value = {"deletedAt"}),
+        @Index(value = {"epochDay", "timestamp"})
+    }
+)
 @TypeConverters(StringListConverter.class)
 public class JournalEntryEntity {
 
@@ -23,14 +40,29 @@ public class JournalEntryEntity {
     // Timestamp when the entry was created (milliseconds since epoch)
     private long timestamp;
 
+    // Local calendar day of the timestamp (days since 1970-01-01 in the device time zone);
+    // stamped on write by JournalRepository and recomputed when the time zone changes
+    @ColumnInfo(defaultValue = "0")
+    private long epochDay;
+
     // Mood level: 1 = Very Bad, 2 = Bad, 3 = Normal, 4 = Good, 5 = Very Good
     private int moodLevel;
 
-    // List of selected emotion names (e.g., "happy", "excited", "anxious")
+    // List of selected emotion names (e.g., "happy", "excited", "anxious");
+    // kept complete as text because the full-text index reads this column
     private List<String> emotions;
 
-    // List of selected sleep tags (e.g., "good sleep", "bad sleep")
-    private List<String> sleepTags;
+    // Default emotions as TagVocabulary.EMOTIONS bits, stamped on write for bitwise filters
+    @ColumnInfo(defaultValue = "0")
+    private long emotionMask;
+
+    // Default sleep tags as TagVocabulary.SLEEP bits
+    @ColumnInfo(defaultValue = "0")
+    private long sleepMask;
+
+    // Sleep tags outside the default vocabulary; the column keeps its old name
+    @ColumnInfo(name = "sleepTags")
+    private List<String> customSleepTags;
 
     // List of selected activity names (e.g., "exercise", "reading")
     private List<String> activities;
@@ -44,6 +76,10 @@ public class JournalEntryEntity {
     // Voice memo file path (if any)
     private String voiceMemoPath;
 
+    // Soft-delete time in milliseconds, or null for a live entry;
+    // tombstoned entries are purged by JournalCompactor after a retention window
+    private Long deletedAt;
+
     // Constructors
     public JournalEntryEntity() {
     }
@@ -70,6 +106,14 @@ public class JournalEntryEntity {
         this.timestamp = timestamp;
     }
 
+    public long getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(long epochDay) {
+        this.epochDay = epochDay;
+    }
+
     public int getMoodLevel() {
         return moodLevel;
     }
@@ -86,12 +130,52 @@ public class JournalEntryEntity {
         this.emotions = emotions;
     }
 
+    public long getEmotionMask() {
+        return emotionMask;
+    }
+
+    public void setEmotionMask(long emotionMask) {
+        this.emotionMask = emotionMask;
+    }
+
+    /**
+     * Get the sleep tags, decoded from the mask and the custom tags.
+     * The mask does not keep the order tags were set in: default tags come first in
+     * vocabulary order, then custom tags in the order they were set. This is deliberate:
+     * the sleep picker, the tag index and backups treat them as a set, and the entry
+     * view shows them in this stable order.
+     * @return Immutable list of sleep tags, or null if none were ever set
+     */
     public List<String> getSleepTags() {
-        return sleepTags;
+        if (sleepMask == 0 && customSleepTags == null) {
+            return null;
+        }
+        return TagVocabulary.SLEEP.decode(sleepMask, customSleepTags);
     }
 
+    /**
+     * Set the sleep tags, encoding default ones into the mask
+     * @param sleepTags The sleep tags, may be null
+     */
     public void setSleepTags(List<String> sleepTags) {
-        this.sleepTags = sleepTags;
+        sleepMask = TagVocabulary.SLEEP.maskOf(sleepTags);
+        customSleepTags = sleepTags != null ? TagVocabulary.SLEEP.customTagsOf(sleepTags) : null;
+    }
+
+    public long getSleepMask() {
+        return sleepMask;
+    }
+
+    public void setSleepMask(long sleepMask) {
+        this.sleepMask = sleepMask;
+    }
+
+    public List<String> getCustomSleepTags() {
+        return customSleepTags;
+    }
+
+    public void setCustomSleepTags(List<String> customSleepTags) {
+        this.customSleepTags = customSleepTags;
     }
 
     public List<String> getActivities() {
@@ -126,6 +210,35 @@ public class JournalEntryEntity {
         this.voiceMemoPath = voiceMemoPath;
     }
 
+    public Long getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Long deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    /**
+     * Create an independent copy of this entry; the tag lists are copied too,
+     * so changes to the copy never reach the original
+     * @return The copy
+     */
+    public JournalEntryEntity copy() {
+        JournalEntryEntity copy = new JournalEntryEntity(timestamp, moodLevel);
+        copy.id = id;
+        copy.epochDay = epochDay;
+        copy.emotions = emotions != null ? new ArrayList<>(emotions) : null;
+        copy.emotionMask = emotionMask;
+        copy.sleepMask = sleepMask;
+        copy.customSleepTags = customSleepTags != null ? new ArrayList<>(customSleepTags) : null;
+        copy.activities = activities != null ? new ArrayList<>(activities) : null;
+        copy.note = note;
+        copy.photoPath = photoPath;
+        copy.voiceMemoPath = voiceMemoPath;
+        copy.deletedAt = deletedAt;
+        return copy;
+    }
+
     /**
      * Helper method to get mood icon resource based on mood level
      */
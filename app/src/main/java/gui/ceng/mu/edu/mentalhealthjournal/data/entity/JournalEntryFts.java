@@ -0,0 +1,63 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full-text index over the searchable columns of journal_entries.
+ * Uses journal_entries as external content; Room keeps the index in sync
+ * with triggers, so this table is never written directly.
+ */
+@Fts4(contentEntity = JournalEntryEntity.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61, prefix = {2, 3})
+@Entity(tableName = "journal_entries_fts")
+public class JournalEntryFts {
+
+    // Row ID of the matching journal entry
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowId;
+
+    // Quick note text (column order matters, FtsUtils column indices follow it)
+    private String note;
+
+    // Comma-joined emotion names
+    private String emotions;
+
+    // Comma-joined activity names
+    private String activities;
+
+    public long getRowId() {
+        return rowId;
+    }
+
+    public void setRowId(long rowId) {
+        this.rowId = rowId;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+    }
+
+    public String getEmotions() {
+        return emotions;
+    }
+
+    public void setEmotions(String emotions) {
+        this.emotions = emotions;
+    }
+
+    public String getActivities() {
+        return activities;
+    }
+
+    public void setActivities(String activities) {
+        this.activities = activities;
+    }
+}
@@ -0,0 +1,69 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Entity class representing a tag in the tag dictionary.
+ * Each distinct emotion, sleep tag and activity name is stored once per category
+ * and linked to journal entries through {@link EntryTagEntity}.
+ */
+@Entity(
+    tableName = "tags",
+    indices = {
+        @Index(value = {"category", "name"}, unique = true)
+    }
+)
+public class TagEntity {
+
+    // Tag categories (match the ActivityItem categories)
+    public static final String CATEGORY_EMOTION = "emotion";
+    public static final String CATEGORY_SLEEP = "sleep";
+    public static final String CATEGORY_ACTIVITY = "activity";
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    // Tag category: emotion, sleep or activity
+    @NonNull
+    private String category;
+
+    // Tag name as entered by the user, compared case-insensitively
+    @NonNull
+    @ColumnInfo(collate = ColumnInfo.NOCASE)
+    private String name;
+
+    public TagEntity(@NonNull String category, @NonNull String name) {
+        this.category = category;
+        this.name = name;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(@NonNull String category) {
+        this.category = category;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+}
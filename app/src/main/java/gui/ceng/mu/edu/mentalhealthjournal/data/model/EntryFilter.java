@@ -0,0 +1,198 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.model;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import gui.ceng.mu.edu.mentalhealthjournal.util.FtsUtils;
+
+/**
+ * Immutable set of list filters (search text, media, mood levels, date range)
+ * and the SQL for keyset-paginated reads over them.
+ * Pages are ordered by (timestamp, id) descending, which the timestamp index serves
+ * directly because the row ID is part of every index entry.
+ */
+public final class EntryFilter {
+
+    private static final String ENTRIES_TABLE = "journal_entries";
+    private static final String FTS_TABLE = "journal_entries_fts";
+
+    private final String searchText;
+    private final boolean hasPhoto;
+    private final boolean hasVoice;
+    private final Set<Integer> moodLevels;
+    private final long startTime;
+    private final long endTime;
+
+    public EntryFilter(String searchText, boolean hasPhoto, boolean hasVoice,
+                       Set<Integer> moodLevels, long startTime, long endTime) {
+        this.searchText = searchText != null ? searchText.trim() : "";
+        this.hasPhoto = hasPhoto;
+        this.hasVoice = hasVoice;
+        this.moodLevels = moodLevels != null
+                ? Collections.unmodifiableSet(new TreeSet<>(moodLevels))
+                : Collections.emptySet();
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    /**
+     * Filter matching every entry.
+     */
+    public static EntryFilter all() {
+        return new EntryFilter(null, false, false, null, -1, -1);
+    }
+
+    public String getSearchText() {
+        return searchText;
+    }
+
+    public boolean hasPhoto() {
+        return hasPhoto;
+    }
+
+    public boolean hasVoice() {
+        return hasVoice;
+    }
+
+    public Set<Integer> getMoodLevels() {
+        return moodLevels;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public boolean hasDateRange() {
+        return startTime > 0 && endTime > 0;
+    }
+
+    /**
+     * Check whether any user-controlled filter (other than the date range) is set.
+     */
+    public boolean isActive() {
+        return !searchText.isEmpty() || hasPhoto || hasVoice || !moodLevels.isEmpty();
+    }
+
+    /**
+     * Build the query for one page of entries.
+     * @param after Key of the last row of the previous page, or null for the first page
+     * @param limit Page size
+     * @return Query returning {@link EntrySummary} rows
+     */
+    public SupportSQLiteQuery toPageQuery(PageKey after, int limit) {
+        return toPageQuery(after, limit, ENTRIES_TABLE, FTS_TABLE);
+    }
+
+    /**
+     * Build the query for one page of entries of another entries table or view,
+     * such as the union of the journal and its archive.
+     * @param after Key of the last row of the previous page, or null for the first page
+     * @param limit Page size
+     * @param table Table or view with the journal_entries columns
+     * @param ftsTables Full-text indexes covering the rows of that table
+     * @return Query returning {@link EntrySummary} rows
+     */
+    public SupportSQLiteQuery toPageQuery(PageKey after, int limit, String table, String... ftsTables) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(EntrySummary.COLUMNS).append(" FROM ").append(table);
+        appendWhere(sql, args, after, ftsTables);
+        sql.append(" ORDER BY timestamp DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Build the query counting all entries matching this filter.
+     * @return Query returning a single count
+     */
+    public SupportSQLiteQuery toCountQuery() {
+        return toCountQuery(ENTRIES_TABLE, FTS_TABLE);
+    }
+
+    /**
+     * Build the query counting matching entries of another entries table or view.
+     * @param table Table or view with the journal_entries columns
+     * @param ftsTables Full-text indexes covering the rows of that table
+     * @return Query returning a single count
+     */
+    public SupportSQLiteQuery toCountQuery(String table, String... ftsTables) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM ").append(table);
+        appendWhere(sql, args, null, ftsTables);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    private void appendWhere(StringBuilder sql, List<Object> args, PageKey after, String... ftsTables) {
+        List<String> clauses = new ArrayList<>();
+        clauses.add("deletedAt IS NULL");
+        if (hasDateRange()) {
+            clauses.add("timestamp >= ? AND timestamp <= ?");
+            args.add(startTime);
+            args.add(endTime);
+        }
+        if (after != null) {
+            // The leading range term lets SQLite seek the timestamp index
+            clauses.add("timestamp <= ? AND (timestamp < ? OR id < ?)");
+            args.add(after.timestamp);
+            args.add(after.timestamp);
+            args.add(after.id);
+        }
+        if (hasPhoto) {
+            clauses.add("photoPath IS NOT NULL AND photoPath != ''");
+        }
+        if (hasVoice) {
+            clauses.add("voiceMemoPath IS NOT NULL AND voiceMemoPath != ''");
+        }
+        if (!moodLevels.isEmpty()) {
+            StringBuilder in = new StringBuilder("moodLevel IN (");
+            int i = 0;
+            for (Integer level : moodLevels) {
+                in.append(i++ == 0 ? "?" : ", ?");
+                args.add(level);
+            }
+            clauses.add(in.append(')').toString());
+        }
+        if (!searchText.isEmpty()) {
+            String matchQuery = FtsUtils.buildPrefixQuery(searchText);
+            if (matchQuery != null) {
+                StringBuilder in = new StringBuilder("id IN (");
+                for (int i = 0; i < ftsTables.length; i++) {
+                    in.append(i == 0 ? "" : " UNION ALL ")
+                            .append("SELECT rowid FROM ").append(ftsTables[i])
+                            .append(" WHERE journal_entries_fts MATCH ?");
+                    args.add(matchQuery);
+                }
+                clauses.add(in.append(')').toString());
+            } else {
+                // Search text without any searchable word matches nothing
+                clauses.add("0");
+            }
+        }
+        for (int i = 0; i < clauses.size(); i++) {
+            sql.append(i == 0 ? " WHERE " : " AND ").append(clauses.get(i));
+        }
+    }
+
+    /**
+     * Position of a row in (timestamp, id) order, used as the keyset cursor.
+     */
+    public static final class PageKey {
+        public final long timestamp;
+        public final long id;
+
+        public PageKey(long timestamp, long id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+    }
+}
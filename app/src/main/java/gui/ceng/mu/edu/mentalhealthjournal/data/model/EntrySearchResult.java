@@ -0,0 +1,51 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.model;
+
+import androidx.room.Embedded;
+import androidx.room.Ignore;
+
+import java.util.List;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.util.FtsUtils;
+
+/**
+ * Query result of a full-text search: the matching entry plus the raw
+ * FTS4 matchinfo and offsets used for ranking and highlighting.
+ */
+public class EntrySearchResult {
+
+    @Embedded
+    public JournalEntryEntity entry;
+
+    // matchinfo(journal_entries_fts, 'pcx') blob
+    public byte[] matchInfo;
+
+    // offsets(journal_entries_fts) string
+    public String matchOffsets;
+
+    // Relevance score, filled in by the repository
+    @Ignore
+    private double score;
+
+    public JournalEntryEntity getEntry() {
+        return entry;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    /**
+     * Get the character ranges of matched terms in the entry's note,
+     * e.g. for highlighting a snippet.
+     * @return List of {start, end} pairs (end exclusive)
+     */
+    public List<int[]> getNoteMatchRanges() {
+        return FtsUtils.getCharRanges(entry.getNote(),
+                FtsUtils.parseOffsets(matchOffsets), FtsUtils.COLUMN_NOTE);
+    }
+}
@@ -0,0 +1,86 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.model;
+
+import gui.ceng.mu.edu.mentalhealthjournal.util.MoodUtils;
+
+/**
+ * Lightweight projection of a journal entry for list screens.
+ * The note preview and first emotion are cut out in SQL, so list queries
+ * never read full notes or parse tag lists.
+ */
+public class EntrySummary {
+
+    // Maximum note length shown in a list title
+    public static final int PREVIEW_LENGTH = 30;
+
+    /**
+     * Result columns of a summary query over journal_entries,
+     * for use in {@code SELECT} statements and raw queries.
+     */
+    public static final String COLUMNS = "id, timestamp, epochDay, moodLevel, "
+            + "CASE WHEN note IS NULL OR note = '' THEN NULL "
+            + "WHEN length(note) > " + PREVIEW_LENGTH + " THEN substr(note, 1, " + PREVIEW_LENGTH + ") || '...' "
+            + "ELSE note END AS notePreview, "
+            + "CASE WHEN emotions IS NULL OR emotions = '' THEN NULL "
+            + "WHEN instr(emotions, ',') > 0 THEN substr(emotions, 1, instr(emotions, ',') - 1) "
+            + "ELSE emotions END AS firstEmotion";
+
+    public long id;
+
+    public long timestamp;
+
+    // Local calendar day of the timestamp
+    public long epochDay;
+
+    public int moodLevel;
+
+    // Note truncated to PREVIEW_LENGTH characters, null if the entry has no note
+    public String notePreview;
+
+    // First emotion tag, null if the entry has none
+    public String firstEmotion;
+
+    public long getId() {
+        return id;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getEpochDay() {
+        return epochDay;
+    }
+
+    public int getMoodLevel() {
+        return moodLevel;
+    }
+
+    public String getNotePreview() {
+        return notePreview;
+    }
+
+    public String getFirstEmotion() {
+        return firstEmotion;
+    }
+
+    /**
+     * Title shown in entry lists: the note preview, else the first emotion, else the mood name.
+     */
+    public String getTitle() {
+        if (notePreview != null) {
+            return notePreview;
+        }
+        if (firstEmotion != null) {
+            return "Feeling " + firstEmotion;
+        }
+        return MoodUtils.getText(moodLevel);
+    }
+
+    public int getMoodIconResource() {
+        return MoodUtils.getIcon(moodLevel);
+    }
+
+    public int getMoodBackgroundResource() {
+        return MoodUtils.getBackground(moodLevel);
+    }
+}
@@ -0,0 +1,35 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.model;
+
+/**
+ * Query result holding the entry and media counts of one mood level in a range.
+ */
+public class MoodLevelStats {
+
+    // Mood level (1-5)
+    public int moodLevel;
+
+    // Number of entries with this mood level
+    public int entryCount;
+
+    // Number of those entries with a photo
+    public int photoCount;
+
+    // Number of those entries with a voice memo
+    public int voiceCount;
+
+    public int getMoodLevel() {
+        return moodLevel;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public int getPhotoCount() {
+        return photoCount;
+    }
+
+    public int getVoiceCount() {
+        return voiceCount;
+    }
+}
@@ -0,0 +1,82 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.model;
+
+import java.util.List;
+
+/**
+ * Immutable statistics of a time range: entry count, mood histogram and average,
+ * and media totals. Built from the per-mood-level rows of a single aggregate query.
+ */
+public final class PeriodStats {
+
+    public static final int MIN_MOOD = 1;
+    public static final int MAX_MOOD = 5;
+
+    // Index 0-4 for mood levels 1-5
+    private final int[] moodCounts = new int[MAX_MOOD - MIN_MOOD + 1];
+    private final int totalEntries;
+    private final long moodSum;
+    private final int photoCount;
+    private final int voiceCount;
+
+    private PeriodStats(List<MoodLevelStats> rows) {
+        int total = 0;
+        long sum = 0;
+        int photos = 0;
+        int voices = 0;
+        if (rows != null) {
+            for (MoodLevelStats row : rows) {
+                total += row.entryCount;
+                sum += (long) row.moodLevel * row.entryCount;
+                photos += row.photoCount;
+                voices += row.voiceCount;
+                if (row.moodLevel >= MIN_MOOD && row.moodLevel <= MAX_MOOD) {
+                    moodCounts[row.moodLevel - MIN_MOOD] = row.entryCount;
+                }
+            }
+        }
+        this.totalEntries = total;
+        this.moodSum = sum;
+        this.photoCount = photos;
+        this.voiceCount = voices;
+    }
+
+    /**
+     * Combine the per-mood-level rows of a range into period totals.
+     * @param rows Result of {@code JournalEntryDao.getMoodLevelStatsInRange}
+     * @return The period statistics
+     */
+    public static PeriodStats from(List<MoodLevelStats> rows) {
+        return new PeriodStats(rows);
+    }
+
+    public int getTotalEntries() {
+        return totalEntries;
+    }
+
+    public boolean isEmpty() {
+        return totalEntries == 0;
+    }
+
+    /**
+     * @return Average mood level, or 0 if the range has no entries
+     */
+    public float getAverageMood() {
+        return totalEntries > 0 ? (float) moodSum / totalEntries : 0f;
+    }
+
+    /**
+     * @param moodLevel The mood level (1-5)
+     * @return Number of entries with that mood level
+     */
+    public int getMoodCount(int moodLevel) {
+        return moodLevel >= MIN_MOOD && moodLevel <= MAX_MOOD ? moodCounts[moodLevel - MIN_MOOD] : 0;
+    }
+
+    public int getPhotoCount() {
+        return photoCount;
+    }
+
+    public int getVoiceCount() {
+        return voiceCount;
+    }
+}
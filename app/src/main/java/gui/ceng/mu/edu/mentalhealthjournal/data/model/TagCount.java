@@ -0,0 +1,21 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.model;
+
+/**
+ * Query result holding how many entries use a tag.
+ */
+public class TagCount {
+
+    // Tag name
+    public String name;
+
+    // Number of entries tagged with this name
+    public int count;
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,57 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.model;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list view over a {@link TagVocabulary} mask followed by custom tags.
+ * Vocabulary tags are the shared vocabulary strings, so decoding a row allocates
+ * only this view, not a list and a string per tag.
+ */
+final class TagList extends AbstractList<String> implements RandomAccess {
+
+    private final String[] vocabulary;
+    private final long mask;
+    private final int maskSize;
+    private final List<String> customTags;
+
+    TagList(String[] vocabulary, long mask, List<String> customTags) {
+        this.vocabulary = vocabulary;
+        this.mask = mask;
+        this.maskSize = Long.bitCount(mask);
+        this.customTags = customTags != null ? customTags : Collections.emptyList();
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        if (index >= maskSize) {
+            return customTags.get(index - maskSize);
+        }
+        long remaining = mask;
+        for (int i = 0; i < index; i++) {
+            // Clear the lowest set bit
+            remaining &= remaining - 1;
+        }
+        return vocabulary[Long.numberOfTrailingZeros(remaining)];
+    }
+
+    @Override
+    public int size() {
+        return maskSize + customTags.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        for (int i = 0; i < vocabulary.length; i++) {
+            if ((mask & (1L << i)) != 0 && vocabulary[i].equals(o)) {
+                return true;
+            }
+        }
+        return customTags.contains(o);
+    }
+}
@@ -0,0 +1,112 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed vocabulary of default tags that are stored as bits of a {@code long} mask
+ * instead of text. Bit positions are persisted, so new names may only be appended
+ * and existing ones never reordered or removed; tags outside the vocabulary are
+ * stored as text next to the mask.
+ */
+public final class TagVocabulary {
+
+    /**
+     * Default emotions, as offered by {@code ActivityItem.getDefaultEmotions}.
+     */
+    public static final TagVocabulary EMOTIONS = new TagVocabulary(
+            "happy", "excited", "grateful", "relaxed", "content",
+            "tired", "unsure", "bored", "anxious", "angry",
+            "stressed", "sad", "desperate");
+
+    /**
+     * Default sleep options, as offered by {@code ActivityItem.getDefaultSleepOptions}.
+     */
+    public static final TagVocabulary SLEEP = new TagVocabulary(
+            "good sleep", "medium sleep", "bad sleep", "sleep early");
+
+    private final String[] names;
+    private final Map<String, Integer> bits;
+
+    private TagVocabulary(String... names) {
+        if (names.length > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " tags fit in a mask");
+        }
+        this.names = names;
+        bits = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            bits.put(names[i], i);
+        }
+    }
+
+    /**
+     * @return Number of tags in the vocabulary
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Get the tag stored at a bit position
+     * @param bit The bit position
+     * @return The tag name
+     */
+    public String nameAt(int bit) {
+        return names[bit];
+    }
+
+    /**
+     * Get the mask bit of a tag
+     * @param name The tag name; matched exactly after trimming, as the tag index stores it
+     * @return The single-bit mask, or 0 if the tag is not in the vocabulary
+     */
+    public long bitOf(String name) {
+        Integer bit = name != null ? bits.get(name.trim()) : null;
+        return bit != null ? 1L << bit : 0L;
+    }
+
+    /**
+     * Encode the vocabulary tags of a list as a mask
+     * @param tags The tags, may be null
+     * @return The mask; tags outside the vocabulary are ignored
+     */
+    public long maskOf(Collection<String> tags) {
+        long mask = 0;
+        if (tags != null) {
+            for (String tag : tags) {
+                mask |= bitOf(tag);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Get the tags of a list that are not in the vocabulary, in order
+     * @param tags The tags, may be null
+     * @return The custom tags; empty if there are none
+     */
+    public List<String> customTagsOf(Collection<String> tags) {
+        List<String> custom = new ArrayList<>();
+        if (tags != null) {
+            for (String tag : tags) {
+                if (bitOf(tag) == 0) {
+                    custom.add(tag);
+                }
+            }
+        }
+        return custom;
+    }
+
+    /**
+     * Decode a mask and custom tags into one immutable list view
+     * @param mask The vocabulary mask
+     * @param customTags The custom tags, may be null
+     * @return Vocabulary tags in bit order, then the custom tags
+     */
+    public List<String> decode(long mask, List<String> customTags) {
+        return new TagList(names, mask, customTags);
+    }
+}
@@ -0,0 +1,28 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.model;
+
+/**
+ * Query result describing a soft-deleted entry awaiting purge: its ID and the
+ * media files to remove once the row is gone.
+ */
+public class Tombstone {
+
+    public long id;
+
+    // Photo file path (if any)
+    public String photoPath;
+
+    // Voice memo file path (if any)
+    public String voiceMemoPath;
+
+    public long getId() {
+        return id;
+    }
+
+    public String getPhotoPath() {
+        return photoPath;
+    }
+
+    public String getVoiceMemoPath() {
+        return voiceMemoPath;
+    }
+}
@@ -0,0 +1,138 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Version of the archive's visible contents, guarding reads that combine the journal
+ * and the archive against entries moving between them.
+ *
+ * A move copies entries into the archive, then deletes them from the journal in a
+ * transaction the archive connection cannot take part in. A read that picks the
+ * journal alone by the archive's bounds, or adds up journal and archive from two
+ * statements, can therefore miss or double count moved entries. Moves are bracketed
+ * by {@link #beginMove} and {@link #endMove}: while one is in progress reads take
+ * their combined form, a single statement over both databases, and a read that a
+ * move began or ended during is run again (seqlock).
+ */
+public final class ArchiveGuard {
+
+    // Moves begun and not yet ended
+    private final AtomicInteger moving = new AtomicInteger();
+
+    // Bumped whenever entries move or the archive's visible contents change
+    private final AtomicLong version = new AtomicLong();
+
+    // Reads run again because the archive changed while they ran
+    private final AtomicLong retries = new AtomicLong();
+
+    /**
+     * Mark the start of a move; must be paired with {@link #endMove}
+     */
+    public void beginMove() {
+        moving.incrementAndGet();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Mark the end of a move, after the journal side has committed or rolled back
+     */
+    public void endMove() {
+        version.incrementAndGet();
+        moving.decrementAndGet();
+    }
+
+    /**
+     * Record a change of the archive's visible contents outside a move,
+     * e.g. entries moved back into the journal or tombstoned
+     */
+    public void changed() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return Whether a move is in progress
+     */
+    public boolean isMoving() {
+        return moving.get() > 0;
+    }
+
+    /**
+     * @return The current version; changes with every move and archive change
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Run a read that may query journal and archive separately, retrying it if the
+     * archive changed meanwhile
+     * @param split The read, e.g. the journal alone when the archive's bounds say so
+     * @param combined The same read as one statement over both databases, used while
+     *                 a move is in progress
+     * @return The result of a read no move overlapped
+     */
+    public <T> T read(Supplier<T> split, Supplier<T> combined) {
+        while (true) {
+            long seen = version.get();
+            if (moving.get() > 0) {
+                return combined.get();
+            }
+            T result = split.get();
+            if (version.get() == seen) {
+                return result;
+            }
+            retries.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return Number of reads run again because the archive changed while they ran
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Value computed from the archive alone, kept until the archive changes.
+     * A value computed while a move is in progress or the archive changed is returned
+     * but not kept.
+     */
+    public static final class Snapshot<T> {
+
+        private final ArchiveGuard guard;
+        private final Supplier<T> load;
+        private long loadedVersion = -1;
+        private T value;
+
+        /**
+         * @param guard The guard of the archive the value is computed from
+         * @param load Computes the value from the archive
+         */
+        public Snapshot(ArchiveGuard guard, Supplier<T> load) {
+            this.guard = guard;
+            this.load = load;
+        }
+
+        /**
+         * @return The kept value if the archive is unchanged, otherwise a fresh one
+         */
+        public T get() {
+            long seen = guard.getVersion();
+            synchronized (this) {
+                if (loadedVersion == seen) {
+                    return value;
+                }
+            }
+            T loaded = load.get();
+            synchronized (this) {
+                if (!guard.isMoving() && guard.getVersion() == seen) {
+                    loadedVersion = seen;
+                    value = loaded;
+                }
+            }
+            return loaded;
+        }
+    }
+}
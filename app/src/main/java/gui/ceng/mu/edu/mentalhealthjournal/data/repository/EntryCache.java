@@ -0,0 +1,134 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.repository;
+
+import androidx.annotation.NonNull;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Size-bounded, least-recently-used cache of journal entries by ID.
+ * Entries are copied in and out, so callers may edit what they get without
+ * affecting the cache. Kept correct by write-through from the repository;
+ * every write bumps a version so a read that raced a write cannot cache stale data.
+ */
+public final class EntryCache {
+
+    private final LinkedHashMap<Long, JournalEntryEntity> entries;
+
+    // Guarded by this
+    private long version;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxSize Maximum number of cached entries
+     */
+    public EntryCache(int maxSize) {
+        // Access order, so iteration starts at the least recently used entry
+        entries = new LinkedHashMap<Long, JournalEntryEntity>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, JournalEntryEntity> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Look up an entry
+     * @param id The entry ID
+     * @return A copy of the cached entry, or null on a miss
+     */
+    public synchronized JournalEntryEntity get(long id) {
+        JournalEntryEntity entry = entries.get(id);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.copy();
+    }
+
+    /**
+     * @return The current version; pass it to {@link #putIfUnchanged} after loading an entry
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Cache an entry loaded from the database, unless a write happened since the load began
+     * @param entry The loaded entry; may be null if the ID does not exist
+     * @param loadVersion The version read before the load
+     */
+    public synchronized void putIfUnchanged(JournalEntryEntity entry, long loadVersion) {
+        if (entry != null && version == loadVersion) {
+            entries.put(entry.getId(), entry.copy());
+        }
+    }
+
+    /**
+     * Write-through of an inserted or updated entry
+     * @param entry The entry as written
+     */
+    public synchronized void put(JournalEntryEntity entry) {
+        version++;
+        entries.put(entry.getId(), entry.copy());
+    }
+
+    /**
+     * Write-through of a deleted entry
+     * @param id The ID of the deleted entry
+     */
+    public synchronized void remove(long id) {
+        version++;
+        entries.remove(id);
+    }
+
+    /**
+     * Drop every cached entry, e.g. after a bulk write
+     */
+    public synchronized void clear() {
+        version++;
+        entries.clear();
+    }
+
+    /**
+     * @return Snapshot of the cache counters
+     */
+    public synchronized Metrics getMetrics() {
+        return new Metrics(hits, misses, entries.size());
+    }
+
+    /**
+     * Point-in-time counters of an {@link EntryCache}.
+     */
+    public static final class Metrics {
+        public final long hits;
+        public final long misses;
+        public final int size;
+
+        Metrics(long hits, long misses, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.size = size;
+        }
+
+        /**
+         * @return Fraction of lookups served from the cache
+         */
+        public float getHitRate() {
+            long total = hits + misses;
+            return total > 0 ? (float) hits / total : 0f;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "hits=%d misses=%d size=%d hitRate=%.2f",
+                    hits, misses, size, getHitRate());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.repository;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.converter.StringListConverter;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+
+import java.io.Closeable;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Forward-only iteration over journal entries straight off a SQLite cursor.
+ * Only one row is materialized at a time and only the requested columns are read,
+ * so whole-journal passes (backup, export) run in constant memory.
+ * Must be used on a background thread and closed when done.
+ */
+public final class EntryCursor implements Closeable {
+
+    /**
+     * Columns of journal_entries that can be streamed.
+     */
+    public enum Column {
+        ID("id"),
+        TIMESTAMP("timestamp"),
+        EPOCH_DAY("epochDay"),
+        MOOD_LEVEL("moodLevel"),
+        EMOTIONS("emotions"),
+        EMOTION_MASK("emotionMask"),
+        SLEEP_MASK("sleepMask"),
+        // Custom sleep tags only; select SLEEP_MASK too for the complete list
+        SLEEP_TAGS("sleepTags"),
+        ACTIVITIES("activities"),
+        NOTE("note"),
+        PHOTO_PATH("photoPath"),
+        VOICE_MEMO_PATH("voiceMemoPath");
+
+        final String name;
+
+        Column(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Every column, i.e. complete entries.
+     */
+    public static final Set<Column> ALL_COLUMNS = EnumSet.allOf(Column.class);
+
+    private final Cursor cursor;
+    // Cursor index of each column, or -1 if it was not selected
+    private final int[] indices = new int[Column.values().length];
+
+    EntryCursor(Cursor cursor) {
+        this.cursor = cursor;
+        for (Column column : Column.values()) {
+            indices[column.ordinal()] = cursor.getColumnIndex(column.name);
+        }
+    }
+
+    /**
+     * Build the query streaming live entries of a time range
+     * @param columns The columns to read
+     * @param startTime Start timestamp (inclusive)
+     * @param endTime End timestamp (inclusive)
+     * @param newestFirst Whether to stream newest entries first
+     * @return Query for {@code JournalEntryDao.streamEntries}
+     */
+    static SupportSQLiteQuery buildQuery(Set<Column> columns, long startTime, long endTime, boolean newestFirst) {
+        return buildQuery(columns, startTime, endTime, newestFirst, "journal_entries");
+    }
+
+    /**
+     * Build the query streaming live entries of a time range from another entries
+     * table or view, such as the archive's union of both databases
+     * @param columns The columns to read
+     * @param startTime Start timestamp (inclusive)
+     * @param endTime End timestamp (inclusive)
+     * @param newestFirst Whether to stream newest entries first
+     * @param table Table or view with the journal_entries columns
+     * @return The query
+     */
+    static SupportSQLiteQuery buildQuery(Set<Column> columns, long startTime, long endTime, boolean newestFirst,
+                                         String table) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        boolean first = true;
+        for (Column column : columns) {
+            if (!first) {
+                sql.append(", ");
+            }
+            sql.append(column.name);
+            first = false;
+        }
+        if (first) {
+            sql.append("id");
+        }
+        sql.append(" FROM ").append(table).append(" WHERE deletedAt IS NULL AND timestamp >= ? AND timestamp <= ?")
+                .append(" ORDER BY timestamp ").append(newestFirst ? "DESC" : "ASC");
+        return new SimpleSQLiteQuery(sql.toString(), new Object[]{startTime, endTime});
+    }
+
+    /**
+     * Advance to the next entry
+     * @return Whether there is one
+     */
+    public boolean moveToNext() {
+        return cursor.moveToNext();
+    }
+
+    /**
+     * Read the current row. Columns that were not selected keep their defaults.
+     * @return A new entity for the current row
+     */
+    public JournalEntryEntity getEntry() {
+        JournalEntryEntity entry = new JournalEntryEntity();
+        int index;
+        if ((index = indices[Column.ID.ordinal()]) >= 0) {
+            entry.setId(cursor.getLong(index));
+        }
+        if ((index = indices[Column.TIMESTAMP.ordinal()]) >= 0) {
+            entry.setTimestamp(cursor.getLong(index));
+        }
+        if ((index = indices[Column.EPOCH_DAY.ordinal()]) >= 0) {
+            entry.setEpochDay(cursor.getLong(index));
+        }
+        if ((index = indices[Column.MOOD_LEVEL.ordinal()]) >= 0) {
+            entry.setMoodLevel(cursor.getInt(index));
+        }
+        if ((index = indices[Column.EMOTIONS.ordinal()]) >= 0) {
+            entry.setEmotions(StringListConverter.toList(cursor.getString(index)));
+        }
+        if ((index = indices[Column.EMOTION_MASK.ordinal()]) >= 0) {
+            entry.setEmotionMask(cursor.getLong(index));
+        }
+        if ((index = indices[Column.SLEEP_MASK.ordinal()]) >= 0) {
+            entry.setSleepMask(cursor.getLong(index));
+        }
+        if ((index = indices[Column.SLEEP_TAGS.ordinal()]) >= 0) {
+            entry.setCustomSleepTags(StringListConverter.toList(cursor.getString(index)));
+        }
+        if ((index = indices[Column.ACTIVITIES.ordinal()]) >= 0) {
+            entry.setActivities(StringListConverter.toList(cursor.getString(index)));
+        }
+        if ((index = indices[Column.NOTE.ordinal()]) >= 0) {
+            entry.setNote(cursor.getString(index));
+        }
+        if ((index = indices[Column.PHOTO_PATH.ordinal()]) >= 0) {
+            entry.setPhotoPath(cursor.getString(index));
+        }
+        if ((index = indices[Column.VOICE_MEMO_PATH.ordinal()]) >= 0) {
+            entry.setVoiceMemoPath(cursor.getString(index));
+        }
+        return entry;
+    }
+
+    /**
+     * Read the timestamp of the current row without creating an entity
+     * @return The timestamp; the TIMESTAMP column must be selected
+     */
+    public long getTimestamp() {
+        return cursor.getLong(indices[Column.TIMESTAMP.ordinal()]);
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+}
@@ -0,0 +1,127 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntryFilter;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntrySummary;
+
+/**
+ * Loads summaries of filtered journal entries page by page with keyset pagination.
+ * The next page is requested once the list binds a row within the prefetch
+ * distance of the end, so only the pages the user actually scrolls through are read.
+ * All methods must be called on the main thread; pages are delivered there too.
+ */
+public class EntryPager {
+
+    /**
+     * Receives loaded pages on the main thread.
+     */
+    public interface Listener {
+        /**
+         * @param page Entries of the page, newest first
+         * @param firstPage True if the page replaces everything loaded before
+         */
+        void onPageLoaded(@NonNull List<EntrySummary> page, boolean firstPage);
+
+        void onError(Exception e);
+    }
+
+    private final JournalRepository repository;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private EntryFilter filter = EntryFilter.all();
+    private EntryFilter.PageKey lastKey;
+    private int loadedCount;
+    private boolean loading;
+    private boolean endReached;
+    // Incremented on every reload so pages of a superseded filter are dropped
+    private int generation;
+
+    public EntryPager(@NonNull JournalRepository repository, int pageSize, int prefetchDistance,
+                      @NonNull Listener listener) {
+        this.repository = repository;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.listener = listener;
+    }
+
+    public EntryFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Replace the filter and load its first page.
+     */
+    public void setFilter(@NonNull EntryFilter filter) {
+        this.filter = filter;
+        reload();
+    }
+
+    /**
+     * Drop everything loaded and load the first page again, e.g. after the data changed.
+     */
+    public void reload() {
+        generation++;
+        lastKey = null;
+        loadedCount = 0;
+        loading = false;
+        endReached = false;
+        loadNextPage();
+    }
+
+    /**
+     * Tell the pager which row was bound, loading the next page when it is near the end.
+     * @param position Adapter position of the bound row
+     */
+    public void onItemBound(int position) {
+        if (position >= loadedCount - prefetchDistance) {
+            loadNextPage();
+        }
+    }
+
+    private void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        boolean firstPage = lastKey == null;
+        repository.getSummaryPage(filter, lastKey, pageSize, new JournalRepository.RepositoryCallback<List<EntrySummary>>() {
+            @Override
+            public void onComplete(List<EntrySummary> page) {
+                mainHandler.post(() -> {
+                    if (requestGeneration != generation) {
+                        return;
+                    }
+                    loading = false;
+                    endReached = page.size() < pageSize;
+                    if (!page.isEmpty()) {
+                        EntrySummary last = page.get(page.size() - 1);
+                        lastKey = new EntryFilter.PageKey(last.getTimestamp(), last.getId());
+                    }
+                    loadedCount += page.size();
+                    listener.onPageLoaded(page, firstPage);
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                mainHandler.post(() -> {
+                    if (requestGeneration != generation) {
+                        return;
+                    }
+                    loading = false;
+                    listener.onError(e);
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,282 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single writer that commits queued mutations in groups: one transaction per batch
+ * instead of one per write, so a burst of writes pays for one commit.
+ * Mutations are applied and completed in submission order. A batch is flushed
+ * when it is full or when its oldest mutation has waited {@link #FLUSH_DEADLINE_MS},
+ * which bounds the latency a single write pays for grouping.
+ *
+ * Every write of the journal goes through this writer, bulk loads and compaction
+ * included, as bounded mutations. Two exceptions take Room's write lock directly:
+ * a replacing restore, which must stay one transaction and is submitted as one
+ * mutation, so it holds the writer for its whole length; and the maintenance
+ * statements of JournalCompactor (PRAGMA optimize, VACUUM), which cannot run inside
+ * a transaction and wait for the writer's current transaction to end.
+ * A mutation that throws, even an Error, fails only its own future; the writer keeps
+ * draining the queue.
+ */
+public final class GroupCommitWriter {
+
+    private static final String TAG = "GroupCommitWriter";
+
+    // Most mutations committed in one transaction
+    public static final int MAX_BATCH_SIZE = 64;
+
+    // Longest a mutation waits for others to share its commit
+    public static final long FLUSH_DEADLINE_MS = 5;
+
+    /**
+     * A database write; runs inside the batch transaction on the writer thread.
+     */
+    public interface Mutation<T> {
+        T apply();
+    }
+
+    /**
+     * Called on the writer thread once the mutation's transaction has committed.
+     */
+    public interface CommitListener<T> {
+        void onCommitted(T result);
+    }
+
+    /**
+     * Called on the writer thread after each transaction, before its commit listeners.
+     */
+    public interface TransactionListener {
+        /**
+         * @param committed Whether the transaction committed or was rolled back
+         */
+        void onTransactionEnded(boolean committed);
+    }
+
+    private final RoomDatabase database;
+    private final Executor executor;
+    private final TransactionListener transactionListener;
+    private final LinkedBlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong mutations = new AtomicLong();
+    // Batches rolled back by a failing mutation and retried one by one
+    private final AtomicLong retriedBatches = new AtomicLong();
+
+    /**
+     * @param database The database to write to
+     * @param executor Serial executor the writer drains on
+     */
+    public GroupCommitWriter(RoomDatabase database, Executor executor) {
+        this(database, executor, null);
+    }
+
+    /**
+     * @param database The database to write to
+     * @param executor Serial executor the writer drains on
+     * @param transactionListener Called after every transaction, committed or not; may be null
+     */
+    public GroupCommitWriter(RoomDatabase database, Executor executor, TransactionListener transactionListener) {
+        this.database = database;
+        this.executor = executor;
+        this.transactionListener = transactionListener;
+    }
+
+    /**
+     * Queue a mutation for the next group commit
+     * @param mutation The write to apply
+     * @param listener Called after the commit, before the future completes; may be null
+     * @return Future of the mutation's result, completed once it is committed
+     */
+    public <T> CompletableFuture<T> submit(Mutation<T> mutation, CommitListener<T> listener) {
+        Pending<T> pending = new Pending<>(mutation, listener);
+        queue.add(pending);
+        scheduleDrain();
+        return pending.future;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            List<Pending<?>> batch = new ArrayList<>(MAX_BATCH_SIZE);
+            Pending<?> first;
+            while ((first = queue.poll()) != null) {
+                batch.add(first);
+                long deadline = first.enqueuedNanos + TimeUnit.MILLISECONDS.toNanos(FLUSH_DEADLINE_MS);
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    Pending<?> next = pollUntil(deadline);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+                batch.clear();
+            }
+        } finally {
+            draining.set(false);
+            // A mutation queued after the last poll but before the flag was cleared
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    private Pending<?> pollUntil(long deadline) {
+        long wait = deadline - System.nanoTime();
+        if (wait <= 0) {
+            return queue.poll();
+        }
+        try {
+            return queue.poll(wait, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // Commit what has been gathered so far
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void commit(List<Pending<?>> batch) {
+        batches.incrementAndGet();
+        mutations.addAndGet(batch.size());
+        try {
+            runInTransaction(() -> {
+                for (Pending<?> pending : batch) {
+                    pending.apply();
+                }
+            });
+        } catch (Throwable e) {
+            // Errors too (e.g. out of memory in a large batch), so no future is left pending
+            if (batch.size() == 1) {
+                batch.get(0).fail(e);
+                return;
+            }
+            // One mutation rolled back the whole batch; retry each alone so only it fails
+            retriedBatches.incrementAndGet();
+            Log.w(TAG, "Batch of " + batch.size() + " failed, retrying one by one", e);
+            for (Pending<?> pending : batch) {
+                try {
+                    runInTransaction(pending::apply);
+                } catch (Throwable mutationError) {
+                    pending.fail(mutationError);
+                    continue;
+                }
+                pending.complete();
+            }
+            return;
+        }
+        for (Pending<?> pending : batch) {
+            pending.complete();
+        }
+    }
+
+    private void runInTransaction(Runnable body) {
+        boolean committed = false;
+        try {
+            database.runInTransaction(body);
+            committed = true;
+        } finally {
+            if (transactionListener != null) {
+                try {
+                    transactionListener.onTransactionEnded(committed);
+                } catch (Throwable e) {
+                    // The transaction's outcome stands; report it as such
+                    Log.e(TAG, "Transaction listener failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Snapshot of the writer counters
+     */
+    public Metrics getMetrics() {
+        return new Metrics(batches.get(), mutations.get(), retriedBatches.get(), queue.size());
+    }
+
+    /**
+     * A queued mutation and the future of its result.
+     */
+    private static final class Pending<T> {
+        final Mutation<T> mutation;
+        final CommitListener<T> listener;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final long enqueuedNanos = System.nanoTime();
+        T result;
+
+        Pending(Mutation<T> mutation, CommitListener<T> listener) {
+            this.mutation = mutation;
+            this.listener = listener;
+        }
+
+        void apply() {
+            result = mutation.apply();
+        }
+
+        void complete() {
+            if (listener != null) {
+                try {
+                    listener.onCommitted(result);
+                } catch (Throwable e) {
+                    // The write itself is committed; report it as such
+                    Log.e(TAG, "Commit listener failed", e);
+                }
+            }
+            future.complete(result);
+        }
+
+        void fail(Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Point-in-time counters of a {@link GroupCommitWriter}.
+     */
+    public static final class Metrics {
+        public final long batches;
+        public final long mutations;
+        public final long retriedBatches;
+        // Mutations waiting for the next batch
+        public final int queued;
+
+        Metrics(long batches, long mutations, long retriedBatches, int queued) {
+            this.batches = batches;
+            this.mutations = mutations;
+            this.retriedBatches = retriedBatches;
+            this.queued = queued;
+        }
+
+        /**
+         * @return Average number of mutations per committed transaction
+         */
+        public float getAverageBatchSize() {
+            return batches > 0 ? (float) mutations / batches : 0f;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "batches=%d mutations=%d retried=%d queued=%d avgBatch=%.1f",
+                    batches, mutations, retriedBatches, queued, getAverageBatchSize());
+        }
+    }
+}
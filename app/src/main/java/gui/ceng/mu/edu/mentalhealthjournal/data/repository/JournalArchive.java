@@ -0,0 +1,1048 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.converter.StringListConverter;
+import gui.ceng.mu.edu.mentalhealthjournal.data.database.JournalDatabase;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.DailySummaryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.EntryTagEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntryFilter;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntrySearchResult;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntrySummary;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.MoodLevelStats;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.TagCount;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.Tombstone;
+import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Cold tier of the journal: entries older than a configurable horizon are moved,
+ * whole days at a time, into a separate SQLite file with its own full-text index,
+ * so the journal database and its indexes only cover recent entries.
+ *
+ * The archive is read through a private connection that attaches both files
+ * ({@code journal} and {@code archive}) and opens only when a query's range or
+ * search scope reaches archived entries. Room's own connections never attach it,
+ * because attaching a database disables write-ahead logging on Android.
+ * On that connection {@code all_entries} is the union of both tables, so a query
+ * over the whole journal sees one consistent snapshot.
+ *
+ * Archived entries are immutable: a write touching an archived day first moves
+ * that day back into the journal ({@link #checkOutDay}), and the archive copies
+ * are dropped once the writer's transaction ends ({@link #settle}). Until then they
+ * are hidden, so an entry is never seen twice. Moves in either direction are
+ * tracked by an {@link ArchiveGuard} until then, so reads that pick the journal
+ * alone can tell when entries moved under them ({@link #read}). Daily summaries of archived days
+ * stay in the journal database. Tag links move into the archive with their entries
+ * and keep referring to the journal's tag dictionary, whose rows are never deleted.
+ */
+public final class JournalArchive {
+
+    public static final String ARCHIVE_NAME = "mental_health_journal_archive.db";
+
+    // Entries of days older than this many days are archived by default
+    public static final int DEFAULT_HORIZON_DAYS = 365;
+
+    // Fewest days kept in the journal, so recent screens never read the archive
+    public static final int MIN_HORIZON_DAYS = 31;
+
+    private static final String PREFS_NAME = "archive_prefs";
+    private static final String KEY_HORIZON_DAYS = "horizon_days";
+    private static final String KEY_NEWEST_TIMESTAMP = "newest_timestamp";
+    private static final String KEY_NEWEST_DAY = "newest_day";
+
+    // Stored bound of an archive holding no entries
+    private static final long NONE = Long.MIN_VALUE;
+
+    // Version of the archive's own tables, indexes and triggers, kept in the file's
+    // user_version; the columns of journal_entries follow the journal instead
+    private static final int SCHEMA_VERSION = 2;
+
+    // Rows per insert statement, keeping its 12 arguments per row under SQLite's limit of 999
+    private static final int ROWS_PER_STATEMENT = 999 / 12;
+
+    // Tag links per insert statement, with 2 arguments each
+    private static final int LINKS_PER_STATEMENT = 999 / 2;
+
+    // Column list of journal_entries read and written through the archive; the journal's
+    // physical column order depends on the migrations it went through, so views never
+    // use SELECT *. Must name every column of the entity (see JournalArchiveSchemaTest).
+    public static final String COLUMNS = "id, timestamp, epochDay, moodLevel, emotions, emotionMask, "
+            + "sleepMask, sleepTags, activities, note, photoPath, voiceMemoPath, deletedAt";
+
+    // The same columns qualified with the alias e, for joins with a full-text index
+    private static final String E_COLUMNS = "e." + COLUMNS.replace(", ", ", e.");
+
+    // Live and deleted entries of both databases; archive rows that also exist
+    // in the journal are left out
+    static final String ALL_ENTRIES = "all_entries";
+
+    // Full-text indexes covering all_entries
+    private static final String[] FTS_TABLES = {"journal.journal_entries_fts", "archive.journal_entries_fts"};
+
+    // Conditions for count and getEntries, over the journal_entries columns
+    static final String ANY = "1";
+    static final String IN_RANGE = "timestamp >= ? AND timestamp <= ?";
+    static final String HAS_PHOTO = "photoPath IS NOT NULL AND photoPath != ''";
+    static final String HAS_VOICE = "voiceMemoPath IS NOT NULL AND voiceMemoPath != ''";
+
+    private static volatile JournalArchive INSTANCE;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private SupportSQLiteDatabase connection;
+
+    // Upper bounds of the archived timestamps and days, NONE if nothing is archived;
+    // read on every query, so kept in memory
+    private volatile long newestTimestamp;
+    private volatile long newestDay;
+
+    // Whether archive rows may also exist in the journal, i.e. dropShadowed has work;
+    // initially set, so copies left by a move interrupted with the process are dropped
+    private volatile boolean shadowed = true;
+
+    private final ArchiveGuard guard = new ArchiveGuard();
+
+    // Guard version, posted once entries moved or the archive changed
+    private final MutableLiveData<Long> versionLive = new MutableLiveData<>();
+
+    // Moves begun by the writer's current transaction, ended by settle
+    private final AtomicInteger openMoves = new AtomicInteger();
+
+    private JournalArchive(Context context) {
+        this.context = context.getApplicationContext();
+        prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        newestTimestamp = prefs.getLong(KEY_NEWEST_TIMESTAMP, NONE);
+        newestDay = prefs.getLong(KEY_NEWEST_DAY, NONE);
+    }
+
+    /**
+     * Get the singleton instance of the archive
+     * @param context Application context
+     * @return The archive
+     */
+    public static JournalArchive getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (JournalArchive.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new JournalArchive(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Get the age in days after which entries are archived
+     * @return The horizon in days
+     */
+    public int getHorizonDays() {
+        return prefs.getInt(KEY_HORIZON_DAYS, DEFAULT_HORIZON_DAYS);
+    }
+
+    /**
+     * Set the age in days after which entries are archived; takes effect on the
+     * next archiving run. Lowering it never loses entries, it only moves more of them.
+     * @param days The horizon in days, at least {@link #MIN_HORIZON_DAYS}
+     */
+    public void setHorizonDays(int days) {
+        prefs.edit().putInt(KEY_HORIZON_DAYS, Math.max(MIN_HORIZON_DAYS, days)).apply();
+    }
+
+    /**
+     * Check whether no entries are archived, without opening the archive
+     */
+    public boolean isEmpty() {
+        return newestTimestamp == NONE;
+    }
+
+    /**
+     * Check whether a time range starting at a timestamp may include archived entries,
+     * without opening the archive
+     * @param startTime Start of the range, Long.MIN_VALUE for an unbounded range
+     * @return False if the range surely lies after every archived entry
+     */
+    boolean mayContain(long startTime) {
+        return newestTimestamp != NONE && startTime <= newestTimestamp;
+    }
+
+    /**
+     * Check whether a local day may have archived entries, without opening the archive
+     * @param epochDay The epoch day
+     * @return False if the day surely has none
+     */
+    boolean mayContainDay(long epochDay) {
+        // Days are compared with one day of slack, as they move with the time zone
+        return newestDay != NONE && epochDay <= newestDay + 1;
+    }
+
+    /**
+     * Check whether a time range starting at a timestamp may include archived entries,
+     * now or once entries are archived while it is read; for reads that cannot be run
+     * again, such as cursors
+     * @param startTime Start of the range, Long.MIN_VALUE for an unbounded range
+     * @return False if the range surely lies after every entry archived until it is read
+     */
+    boolean mayReach(long startTime) {
+        return guard.isMoving() || mayContain(startTime)
+                || DateUtils.getEpochDay(startTime) < getCutoffDay();
+    }
+
+    /**
+     * Get the first local day whose entries stay in the journal
+     * @return Entries of epoch days before this one are archived by the next run
+     */
+    long getCutoffDay() {
+        return DateUtils.getEpochDay(System.currentTimeMillis()) - getHorizonDays();
+    }
+
+    /**
+     * Run a read that may query the journal alone, e.g. when {@link #mayContain} says the
+     * archive holds no matching entries. It is run again if entries moved meanwhile;
+     * while a move is in progress the combined read runs instead (see {@link ArchiveGuard}).
+     * @param split The read
+     * @param combined The same read as one statement over journal and archive
+     * @return The result of a read no move overlapped
+     */
+    <T> T read(Supplier<T> split, Supplier<T> combined) {
+        return guard.read(split, combined);
+    }
+
+    /**
+     * End the moves begun by the writer's transaction, after it committed or rolled back,
+     * and drop archive copies of entries that are in the journal: moved back by a commit,
+     * or left behind by a rolled back archiving batch. Called on the writer thread.
+     */
+    void settle() {
+        try {
+            dropShadowed();
+        } finally {
+            int moves = openMoves.getAndSet(0);
+            for (int i = 0; i < moves; i++) {
+                guard.endMove();
+            }
+            if (moves > 0) {
+                versionLive.postValue(guard.getVersion());
+            }
+        }
+    }
+
+    private void beginMove() {
+        openMoves.incrementAndGet();
+        guard.beginMove();
+    }
+
+    private void changed() {
+        guard.changed();
+        versionLive.postValue(guard.getVersion());
+    }
+
+    /**
+     * Get a value computed from the archive alone, kept until the archive changes
+     * @param load Computes the value, e.g. the archived part of a list
+     * @return The snapshot
+     */
+    <T> ArchiveGuard.Snapshot<T> snapshot(Supplier<T> load) {
+        return new ArchiveGuard.Snapshot<>(guard, load);
+    }
+
+    /**
+     * Get the archive's version as LiveData, which changes once entries moved
+     * or the archive changed otherwise, e.g. to refresh a snapshot's observers
+     * @return LiveData of the version; has no value until the first change
+     */
+    LiveData<Long> getVersionLive() {
+        return versionLive;
+    }
+
+    // ========== Moving Entries ==========
+
+    /**
+     * Copy entries and their tag links into the archive. They are hidden until the
+     * caller deletes them from the journal; a copy left behind by an interrupted move
+     * is replaced. Each statement commits on its own: an explicit transaction on this
+     * connection would also lock the attached journal, which the calling writer holds.
+     * Runs inside the writer's transaction; the move lasts until {@link #settle}.
+     * @param entries Complete entries from the journal
+     * @param links Tag links of the entries, read in the caller's transaction
+     */
+    void insertAll(List<JournalEntryEntity> entries, List<EntryTagEntity> links) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        long timestamp = newestTimestamp;
+        long day = newestDay;
+        for (JournalEntryEntity entry : entries) {
+            timestamp = Math.max(timestamp, entry.getTimestamp());
+            day = Math.max(day, entry.getEpochDay());
+        }
+        beginMove();
+        shadowed = true;
+        // Raise the bounds first: a bound above the archived rows only costs a query
+        setBounds(timestamp, day);
+        SupportSQLiteDatabase db = getConnection();
+        for (int from = 0; from < entries.size(); from += ROWS_PER_STATEMENT) {
+            List<JournalEntryEntity> chunk = entries.subList(from, Math.min(entries.size(), from + ROWS_PER_STATEMENT));
+            StringBuilder idList = new StringBuilder("(");
+            StringBuilder insert = new StringBuilder("INSERT INTO archive.journal_entries (")
+                    .append(COLUMNS).append(") VALUES ");
+            Object[] ids = new Object[chunk.size()];
+            Object[] values = new Object[chunk.size() * 12];
+            for (int i = 0; i < chunk.size(); i++) {
+                JournalEntryEntity entry = chunk.get(i);
+                idList.append(i == 0 ? "?" : ", ?");
+                insert.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NULL)");
+                ids[i] = entry.getId();
+                int v = i * 12;
+                values[v] = entry.getId();
+                values[v + 1] = entry.getTimestamp();
+                values[v + 2] = entry.getEpochDay();
+                values[v + 3] = entry.getMoodLevel();
+                values[v + 4] = StringListConverter.fromList(entry.getEmotions());
+                values[v + 5] = entry.getEmotionMask();
+                values[v + 6] = entry.getSleepMask();
+                values[v + 7] = StringListConverter.fromList(entry.getCustomSleepTags());
+                values[v + 8] = StringListConverter.fromList(entry.getActivities());
+                values[v + 9] = entry.getNote();
+                values[v + 10] = entry.getPhotoPath();
+                values[v + 11] = entry.getVoiceMemoPath();
+            }
+            idList.append(')');
+            db.execSQL("DELETE FROM archive.journal_entries WHERE id IN " + idList, ids);
+            db.execSQL("DELETE FROM archive.entry_tags WHERE entryId IN " + idList, ids);
+            db.execSQL(insert.toString(), values);
+        }
+        insertLinks(db, links);
+    }
+
+    private static void insertLinks(SupportSQLiteDatabase db, List<EntryTagEntity> links) {
+        for (int from = 0; from < links.size(); from += LINKS_PER_STATEMENT) {
+            List<EntryTagEntity> chunk = links.subList(from, Math.min(links.size(), from + LINKS_PER_STATEMENT));
+            StringBuilder insert = new StringBuilder("INSERT OR IGNORE INTO archive.entry_tags (entryId, tagId) VALUES ");
+            Object[] values = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                insert.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+                values[i * 2] = chunk.get(i).getEntryId();
+                values[i * 2 + 1] = chunk.get(i).getTagId();
+            }
+            db.execSQL(insert.toString(), values);
+        }
+    }
+
+    /**
+     * Read the archived entries of a day so the caller can write them back into the
+     * journal; the archive copies are dropped by {@link #settle} after the commit
+     * @param epochDay The epoch day
+     * @return Complete entries of the day, empty if none are archived
+     */
+    List<JournalEntryEntity> checkOutDay(long epochDay) {
+        if (!mayContainDay(epochDay)) {
+            return new ArrayList<>();
+        }
+        return checkOut("SELECT " + COLUMNS + " FROM archived_entries WHERE epochDay = ?", epochDay);
+    }
+
+    private List<JournalEntryEntity> checkOut(String sql, Object... args) {
+        List<JournalEntryEntity> entries = queryEntries(sql, args);
+        if (!entries.isEmpty()) {
+            // Until the writer's transaction ends, the entries are visible in both or neither
+            beginMove();
+            shadowed = true;
+        }
+        return entries;
+    }
+
+    /**
+     * Delete archive rows that also exist in the journal and tighten the bounds
+     */
+    private void dropShadowed() {
+        if (!shadowed || isEmpty()) {
+            return;
+        }
+        SupportSQLiteDatabase db = getConnection();
+        shadowed = false;
+        db.execSQL("DELETE FROM archive.journal_entries WHERE id IN (SELECT id FROM journal.journal_entries)");
+        db.execSQL("DELETE FROM archive.entry_tags WHERE entryId IN (SELECT id FROM journal.journal_entries)");
+        updateBounds(db);
+        changed();
+    }
+
+    // ========== Tombstones ==========
+
+    /**
+     * Soft-delete every live archived entry in place, e.g. once the journal was
+     * deleted or replaced; compaction purges them like the journal's tombstones
+     * @param deletedAt Deletion time in milliseconds
+     */
+    void markAllDeleted(long deletedAt) {
+        if (isEmpty()) {
+            return;
+        }
+        getConnection().execSQL("UPDATE archive.journal_entries SET deletedAt = ? WHERE deletedAt IS NULL",
+                new Object[]{deletedAt});
+        changed();
+    }
+
+    /**
+     * Undo a {@link #markAllDeleted}
+     * @param deletedAt Deletion time it used
+     * @return Number of entries restored
+     */
+    int restoreDeletedAt(long deletedAt) {
+        if (isEmpty()) {
+            return 0;
+        }
+        SupportSQLiteDatabase db = getConnection();
+        int restored;
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM archive.journal_entries WHERE deletedAt = ?",
+                new Object[]{deletedAt})) {
+            restored = cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+        if (restored > 0) {
+            db.execSQL("UPDATE archive.journal_entries SET deletedAt = NULL WHERE deletedAt = ?",
+                    new Object[]{deletedAt});
+            changed();
+        }
+        return restored;
+    }
+
+    /**
+     * Get archived tombstones older than a cutoff, oldest first
+     * @param cutoff Tombstones deleted before this time are returned
+     * @param limit Maximum number of tombstones
+     * @return List of tombstones with their media paths
+     */
+    List<Tombstone> getExpiredTombstones(long cutoff, int limit) {
+        List<Tombstone> tombstones = new ArrayList<>();
+        if (isEmpty()) {
+            return tombstones;
+        }
+        try (Cursor cursor = getConnection().query("SELECT id, photoPath, voiceMemoPath FROM archive.journal_entries "
+                + "WHERE deletedAt IS NOT NULL AND deletedAt < ? ORDER BY deletedAt ASC LIMIT ?",
+                new Object[]{cutoff, limit})) {
+            while (cursor.moveToNext()) {
+                Tombstone tombstone = new Tombstone();
+                tombstone.id = cursor.getLong(0);
+                tombstone.photoPath = cursor.isNull(1) ? null : cursor.getString(1);
+                tombstone.voiceMemoPath = cursor.isNull(2) ? null : cursor.getString(2);
+                tombstones.add(tombstone);
+            }
+        }
+        return tombstones;
+    }
+
+    /**
+     * Permanently delete archived entries and their tag links, and tighten the bounds.
+     * Runs on the writer thread, so no move of the same entries is in progress.
+     * @param ids IDs of the entries
+     */
+    void purge(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        SupportSQLiteDatabase db = getConnection();
+        for (int from = 0; from < ids.size(); from += ROWS_PER_STATEMENT) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + ROWS_PER_STATEMENT));
+            StringBuilder idList = new StringBuilder("(");
+            for (int i = 0; i < chunk.size(); i++) {
+                idList.append(i == 0 ? "?" : ", ?");
+            }
+            idList.append(')');
+            Object[] args = chunk.toArray();
+            db.execSQL("DELETE FROM archive.journal_entries WHERE id IN " + idList, args);
+            db.execSQL("DELETE FROM archive.entry_tags WHERE entryId IN " + idList, args);
+        }
+        updateBounds(db);
+        changed();
+    }
+
+    // ========== Local Days ==========
+
+    /**
+     * Re-bucket every archived entry into the local days of the current time zone,
+     * with one range update per day, e.g. after the device time zone changed.
+     * Each statement commits on its own, like {@link #insertAll}; rows already in
+     * the right day are not rewritten, so an interrupted run is simply repeated.
+     */
+    void recomputeEpochDays() {
+        if (isEmpty()) {
+            return;
+        }
+        SupportSQLiteDatabase db = getConnection();
+        Long timestamp = getFirstTimestampAfter(db, Long.MIN_VALUE);
+        while (timestamp != null) {
+            long epochDay = DateUtils.getEpochDay(timestamp);
+            long endOfDay = DateUtils.getEndOfEpochDay(epochDay);
+            db.execSQL("UPDATE archive.journal_entries SET epochDay = ? "
+                    + "WHERE timestamp >= ? AND timestamp <= ? AND epochDay != ?",
+                    new Object[]{epochDay, DateUtils.getStartOfEpochDay(epochDay), endOfDay, epochDay});
+            timestamp = getFirstTimestampAfter(db, endOfDay);
+        }
+        updateBounds(db);
+        changed();
+    }
+
+    private static Long getFirstTimestampAfter(SupportSQLiteDatabase db, long after) {
+        try (Cursor cursor = db.query("SELECT MIN(timestamp) FROM archive.journal_entries WHERE timestamp > ?",
+                new Object[]{after})) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : null;
+        }
+    }
+
+    /**
+     * Aggregate the archived entries into one summary row per stored epoch day
+     * (see {@code DailySummaryDao.insertAllFromEntries}), e.g. to rebuild the
+     * summaries of archived days, which are kept in the journal database
+     * @return Summaries, oldest first
+     */
+    List<DailySummaryEntity> getDailySummaries() {
+        List<DailySummaryEntity> summaries = new ArrayList<>();
+        if (isEmpty()) {
+            return summaries;
+        }
+        try (Cursor cursor = getConnection().query("SELECT e.epochDay, COUNT(*), SUM(e.moodLevel), "
+                + "MIN(e.moodLevel), MAX(e.moodLevel), "
+                + "(SELECT f.moodLevel FROM archived_entries f WHERE f.epochDay = e.epochDay "
+                + "AND f.deletedAt IS NULL ORDER BY f.timestamp ASC, f.id ASC LIMIT 1), "
+                + "(SELECT l.moodLevel FROM archived_entries l WHERE l.epochDay = e.epochDay "
+                + "AND l.deletedAt IS NULL ORDER BY l.timestamp DESC, l.id DESC LIMIT 1), "
+                + "SUM(CASE WHEN " + HAS_PHOTO + " THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + HAS_VOICE + " THEN 1 ELSE 0 END) "
+                + "FROM archived_entries e WHERE e.deletedAt IS NULL "
+                + "GROUP BY e.epochDay ORDER BY e.epochDay")) {
+            while (cursor.moveToNext()) {
+                DailySummaryEntity summary = new DailySummaryEntity();
+                summary.setEpochDay(cursor.getLong(0));
+                summary.setEntryCount(cursor.getInt(1));
+                summary.setMoodSum(cursor.getInt(2));
+                summary.setMinMood(cursor.getInt(3));
+                summary.setMaxMood(cursor.getInt(4));
+                summary.setFirstMood(cursor.getInt(5));
+                summary.setLastMood(cursor.getInt(6));
+                summary.setPhotoCount(cursor.getInt(7));
+                summary.setVoiceCount(cursor.getInt(8));
+                summaries.add(summary);
+            }
+        }
+        return summaries;
+    }
+
+    // ========== Queries over Journal and Archive ==========
+
+    /**
+     * Get an entry of journal or archive in one statement, so an entry moving
+     * between them meanwhile is still found
+     * @param id The entry ID
+     * @return The entry, or null if it does not exist
+     */
+    JournalEntryEntity getEntry(long id) {
+        if (isEmpty()) {
+            return null;
+        }
+        List<JournalEntryEntity> entries = queryEntries(
+                "SELECT " + COLUMNS + " FROM " + ALL_ENTRIES + " WHERE id = ? AND deletedAt IS NULL", id);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /**
+     * Get the local day of an archived entry
+     * @param id The entry ID
+     * @return The epoch day, or null if the entry is not archived
+     */
+    Long getEpochDay(long id) {
+        if (isEmpty()) {
+            return null;
+        }
+        try (Cursor cursor = getConnection().query(
+                "SELECT epochDay FROM archived_entries WHERE id = ?", new Object[]{id})) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : null;
+        }
+    }
+
+    /**
+     * Count the live entries of journal and archive matching a condition
+     * @param condition Condition over the journal_entries columns, e.g. {@link #IN_RANGE}
+     * @param args Arguments of the condition
+     * @return Number of matching entries
+     */
+    int count(String condition, Object... args) {
+        try (Cursor cursor = getConnection().query("SELECT COUNT(*) FROM " + ALL_ENTRIES
+                + " WHERE deletedAt IS NULL AND " + condition, args)) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    /**
+     * Get the live entries of journal and archive matching a condition
+     * @param condition Condition over the journal_entries columns, e.g. {@link #IN_RANGE}
+     * @param newestFirst Whether to order newest entries first
+     * @param limit Maximum number of entries, -1 for all
+     * @param args Arguments of the condition
+     * @return List of matching entries
+     */
+    List<JournalEntryEntity> getEntries(String condition, boolean newestFirst, int limit, Object... args) {
+        return getEntries(ALL_ENTRIES, condition, newestFirst, limit, args);
+    }
+
+    /**
+     * Get archived entries that are not in the journal, newest first,
+     * e.g. to complete a list of the journal's own
+     * @param condition Condition over the journal_entries columns, e.g. {@link #HAS_PHOTO}
+     * @param limit Maximum number of entries, -1 for all
+     * @param args Arguments of the condition
+     * @return List of matching entries
+     */
+    List<JournalEntryEntity> getArchivedEntries(String condition, int limit, Object... args) {
+        if (isEmpty()) {
+            return new ArrayList<>();
+        }
+        return getEntries("archived_entries", condition, true, limit, args);
+    }
+
+    private List<JournalEntryEntity> getEntries(String table, String condition, boolean newestFirst, int limit,
+                                                Object... args) {
+        return queryEntries("SELECT " + COLUMNS + " FROM " + table
+                + " WHERE deletedAt IS NULL AND " + condition
+                + " ORDER BY timestamp " + (newestFirst ? "DESC" : "ASC") + " LIMIT " + limit, args);
+    }
+
+    /**
+     * Get the average mood of journal and archive in a date range
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return The average, or null if the range has no entries
+     */
+    Float getAverageMood(long startTime, long endTime) {
+        try (Cursor cursor = getConnection().query("SELECT AVG(moodLevel) FROM " + ALL_ENTRIES
+                + " WHERE deletedAt IS NULL AND " + IN_RANGE, new Object[]{startTime, endTime})) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? (float) cursor.getDouble(0) : null;
+        }
+    }
+
+    /**
+     * Get entry and media counts per mood level of journal and archive in a date range
+     * (see {@code JournalEntryDao.getMoodLevelStatsInRange})
+     */
+    List<MoodLevelStats> getMoodLevelStatsInRange(long startTime, long endTime) {
+        List<MoodLevelStats> rows = new ArrayList<>();
+        try (Cursor cursor = getConnection().query("SELECT moodLevel, COUNT(*), "
+                + "SUM(CASE WHEN " + HAS_PHOTO + " THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + HAS_VOICE + " THEN 1 ELSE 0 END) "
+                + "FROM " + ALL_ENTRIES + " WHERE deletedAt IS NULL AND " + IN_RANGE
+                + " GROUP BY moodLevel", new Object[]{startTime, endTime})) {
+            while (cursor.moveToNext()) {
+                MoodLevelStats row = new MoodLevelStats();
+                row.moodLevel = cursor.getInt(0);
+                row.entryCount = cursor.getInt(1);
+                row.photoCount = cursor.getInt(2);
+                row.voiceCount = cursor.getInt(3);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Full-text search over journal and archive (see {@code JournalEntryDao.searchEntriesByKeyword})
+     * @param query FTS4 MATCH expression
+     * @return List of matching entries, newest first
+     */
+    List<JournalEntryEntity> searchEntriesByKeyword(String query) {
+        return queryEntries(searchSql(E_COLUMNS, "") + " ORDER BY timestamp DESC", query, query);
+    }
+
+    /**
+     * Full-text search over journal and archive with ranking and highlighting data
+     * (see {@code JournalEntryDao.searchEntries})
+     * @param query FTS4 MATCH expression
+     * @param limit Maximum number of results
+     * @return Unordered matching entries with matchinfo and offsets
+     */
+    List<EntrySearchResult> searchEntries(String query, int limit) {
+        List<EntrySearchResult> results = new ArrayList<>();
+        String extra = ", matchinfo(journal_entries_fts, 'pcx') AS matchInfo, "
+                + "offsets(journal_entries_fts) AS matchOffsets";
+        try (Cursor cursor = getConnection().query(searchSql(E_COLUMNS, extra) + " LIMIT ?",
+                new Object[]{query, query, limit})) {
+            EntryCursor entries = new EntryCursor(cursor);
+            int matchInfo = cursor.getColumnIndexOrThrow("matchInfo");
+            int matchOffsets = cursor.getColumnIndexOrThrow("matchOffsets");
+            while (entries.moveToNext()) {
+                EntrySearchResult result = new EntrySearchResult();
+                result.entry = entries.getEntry();
+                result.matchInfo = cursor.getBlob(matchInfo);
+                result.matchOffsets = cursor.getString(matchOffsets);
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Get the IDs of journal and archive entries matching a full-text query
+     * @param query FTS4 MATCH expression
+     * @return List of matching entry IDs
+     */
+    List<Long> searchEntryIds(String query) {
+        List<Long> ids = new ArrayList<>();
+        try (Cursor cursor = getConnection().query(searchSql("e.id", ""), new Object[]{query, query})) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Build a full-text search over both databases, each side joined with its own index
+     * so ranking data stays per index. Takes the MATCH expression twice.
+     */
+    private static String searchSql(String columns, String extra) {
+        String select = "SELECT " + columns + extra + " FROM ";
+        String match = " WHERE journal_entries_fts MATCH ? AND e.deletedAt IS NULL";
+        return select + "journal.journal_entries_fts INNER JOIN journal.journal_entries AS e "
+                + "ON e.id = journal_entries_fts.rowid" + match
+                + " UNION ALL "
+                + select + "archive.journal_entries_fts INNER JOIN archived_entries AS e "
+                + "ON e.id = journal_entries_fts.rowid" + match;
+    }
+
+    /**
+     * Get the live entries of journal and archive tagged with a tag
+     * (see {@code TagDao.getEntriesWithTag})
+     * @param category The tag category
+     * @param name The tag name (case-insensitive)
+     * @return List of tagged entries, newest first
+     */
+    List<JournalEntryEntity> getEntriesWithTag(String category, String name) {
+        return queryEntries(taggedSql(E_COLUMNS, "t.category = ? AND t.name = ?") + " ORDER BY timestamp DESC",
+                category, name, category, name);
+    }
+
+    /**
+     * Get the live entries of journal and archive carrying a tag and all default tags
+     * of two masks (see {@code JournalEntryDao.getEntriesWithTagAndMasks})
+     * @param category The tag category
+     * @param name The tag name (case-insensitive)
+     * @param emotionMask Required emotion bits, 0 for none
+     * @param sleepMask Required sleep bits, 0 for none
+     * @return List of matching entries, newest first
+     */
+    List<JournalEntryEntity> getEntriesWithTagAndMasks(String category, String name, long emotionMask, long sleepMask) {
+        String condition = "t.category = ? AND t.name = ? "
+                + "AND (e.emotionMask & ?) = ? AND (e.sleepMask & ?) = ?";
+        Object[] args = {category, name, emotionMask, emotionMask, sleepMask, sleepMask};
+        Object[] twice = new Object[args.length * 2];
+        System.arraycopy(args, 0, twice, 0, args.length);
+        System.arraycopy(args, 0, twice, args.length, args.length);
+        return queryEntries(taggedSql(E_COLUMNS, condition) + " ORDER BY timestamp DESC", twice);
+    }
+
+    /**
+     * Get how often each tag of a category was used in journal and archive in a date range
+     * (see {@code TagDao.getTagFrequencies})
+     * @param category The tag category
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @param limit Maximum number of tags to return
+     * @return Tags ordered by usage, most used first
+     */
+    List<TagCount> getTagFrequencies(String category, long startTime, long endTime, int limit) {
+        List<TagCount> counts = new ArrayList<>();
+        String condition = "t.category = ? AND e.timestamp >= ? AND e.timestamp <= ?";
+        try (Cursor cursor = getConnection().query("SELECT name, COUNT(*) AS count FROM ("
+                        + taggedSql("t.id, t.name", condition) + ") GROUP BY id ORDER BY count DESC, name ASC LIMIT ?",
+                new Object[]{category, startTime, endTime, category, startTime, endTime, limit})) {
+            while (cursor.moveToNext()) {
+                TagCount count = new TagCount();
+                count.name = cursor.getString(0);
+                count.count = cursor.getInt(1);
+                counts.add(count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Build a join of the entries of both databases with their tag links and the
+     * journal's tag dictionary. Takes the arguments of the condition twice.
+     */
+    private static String taggedSql(String columns, String condition) {
+        String select = "SELECT " + columns + " FROM ";
+        String where = " WHERE " + condition + " AND e.deletedAt IS NULL";
+        return select + "journal.journal_entries AS e "
+                + "INNER JOIN journal.entry_tags AS et ON et.entryId = e.id "
+                + "INNER JOIN journal.tags AS t ON t.id = et.tagId" + where
+                + " UNION ALL "
+                + select + "archived_entries AS e "
+                + "INNER JOIN archive.entry_tags AS et ON et.entryId = e.id "
+                + "INNER JOIN journal.tags AS t ON t.id = et.tagId" + where;
+    }
+
+    /**
+     * Get one keyset page of summaries over journal and archive
+     * (see {@link EntryFilter#toPageQuery})
+     */
+    List<EntrySummary> getSummaryPage(EntryFilter filter, EntryFilter.PageKey after, int limit) {
+        return querySummaries(filter.toPageQuery(after, limit, ALL_ENTRIES, FTS_TABLES));
+    }
+
+    /**
+     * Get summaries of the newest archived entries that are not in the journal,
+     * e.g. to complete a list of the journal's own
+     * @param limit Maximum number of entries
+     * @return Summaries, newest first
+     */
+    List<EntrySummary> getArchivedSummaries(int limit) {
+        if (isEmpty()) {
+            return new ArrayList<>();
+        }
+        return querySummaries(EntryFilter.all().toPageQuery(null, limit, "archived_entries", FTS_TABLES));
+    }
+
+    private List<EntrySummary> querySummaries(SupportSQLiteQuery query) {
+        List<EntrySummary> page = new ArrayList<>();
+        try (Cursor cursor = getConnection().query(query)) {
+            int id = cursor.getColumnIndexOrThrow("id");
+            int timestamp = cursor.getColumnIndexOrThrow("timestamp");
+            int epochDay = cursor.getColumnIndexOrThrow("epochDay");
+            int moodLevel = cursor.getColumnIndexOrThrow("moodLevel");
+            int notePreview = cursor.getColumnIndexOrThrow("notePreview");
+            int firstEmotion = cursor.getColumnIndexOrThrow("firstEmotion");
+            while (cursor.moveToNext()) {
+                EntrySummary summary = new EntrySummary();
+                summary.id = cursor.getLong(id);
+                summary.timestamp = cursor.getLong(timestamp);
+                summary.epochDay = cursor.getLong(epochDay);
+                summary.moodLevel = cursor.getInt(moodLevel);
+                summary.notePreview = cursor.getString(notePreview);
+                summary.firstEmotion = cursor.getString(firstEmotion);
+                page.add(summary);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Count journal and archive entries matching a filter (see {@link EntryFilter#toCountQuery})
+     */
+    int countEntries(EntryFilter filter) {
+        try (Cursor cursor = getConnection().query(filter.toCountQuery(ALL_ENTRIES, FTS_TABLES))) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    /**
+     * Open a cursor over the live entries of journal and archive in a time range
+     * (see {@link EntryCursor#buildQuery})
+     */
+    EntryCursor openEntryCursor(Set<EntryCursor.Column> columns, long startTime, long endTime, boolean newestFirst) {
+        return new EntryCursor(getConnection().query(
+                EntryCursor.buildQuery(columns, startTime, endTime, newestFirst, ALL_ENTRIES)));
+    }
+
+    /**
+     * Count the archived entries that reference a media file
+     * @param path The media file path
+     * @return Number of referencing entries
+     */
+    int countMediaReferences(String path) {
+        if (isEmpty()) {
+            return 0;
+        }
+        try (Cursor cursor = getConnection().query("SELECT COUNT(*) FROM archive.journal_entries "
+                + "WHERE photoPath = ? OR voiceMemoPath = ?", new Object[]{path, path})) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    private List<JournalEntryEntity> queryEntries(String sql, Object... args) {
+        List<JournalEntryEntity> entries = new ArrayList<>();
+        try (EntryCursor cursor = new EntryCursor(getConnection().query(sql, args))) {
+            while (cursor.moveToNext()) {
+                entries.add(cursor.getEntry());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Set the bounds to those of the archive rows
+     */
+    private void updateBounds(SupportSQLiteDatabase db) {
+        try (Cursor cursor = db.query("SELECT MAX(timestamp), MAX(epochDay) FROM archive.journal_entries")) {
+            if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                setBounds(cursor.getLong(0), cursor.getLong(1));
+            } else {
+                setBounds(NONE, NONE);
+            }
+        }
+    }
+
+    private void setBounds(long timestamp, long day) {
+        newestTimestamp = timestamp;
+        newestDay = day;
+        prefs.edit()
+                .putLong(KEY_NEWEST_TIMESTAMP, timestamp)
+                .putLong(KEY_NEWEST_DAY, day)
+                .apply();
+    }
+
+    // ========== Connection ==========
+
+    /**
+     * Open the attaching connection on first use. Its main database is in memory;
+     * the journal is attached as {@code journal}, the archive file as {@code archive}.
+     */
+    private synchronized SupportSQLiteDatabase getConnection() {
+        if (connection != null) {
+            return connection;
+        }
+        // Opening Room's connection first makes sure the journal is created and migrated
+        String journalPath = JournalDatabase.getInstance(context).getOpenHelper().getWritableDatabase().getPath();
+        SupportSQLiteOpenHelper helper = new FrameworkSQLiteOpenHelperFactory().create(SupportSQLiteOpenHelper.Configuration
+                .builder(context)
+                .name(null)
+                .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                    }
+
+                    @Override
+                    public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                    }
+                })
+                .build());
+        SupportSQLiteDatabase db = helper.getWritableDatabase();
+        db.execSQL("ATTACH DATABASE ? AS journal", new Object[]{journalPath});
+        db.execSQL("ATTACH DATABASE ? AS archive", new Object[]{context.getDatabasePath(ARCHIVE_NAME).getPath()});
+        createSchema(db);
+        db.execSQL("CREATE TEMP VIEW archived_entries AS SELECT " + COLUMNS + " FROM archive.journal_entries "
+                + "WHERE id NOT IN (SELECT id FROM journal.journal_entries)");
+        db.execSQL("CREATE TEMP VIEW " + ALL_ENTRIES + " AS SELECT " + COLUMNS + " FROM journal.journal_entries "
+                + "UNION ALL SELECT " + COLUMNS + " FROM archived_entries");
+        connection = db;
+        return connection;
+    }
+
+    /**
+     * Create or upgrade the archive tables, indexes and full-text triggers.
+     * The archive table mirrors journal_entries: it is created from the journal's own
+     * columns, and columns the journal gained by a migration since are added on open,
+     * so the archive never needs a migration of its own for them. IDs are kept, so
+     * they are never reused. Every statement is idempotent and the version is set
+     * last, so an interrupted upgrade is simply repeated; no transaction, which would
+     * lock the journal too.
+     */
+    private static void createSchema(SupportSQLiteDatabase db) {
+        int version;
+        try (Cursor cursor = db.query("PRAGMA archive.user_version")) {
+            version = cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+        List<String[]> journalColumns = getColumnDefinitions(db, "journal");
+        if (version < 1) {
+            StringBuilder create = new StringBuilder("CREATE TABLE IF NOT EXISTS archive.`journal_entries` (");
+            for (int i = 0; i < journalColumns.size(); i++) {
+                String[] column = journalColumns.get(i);
+                create.append(i == 0 ? "" : ", ").append(column[1]);
+            }
+            db.execSQL(create.append(')').toString());
+            db.execSQL("CREATE INDEX IF NOT EXISTS archive.`index_journal_entries_timestamp` "
+                    + "ON `journal_entries` (`timestamp`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS archive.`index_journal_entries_epochDay_timestamp` "
+                    + "ON `journal_entries` (`epochDay`, `timestamp`)");
+            // Same index and sync triggers as the journal (see Migrations.MIGRATION_3_4)
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS archive.`journal_entries_fts` USING FTS4("
+                    + "`note` TEXT, `emotions` TEXT, `activities` TEXT, "
+                    + "tokenize=unicode61, content=`journal_entries`, prefix=`2,3`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS archive.room_fts_content_sync_journal_entries_fts_BEFORE_UPDATE "
+                    + "BEFORE UPDATE ON `journal_entries` BEGIN "
+                    + "DELETE FROM `journal_entries_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS archive.room_fts_content_sync_journal_entries_fts_BEFORE_DELETE "
+                    + "BEFORE DELETE ON `journal_entries` BEGIN "
+                    + "DELETE FROM `journal_entries_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS archive.room_fts_content_sync_journal_entries_fts_AFTER_UPDATE "
+                    + "AFTER UPDATE ON `journal_entries` BEGIN "
+                    + "INSERT INTO `journal_entries_fts`(`docid`, `note`, `emotions`, `activities`) "
+                    + "VALUES (NEW.`rowid`, NEW.`note`, NEW.`emotions`, NEW.`activities`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS archive.room_fts_content_sync_journal_entries_fts_AFTER_INSERT "
+                    + "AFTER INSERT ON `journal_entries` BEGIN "
+                    + "INSERT INTO `journal_entries_fts`(`docid`, `note`, `emotions`, `activities`) "
+                    + "VALUES (NEW.`rowid`, NEW.`note`, NEW.`emotions`, NEW.`activities`); END");
+            // Tag links of archived entries, referring to the journal's tag dictionary
+            db.execSQL("CREATE TABLE IF NOT EXISTS archive.`entry_tags` (`entryId` INTEGER NOT NULL, "
+                    + "`tagId` INTEGER NOT NULL, PRIMARY KEY(`entryId`, `tagId`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS archive.`index_entry_tags_tagId_entryId` "
+                    + "ON `entry_tags` (`tagId`, `entryId`)");
+        }
+        if (version < 2) {
+            // Tombstones of deleted or replaced archived entries, found by compaction
+            db.execSQL("CREATE INDEX IF NOT EXISTS archive.`index_journal_entries_deletedAt` "
+                    + "ON `journal_entries` (`deletedAt`)");
+        }
+
+        Set<String> archiveColumns = new HashSet<>();
+        for (String[] column : getColumnDefinitions(db, "archive")) {
+            archiveColumns.add(column[0]);
+        }
+        for (String[] column : journalColumns) {
+            if (!archiveColumns.contains(column[0])) {
+                // Room migrations give added NOT NULL columns a default, as ADD COLUMN requires
+                db.execSQL("ALTER TABLE archive.`journal_entries` ADD COLUMN " + column[1]);
+            }
+        }
+        if (version != SCHEMA_VERSION) {
+            db.execSQL("PRAGMA archive.user_version = " + SCHEMA_VERSION);
+        }
+    }
+
+    /**
+     * Read the columns of a journal_entries table as column definitions for
+     * CREATE TABLE and ADD COLUMN. The primary key loses AUTOINCREMENT, as the
+     * archive keeps the journal's IDs.
+     * @param schema {@code journal} or {@code archive}
+     * @return Name and definition of every column, empty if the table does not exist
+     */
+    private static List<String[]> getColumnDefinitions(SupportSQLiteDatabase db, String schema) {
+        List<String[]> columns = new ArrayList<>();
+        try (Cursor cursor = db.query("PRAGMA " + schema + ".table_info(`journal_entries`)")) {
+            int name = cursor.getColumnIndexOrThrow("name");
+            int type = cursor.getColumnIndexOrThrow("type");
+            int notNull = cursor.getColumnIndexOrThrow("notnull");
+            int defaultValue = cursor.getColumnIndexOrThrow("dflt_value");
+            int primaryKey = cursor.getColumnIndexOrThrow("pk");
+            while (cursor.moveToNext()) {
+                StringBuilder definition = new StringBuilder("`").append(cursor.getString(name)).append("` ")
+                        .append(cursor.getString(type));
+                if (cursor.getInt(primaryKey) > 0) {
+                    definition.append(" PRIMARY KEY");
+                }
+                if (cursor.getInt(notNull) != 0) {
+                    definition.append(" NOT NULL");
+                }
+                if (!cursor.isNull(defaultValue)) {
+                    definition.append(" DEFAULT ").append(cursor.getString(defaultValue));
+                }
+                columns.add(new String[]{cursor.getString(name), definition.toString()});
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,186 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.repository;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.dao.JournalEntryDao;
+import gui.ceng.mu.edu.mentalhealthjournal.data.dao.TagDao;
+import gui.ceng.mu.edu.mentalhealthjournal.data.database.DatabaseScheduler;
+import gui.ceng.mu.edu.mentalhealthjournal.data.database.JournalDatabase;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.Tombstone;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background maintenance of the journal database: permanently removes entries,
+ * archived ones included, deleted longer than {@link #RETENTION_MS} ago together
+ * with their media files, then lets SQLite re-analyze and, if much space was freed,
+ * rebuild the file.
+ * Deleting on the UI path only sets a tombstone, so its latency stays near zero.
+ */
+public class JournalCompactor {
+
+    private static final String TAG = "JournalCompactor";
+
+    // How long deleted entries can still be restored
+    public static final long RETENTION_MS = TimeUnit.DAYS.toMillis(7);
+
+    // Tombstones purged per write, so user writes are never blocked for long
+    private static final int PURGE_BATCH_SIZE = 100;
+
+    // VACUUM when at least this fraction of the file is free pages
+    private static final float VACUUM_FREE_RATIO = 0.25f;
+
+    private final JournalDatabase database;
+    private final JournalEntryDao journalEntryDao;
+    private final TagDao tagDao;
+    private final JournalArchive archive;
+
+    // The journal's single writer, which the purges go through like any other write
+    private final GroupCommitWriter writer;
+
+    public JournalCompactor(Context context) {
+        database = JournalDatabase.getInstance(context);
+        journalEntryDao = database.journalEntryDao();
+        tagDao = database.tagDao();
+        archive = JournalArchive.getInstance(context);
+        writer = JournalRepository.getWriter(database, DatabaseScheduler.getInstance(), archive);
+    }
+
+    /**
+     * Purge expired tombstones and optimize the database.
+     * Must be called on a background thread.
+     * @return What was done
+     */
+    public Result compact() {
+        return compact(System.currentTimeMillis() - RETENTION_MS);
+    }
+
+    /**
+     * Purge tombstones deleted before a cutoff and optimize the database.
+     * Must be called on a background thread.
+     * @param cutoff Tombstones deleted before this time are purged
+     * @return What was done
+     */
+    public Result compact(long cutoff) {
+        int purged = 0;
+        int filesDeleted = 0;
+        List<Tombstone> batch;
+        do {
+            batch = journalEntryDao.getExpiredTombstones(cutoff, PURGE_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (Tombstone tombstone : batch) {
+                ids.add(tombstone.id);
+            }
+            JournalRepository.await(writer.submit(() -> {
+                for (long id : ids) {
+                    tagDao.deleteTagsForEntry(id);
+                }
+                journalEntryDao.deleteByIds(ids);
+                return null;
+            }, null));
+            purged += batch.size();
+            // Files go only after the rows are committed, so a crash can leak a file but never lose one
+            for (Tombstone tombstone : batch) {
+                filesDeleted += deleteMediaIfUnreferenced(tombstone.photoPath);
+                filesDeleted += deleteMediaIfUnreferenced(tombstone.voiceMemoPath);
+            }
+        } while (batch.size() == PURGE_BATCH_SIZE);
+        // Archived tombstones, e.g. left by deleting or replacing the whole journal
+        do {
+            batch = archive.getExpiredTombstones(cutoff, PURGE_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (Tombstone tombstone : batch) {
+                ids.add(tombstone.id);
+            }
+            JournalRepository.await(writer.submit(() -> {
+                archive.purge(ids);
+                return null;
+            }, null));
+            purged += batch.size();
+            for (Tombstone tombstone : batch) {
+                filesDeleted += deleteMediaIfUnreferenced(tombstone.photoPath);
+                filesDeleted += deleteMediaIfUnreferenced(tombstone.voiceMemoPath);
+            }
+        } while (batch.size() == PURGE_BATCH_SIZE);
+
+        boolean vacuumed = optimize();
+        Result result = new Result(purged, filesDeleted, vacuumed);
+        Log.i(TAG, "Compaction finished: " + result);
+        return result;
+    }
+
+    /**
+     * Delete a media file unless another entry, archived or not, still references it
+     * @param path The file path, may be null or empty
+     * @return 1 if the file was deleted, 0 otherwise
+     */
+    private int deleteMediaIfUnreferenced(String path) {
+        if (path == null || path.isEmpty() || journalEntryDao.countMediaReferences(path) > 0
+                || archive.countMediaReferences(path) > 0) {
+            return 0;
+        }
+        File file = new File(path);
+        return file.exists() && file.delete() ? 1 : 0;
+    }
+
+    /**
+     * Refresh query planner statistics and reclaim free pages if there are many
+     * @return Whether the database was vacuumed
+     */
+    private boolean optimize() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        try (Cursor cursor = db.query("PRAGMA optimize")) {
+            cursor.moveToFirst();
+        }
+        long freePages = queryLong(db, "PRAGMA freelist_count");
+        long pages = queryLong(db, "PRAGMA page_count");
+        if (pages == 0 || freePages < pages * VACUUM_FREE_RATIO) {
+            return false;
+        }
+        db.execSQL("VACUUM");
+        return true;
+    }
+
+    private static long queryLong(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    /**
+     * Outcome of one compaction run.
+     */
+    public static final class Result {
+        public final int purgedEntries;
+        public final int deletedFiles;
+        public final boolean vacuumed;
+
+        Result(int purgedEntries, int deletedFiles, boolean vacuumed) {
+            this.purgedEntries = purgedEntries;
+            this.deletedFiles = deletedFiles;
+            this.vacuumed = vacuumed;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "purged=%d files=%d vacuumed=%b",
+                    purgedEntries, deletedFiles, vacuumed);
+        }
+    }
+}
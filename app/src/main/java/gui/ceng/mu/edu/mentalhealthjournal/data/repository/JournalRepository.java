@@ -2,28 +2,109 @@ package gui.ceng.mu.edu.mentalhealthjournal.data.repository;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.room.InvalidationTracker;
 
+import gui.ceng.mu.edu.mentalhealthjournal.data.dao.DailySummaryDao;
 import gui.ceng.mu.edu.mentalhealthjournal.data.dao.JournalEntryDao;
+import gui.ceng.mu.edu.mentalhealthjournal.data.dao.TagDao;
+import gui.ceng.mu.edu.mentalhealthjournal.data.database.DatabaseScheduler;
 import gui.ceng.mu.edu.mentalhealthjournal.data.database.JournalDatabase;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.DailySummaryEntity;
 import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.TagEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntryFilter;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntrySearchResult;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntrySummary;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.PeriodStats;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.TagCount;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.TagVocabulary;
+import gui.ceng.mu.edu.mentalhealthjournal.util.DateUtils;
+import gui.ceng.mu.edu.mentalhealthjournal.util.FtsUtils;
+import gui.ceng.mu.edu.mentalhealthjournal.util.StatsEngine;
+import gui.ceng.mu.edu.mentalhealthjournal.util.StreakTracker;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 /**
  * Repository class that abstracts the data layer.
- * Uses ExecutorService for background thread operations.
+ * Runs database work on the shared {@link DatabaseScheduler} lanes:
+ * reads on the read lane, writes group-committed by one {@link GroupCommitWriter}
+ * on the write lane, bulk jobs in the background.
  * This satisfies the "background thread implementation" requirement.
  */
 public class JournalRepository {
 
+    private final JournalDatabase database;
     private final JournalEntryDao journalEntryDao;
-    
-    // Background thread executor for database operations
-    // Using a fixed thread pool with 2 threads for database operations
-    private final ExecutorService executorService;
+    private final TagDao tagDao;
+    private final DailySummaryDao dailySummaryDao;
+
+    // Cold tier holding entries older than the archive horizon
+    private final JournalArchive archive;
+
+    // Current and longest streak, kept up to date by the write listeners
+    private final StreakTracker streaks;
+
+    // Application-wide executors, shared by every repository instance
+    private final Executor readExecutor;
+    private final Executor backgroundExecutor;
+
+    // The single writer of every repository instance, created with the first one
+    private static GroupCommitWriter sharedWriter;
+    private final GroupCommitWriter writer;
+
+    // Identical reads in flight are shared across all repository instances;
+    // every committed write stops the sharing so later reads see it
+    private static final SingleFlight inFlightReads = new SingleFlight();
+
+    // Maximum number of entries kept by the entry cache
+    private static final int ENTRY_CACHE_SIZE = 64;
+
+    // Recently read entries by ID, shared across repository instances and
+    // kept current by write-through after every committed write
+    private static final EntryCache entryCache = new EntryCache(ENTRY_CACHE_SIZE);
+
+    // Maximum number of period statistics kept by the stats cache
+    private static final int STATS_CACHE_SIZE = 6;
+
+    // Computed period statistics, shared across repository instances and
+    // dropped after every committed write, and by the invalidation tracker
+    // on journal_entries writes made outside this class
+    private static final StatsCache statsCache = new StatsCache(STATS_CACHE_SIZE);
+
+    // Whether statsCache observes the database yet; guarded by the class
+    private static boolean observingWrites;
+
+    // Default number of entries written per batch by the bulk-load API
+    public static final int DEFAULT_BATCH_SIZE = 200;
+
+    // Approximate number of entries moved into the archive per write
+    private static final int ARCHIVE_BATCH_SIZE = 200;
+
+    // Order of lists merged from journal and archive: newest first, like keyset pages
+    private static final Comparator<JournalEntryEntity> ENTRY_ORDER = Comparator
+            .comparingLong(JournalEntryEntity::getTimestamp).thenComparingLong(JournalEntryEntity::getId).reversed();
+    private static final Comparator<EntrySummary> SUMMARY_ORDER = Comparator
+            .comparingLong(EntrySummary::getTimestamp).thenComparingLong(EntrySummary::getId).reversed();
 
     /**
      * Callback interface for async operations
@@ -33,46 +114,122 @@ public class JournalRepository {
         void onError(Exception e);
     }
 
+    /**
+     * Run the dependent stages of a future on the main thread, e.g.
+     * {@code onMainThread(a.thenCombine(b, Result::new)).thenAccept(this::show)}.
+     * Stages added to the returned future run on the main thread; failures pass through.
+     * @param future A future returned by this repository
+     * @return A future completing on the main thread with the same result
+     */
+    public static <T> CompletableFuture<T> onMainThread(CompletableFuture<T> future) {
+        return future.whenCompleteAsync((result, error) -> {}, DatabaseScheduler.getInstance().mainThread());
+    }
+
+    /**
+     * Progress listener for bulk loads, called on the writing thread after each batch
+     */
+    public interface BulkProgressListener {
+        void onProgress(int written, int total);
+    }
+
+    /**
+     * Visitor of streamed entries, called on the streaming thread for each row
+     */
+    public interface EntryVisitor {
+        /**
+         * @param entry The entry; only the requested columns are set
+         * @return Whether to continue with the next entry
+         */
+        boolean visit(JournalEntryEntity entry);
+    }
+
     public JournalRepository(Context context) {
-        JournalDatabase database = JournalDatabase.getInstance(context);
+        database = JournalDatabase.getInstance(context);
         journalEntryDao = database.journalEntryDao();
-        executorService = Executors.newFixedThreadPool(2);
+        tagDao = database.tagDao();
+        dailySummaryDao = database.dailySummaryDao();
+        archive = JournalArchive.getInstance(context);
+        streaks = StreakTracker.getInstance(context);
+        DatabaseScheduler scheduler = DatabaseScheduler.getInstance();
+        readExecutor = scheduler.read();
+        writer = getWriter(database, scheduler, archive);
+        backgroundExecutor = scheduler.background();
+        observeWrites(database);
+    }
+
+    /**
+     * Get the single writer of the journal database, shared with JournalCompactor.
+     * Archive moves begun by a transaction are settled when it ends, committed or not.
+     */
+    static synchronized GroupCommitWriter getWriter(JournalDatabase database, DatabaseScheduler scheduler,
+                                                    JournalArchive archive) {
+        if (sharedWriter == null) {
+            sharedWriter = new GroupCommitWriter(database, scheduler.write(), committed -> archive.settle());
+        }
+        return sharedWriter;
+    }
+
+    private static synchronized void observeWrites(JournalDatabase database) {
+        if (observingWrites) {
+            return;
+        }
+        // Also covers writes made outside this class, e.g. restoring a backup
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("journal_entries") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                statsCache.invalidate();
+            }
+        });
+        observingWrites = true;
     }
 
     /**
      * Insert a new journal entry in background thread
      * @param entry The entry to insert
-     * @param callback Callback to receive the inserted entry's ID
+     * @return Future of the inserted entry's ID
      */
-    public void insert(JournalEntryEntity entry, RepositoryCallback<Long> callback) {
-        executorService.execute(() -> {
-            try {
-                long id = journalEntryDao.insert(entry);
-                if (callback != null) {
-                    callback.onComplete(id);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
+    public CompletableFuture<Long> insertAsync(JournalEntryEntity entry) {
+        return writeDays(() -> applyInsert(entry), id -> {
+            JournalEntryEntity inserted = entry.copy();
+            inserted.setId(id);
+            entryCache.put(inserted);
+            inFlightReads.forgetAll();
+            statsCache.invalidate();
+            streaks.onDayAdded(inserted.getEpochDay());
         });
     }
 
     /**
-     * Insert a new journal entry in background thread (without callback)
+     * Insert a new journal entry in background thread
      * @param entry The entry to insert
+     * @param callback Callback to receive the inserted entry's ID
      */
-    public void insert(JournalEntryEntity entry) {
-        executorService.execute(() -> journalEntryDao.insert(entry));
+    public void insert(JournalEntryEntity entry, RepositoryCallback<Long> callback) {
+        deliver(insertAsync(entry), callback);
     }
 
     /**
-     * Update an existing journal entry in background thread
+     * Update an existing journal entry in background thread.
+     * An entry deleted or purged meanwhile is left alone, not written back.
      * @param entry The entry to update
+     * @return Future completed when the update is committed
      */
-    public void update(JournalEntryEntity entry) {
-        executorService.execute(() -> journalEntryDao.update(entry));
+    public CompletableFuture<Void> updateAsync(JournalEntryEntity entry) {
+        return writeDays(() -> applyUpdate(entry), result -> {
+            if (result == UpdateResult.NOT_FOUND) {
+                entryCache.remove(entry.getId());
+                return;
+            }
+            entryCache.put(entry);
+            inFlightReads.forgetAll();
+            statsCache.invalidate();
+            if (result == UpdateResult.MOVED_DAY) {
+                // The old day may have lost its last entry
+                streaks.invalidate();
+            } else {
+                streaks.onDayAdded(entry.getEpochDay());
+            }
+        }).thenAccept(result -> {});
     }
 
     /**
@@ -81,34 +238,366 @@ public class JournalRepository {
      * @param callback Callback when complete
      */
     public void update(JournalEntryEntity entry, RepositoryCallback<Void> callback) {
-        executorService.execute(() -> {
-            try {
-                journalEntryDao.update(entry);
-                if (callback != null) {
-                    callback.onComplete(null);
+        deliver(updateAsync(entry), callback);
+    }
+
+    /**
+     * Submit a write that may change the days with entries. The streak tracker is told
+     * inside the transaction, before it commits, so its saved state is stale rather than
+     * wrong should the app die before the listener records the change.
+     * @param mutation The write, run inside the writer's batch transaction
+     * @param listener Run after the commit, before the future completes
+     * @return Future of the mutation's result
+     */
+    private <T> CompletableFuture<T> writeDays(GroupCommitWriter.Mutation<T> mutation,
+                                               GroupCommitWriter.CommitListener<T> listener) {
+        // A mutation may run again after its batch rolled back; it is bracketed once
+        AtomicBoolean began = new AtomicBoolean();
+        return writer.submit(() -> {
+            if (began.compareAndSet(false, true)) {
+                streaks.beginWrite();
+            }
+            return mutation.apply();
+        }, listener).whenComplete((result, error) -> {
+            if (began.get()) {
+                streaks.endWrite();
+            }
+        });
+    }
+
+    /**
+     * Insert an entry, index its tags and update its day's summary.
+     * Runs inside the writer's batch transaction.
+     * @param entry The entry to insert
+     * @return The row ID of the inserted entry
+     */
+    private long applyInsert(JournalEntryEntity entry) {
+        stampDerivedColumns(entry);
+        unarchiveDay(entry.getEpochDay());
+        long id = journalEntryDao.insert(entry);
+        tagDao.replaceTagsForEntry(id, entry);
+        dailySummaryDao.recomputeDayOf(entry.getTimestamp());
+        return id;
+    }
+
+    /**
+     * Outcome of {@link #applyUpdate}.
+     */
+    private enum UpdateResult {
+        // Updated within its day
+        SAME_DAY,
+        // Updated and moved to another day, whose old day may have lost its last entry
+        MOVED_DAY,
+        // No live entry with the ID; nothing was written
+        NOT_FOUND
+    }
+
+    /**
+     * Update an entry, re-index its tags and update the summaries of its old and new day.
+     * An archived entry is moved back into the journal first.
+     * Runs inside the writer's batch transaction.
+     * @param entry The entry to update
+     * @return Whether the entry was updated, and whether it moved to another day
+     */
+    private UpdateResult applyUpdate(JournalEntryEntity entry) {
+        Long oldTimestamp = journalEntryDao.getLiveTimestampById(entry.getId());
+        if (oldTimestamp == null) {
+            Long archivedDay = archive.getEpochDay(entry.getId());
+            if (archivedDay != null) {
+                unarchiveDay(archivedDay);
+                oldTimestamp = journalEntryDao.getLiveTimestampById(entry.getId());
+            }
+        }
+        if (oldTimestamp == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        stampDerivedColumns(entry);
+        unarchiveDay(entry.getEpochDay());
+        journalEntryDao.update(entry);
+        tagDao.replaceTagsForEntry(entry.getId(), entry);
+        dailySummaryDao.recomputeDayOf(entry.getTimestamp());
+        if (DateUtils.getEpochDay(oldTimestamp) != DateUtils.getEpochDay(entry.getTimestamp())) {
+            dailySummaryDao.recomputeDayOf(oldTimestamp);
+            return UpdateResult.MOVED_DAY;
+        }
+        return UpdateResult.SAME_DAY;
+    }
+
+    /**
+     * Fill the columns derived from an entry's data before it is written:
+     * the local day of its timestamp and the masks of its default tags
+     * @param entry The entry to write
+     */
+    private static void stampDerivedColumns(JournalEntryEntity entry) {
+        entry.setEpochDay(DateUtils.getEpochDay(entry.getTimestamp()));
+        entry.setEmotionMask(TagVocabulary.EMOTIONS.maskOf(entry.getEmotions()));
+        // Re-encode, so sleep tags restored from an old backup move into the mask
+        entry.setSleepTags(entry.getSleepTags());
+    }
+
+    /**
+     * Move the archived entries of a day back into the journal, so the day can be
+     * written without splitting it between the databases. The day's summary already
+     * covers them. Runs inside the writer's batch transaction; the archive copies stay
+     * hidden until {@link JournalArchive#settle} drops them once the transaction ends.
+     * @param epochDay The epoch day
+     */
+    private void unarchiveDay(long epochDay) {
+        restoreArchived(archive.checkOutDay(epochDay));
+    }
+
+    /**
+     * Write archived entries back into the journal with their tags.
+     * Must run inside a transaction.
+     * @param entries Entries read from the archive
+     */
+    private void restoreArchived(List<JournalEntryEntity> entries) {
+        List<JournalEntryEntity> missing = new ArrayList<>(entries.size());
+        for (JournalEntryEntity entry : entries) {
+            // The archive connection does not see this transaction, so an entry
+            // moved back by an earlier write of the same batch is read again
+            if (journalEntryDao.getTimestampById(entry.getId()) == null) {
+                missing.add(entry);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        journalEntryDao.insertAll(missing);
+        for (JournalEntryEntity entry : missing) {
+            tagDao.replaceTagsForEntry(entry.getId(), entry);
+        }
+    }
+
+    /**
+     * Write many entries in batches, indexing their tags and updating daily summaries.
+     * With {@code replaceAll} the existing journal is cleared and every batch runs in one
+     * transaction, so a failure leaves the old journal untouched (atomic restore); it is
+     * one mutation of the writer, which it holds until the restore is done. Archived
+     * entries are tombstoned in place once it has committed, and purged by compaction;
+     * a crash in between leaves them next to the restored ones, never loses them.
+     * Otherwise each batch is a mutation of its own, bounding how long the writer is held.
+     * Must be called on a background thread.
+     * @param entries The entries to write; entries with an ID of 0 get a new ID
+     * @param batchSize Number of entries per batch
+     * @param replaceAll Whether to replace the whole journal atomically
+     * @param upsert Whether entries with an existing ID update that row instead of failing
+     * @param listener Progress listener, may be null
+     * @return Number of entries written
+     */
+    public int bulkInsertSync(List<JournalEntryEntity> entries, int batchSize, boolean replaceAll,
+                              boolean upsert, BulkProgressListener listener) {
+        int size = Math.max(1, batchSize);
+        int total = entries.size();
+        if (replaceAll) {
+            await(writeDays(() -> {
+                journalEntryDao.deleteAllEntries();
+                dailySummaryDao.deleteAll();
+                Set<Long> days = new HashSet<>();
+                for (int from = 0; from < total; from += size) {
+                    int to = Math.min(total, from + size);
+                    writeBatch(entries.subList(from, to), upsert, days);
+                    if (listener != null) {
+                        listener.onProgress(to, total);
+                    }
                 }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
+                for (long epochDay : days) {
+                    dailySummaryDao.recomputeDay(epochDay);
+                }
+                return null;
+            }, result -> {
+                // The backup replaces archived entries too
+                archive.markAllDeleted(System.currentTimeMillis());
+                entryCache.clear();
+                inFlightReads.forgetAll();
+                statsCache.invalidate();
+                streaks.invalidate();
+            }));
+            return total;
+        }
+        for (int from = 0; from < total; from += size) {
+            int to = Math.min(total, from + size);
+            List<JournalEntryEntity> batch = entries.subList(from, to);
+            await(writeDays(() -> {
+                Set<Long> days = new HashSet<>();
+                unarchiveDaysOf(batch, upsert);
+                writeBatch(batch, upsert, days);
+                for (long epochDay : days) {
+                    dailySummaryDao.recomputeDay(epochDay);
                 }
+                return null;
+            }, result -> {
+                entryCache.clear();
+                inFlightReads.forgetAll();
+                statsCache.invalidate();
+                streaks.invalidate();
+            }));
+            if (listener != null) {
+                listener.onProgress(to, total);
             }
-        });
+        }
+        return total;
+    }
+
+    /**
+     * Move back the archived days a batch writes to: the days of its entries and,
+     * for an upsert, the old days of archived entries it replaces.
+     * Runs inside the writer's batch transaction.
+     * @param batch The entries to write
+     * @param upsert Whether rows with an existing ID are updated
+     */
+    private void unarchiveDaysOf(List<JournalEntryEntity> batch, boolean upsert) {
+        if (archive.isEmpty()) {
+            return;
+        }
+        Set<Long> days = new HashSet<>();
+        for (JournalEntryEntity entry : batch) {
+            days.add(DateUtils.getEpochDay(entry.getTimestamp()));
+            Long archivedDay = upsert && entry.getId() != 0 ? archive.getEpochDay(entry.getId()) : null;
+            if (archivedDay != null) {
+                days.add(archivedDay);
+            }
+        }
+        for (long epochDay : days) {
+            unarchiveDay(epochDay);
+        }
+    }
+
+    /**
+     * Write one batch of entries and index their tags. Runs inside the writer's batch transaction.
+     * @param batch The entries to write
+     * @param upsert Whether to update rows whose ID already exists
+     * @param days Collects the epoch days whose summaries need recomputing
+     */
+    private void writeBatch(List<JournalEntryEntity> batch, boolean upsert, Set<Long> days) {
+        if (upsert) {
+            // An upsert may move an existing entry to another day
+            for (JournalEntryEntity entry : batch) {
+                Long oldTimestamp = entry.getId() != 0 ? journalEntryDao.getTimestampById(entry.getId()) : null;
+                if (oldTimestamp != null) {
+                    days.add(DateUtils.getEpochDay(oldTimestamp));
+                }
+            }
+        }
+        for (JournalEntryEntity entry : batch) {
+            stampDerivedColumns(entry);
+        }
+        List<Long> ids = upsert ? journalEntryDao.upsertAll(batch) : journalEntryDao.insertAll(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            JournalEntryEntity entry = batch.get(i);
+            long id = ids.get(i) > 0 ? ids.get(i) : entry.getId();
+            tagDao.replaceTagsForEntry(id, entry);
+            days.add(DateUtils.getEpochDay(entry.getTimestamp()));
+        }
+    }
+
+    /**
+     * Write many entries in batches in background thread (see {@link #bulkInsertSync})
+     * @param entries The entries to write
+     * @param batchSize Number of entries per batch
+     * @param replaceAll Whether to replace the whole journal atomically
+     * @param listener Progress listener, may be null
+     * @return Future of the number of entries written
+     */
+    public CompletableFuture<Integer> bulkInsertAsync(List<JournalEntryEntity> entries, int batchSize,
+                                                      boolean replaceAll, BulkProgressListener listener) {
+        return CompletableFuture.supplyAsync(
+                () -> bulkInsertSync(entries, batchSize, replaceAll, false, listener), backgroundExecutor);
+    }
+
+    /**
+     * Write many entries in batches in background thread (see {@link #bulkInsertSync})
+     * @param entries The entries to write
+     * @param batchSize Number of entries per batch
+     * @param replaceAll Whether to replace the whole journal atomically
+     * @param listener Progress listener, may be null
+     * @param callback Callback to receive the number of entries written
+     */
+    public void bulkInsert(List<JournalEntryEntity> entries, int batchSize, boolean replaceAll,
+                           BulkProgressListener listener, RepositoryCallback<Integer> callback) {
+        deliver(bulkInsertAsync(entries, batchSize, replaceAll, listener), callback);
+    }
+
+    /**
+     * Tombstone an entry and update its day's summary.
+     * An archived entry is moved back into the journal first, so it can be restored.
+     * Runs inside the writer's batch transaction.
+     * @param id The ID of the entry to delete
+     * @return The epoch day left without entries by the delete, or null
+     */
+    private Long applyDelete(long id) {
+        if (journalEntryDao.getTimestampById(id) == null) {
+            Long archivedDay = archive.getEpochDay(id);
+            if (archivedDay != null) {
+                unarchiveDay(archivedDay);
+            }
+        }
+        if (journalEntryDao.markDeleted(id, System.currentTimeMillis()) == 0) {
+            return null;
+        }
+        long timestamp = journalEntryDao.getTimestampById(id);
+        dailySummaryDao.recomputeDayOf(timestamp);
+        long epochDay = DateUtils.getEpochDay(timestamp);
+        return dailySummaryDao.hasDay(epochDay) ? null : epochDay;
+    }
+
+    /**
+     * Undo the delete of an entry and update its day's summary.
+     * Runs inside the writer's batch transaction.
+     * @param id The ID of the deleted entry
+     * @return Whether the entry was restored
+     */
+    private boolean applyRestore(long id) {
+        Long timestamp = journalEntryDao.getTimestampById(id);
+        if (timestamp != null) {
+            // The rest of the entry's day may have been archived meanwhile
+            unarchiveDay(DateUtils.getEpochDay(timestamp));
+        }
+        if (journalEntryDao.restoreDeleted(id) == 0) {
+            return false;
+        }
+        dailySummaryDao.recomputeDayOf(journalEntryDao.getTimestampById(id));
+        return true;
     }
 
     /**
-     * Delete a journal entry in background thread
+     * Delete a journal entry in background thread.
+     * The entry is kept as a tombstone until compaction, so it can be restored.
      * @param entry The entry to delete
+     * @return Future completed when the delete is committed
      */
-    public void delete(JournalEntryEntity entry) {
-        executorService.execute(() -> journalEntryDao.delete(entry));
+    public CompletableFuture<Void> delete(JournalEntryEntity entry) {
+        return deleteById(entry.getId());
     }
 
     /**
-     * Delete a journal entry by ID in background thread
+     * Delete a journal entry by ID in background thread.
+     * The entry is kept as a tombstone until compaction, so it can be restored.
      * @param id The ID of the entry to delete
+     * @return Future completed when the delete is committed
+     */
+    public CompletableFuture<Void> deleteById(long id) {
+        return writeDays(() -> applyDelete(id), emptiedDay -> {
+            entryCache.remove(id);
+            inFlightReads.forgetAll();
+            statsCache.invalidate();
+            if (emptiedDay != null) {
+                streaks.onDayRemoved(emptiedDay);
+            }
+        }).thenAccept(emptiedDay -> {});
+    }
+
+    /**
+     * Undo the delete of an entry in background thread, e.g. from a Snackbar action
+     * @param id The ID of the deleted entry
+     * @return Future of whether the entry was restored; false if it was purged meanwhile
      */
-    public void deleteById(long id) {
-        executorService.execute(() -> journalEntryDao.deleteById(id));
+    public CompletableFuture<Boolean> restoreEntry(long id) {
+        return writeDays(() -> applyRestore(id), restored -> {
+            inFlightReads.forgetAll();
+            statsCache.invalidate();
+            streaks.invalidate();
+        });
     }
 
     /**
@@ -116,7 +605,8 @@ public class JournalRepository {
      * @return LiveData list of all entries
      */
     public LiveData<List<JournalEntryEntity>> getAllEntries() {
-        return journalEntryDao.getAllEntries();
+        return withArchive(journalEntryDao.getAllEntries(), entries -> !archive.isEmpty(),
+                () -> archive.getArchivedEntries(JournalArchive.ANY, -1), JournalEntryEntity::getId, ENTRY_ORDER, -1);
     }
 
     /**
@@ -125,7 +615,42 @@ public class JournalRepository {
      * @return LiveData list of recent entries
      */
     public LiveData<List<JournalEntryEntity>> getRecentEntriesLive(int limit) {
-        return journalEntryDao.getRecentEntriesLive(limit);
+        return withArchive(journalEntryDao.getRecentEntriesLive(limit),
+                entries -> entries.size() < limit && !archive.isEmpty(),
+                () -> archive.getArchivedEntries(JournalArchive.ANY, limit), JournalEntryEntity::getId, ENTRY_ORDER, limit);
+    }
+
+    /**
+     * Get summaries of the most recent entries as LiveData, for list screens
+     * @param limit Maximum number of entries
+     * @return LiveData list of recent entry summaries
+     */
+    public LiveData<List<EntrySummary>> getRecentSummariesLive(int limit) {
+        return withArchive(journalEntryDao.getRecentSummariesLive(limit),
+                summaries -> summaries.size() < limit && !archive.isEmpty(),
+                () -> archive.getArchivedSummaries(limit), EntrySummary::getId, SUMMARY_ORDER, limit);
+    }
+
+    /**
+     * Get a specific journal entry by ID, from the entry cache or in background thread.
+     * The result is the caller's own copy and may be edited freely.
+     * @param id The ID of the entry
+     * @return Future of the entry; already complete on a cache hit
+     */
+    public CompletableFuture<JournalEntryEntity> getEntryByIdAsync(long id) {
+        JournalEntryEntity cached = entryCache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long version = entryCache.getVersion();
+        return CompletableFuture.supplyAsync(() -> {
+            JournalEntryEntity entry = journalEntryDao.getEntryById(id);
+            if (entry == null) {
+                entry = archive.getEntry(id);
+            }
+            entryCache.putIfUnchanged(entry, version);
+            return entry;
+        }, readExecutor);
     }
 
     /**
@@ -134,18 +659,7 @@ public class JournalRepository {
      * @param callback Callback to receive the entry
      */
     public void getEntryById(long id, RepositoryCallback<JournalEntryEntity> callback) {
-        executorService.execute(() -> {
-            try {
-                JournalEntryEntity entry = journalEntryDao.getEntryById(id);
-                if (callback != null) {
-                    callback.onComplete(entry);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+        deliver(getEntryByIdAsync(id), callback);
     }
 
     /**
@@ -155,7 +669,23 @@ public class JournalRepository {
      * @return LiveData list of entries
      */
     public LiveData<List<JournalEntryEntity>> getEntriesByDateRange(long startTime, long endTime) {
-        return journalEntryDao.getEntriesByDateRange(startTime, endTime);
+        return withArchive(journalEntryDao.getEntriesByDateRange(startTime, endTime),
+                entries -> archive.mayContain(startTime),
+                () -> archive.getArchivedEntries(JournalArchive.IN_RANGE, -1, startTime, endTime), JournalEntryEntity::getId, ENTRY_ORDER, -1);
+    }
+
+    /**
+     * Get recent entries in background thread
+     * @param limit Maximum number of entries
+     * @return Future of entries
+     */
+    public CompletableFuture<List<JournalEntryEntity>> getRecentEntriesAsync(int limit) {
+        return read(key("getRecentEntries", limit), () -> archive.read(() -> {
+            List<JournalEntryEntity> entries = journalEntryDao.getRecentEntries(limit);
+            return entries.size() < limit && !archive.isEmpty()
+                    ? archive.getEntries(JournalArchive.ANY, true, limit)
+                    : entries;
+        }, () -> archive.getEntries(JournalArchive.ANY, true, limit)));
     }
 
     /**
@@ -164,18 +694,16 @@ public class JournalRepository {
      * @param callback Callback to receive entries
      */
     public void getRecentEntries(int limit, RepositoryCallback<List<JournalEntryEntity>> callback) {
-        executorService.execute(() -> {
-            try {
-                List<JournalEntryEntity> entries = journalEntryDao.getRecentEntries(limit);
-                if (callback != null) {
-                    callback.onComplete(entries);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+        deliver(getRecentEntriesAsync(limit), callback);
+    }
+
+    /**
+     * Get entry count in background thread, from the daily summaries,
+     * which also cover archived days
+     * @return Future of the count
+     */
+    public CompletableFuture<Integer> getEntryCountAsync() {
+        return read(key("getEntryCount"), dailySummaryDao::getTotalEntryCount);
     }
 
     /**
@@ -183,18 +711,18 @@ public class JournalRepository {
      * @param callback Callback to receive the count
      */
     public void getEntryCount(RepositoryCallback<Integer> callback) {
-        executorService.execute(() -> {
-            try {
-                int count = journalEntryDao.getEntryCount();
-                if (callback != null) {
-                    callback.onComplete(count);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+        deliver(getEntryCountAsync(), callback);
+    }
+
+    /**
+     * Get entry count by mood level in background thread
+     * @param moodLevel The mood level (1-5)
+     * @return Future of the count
+     */
+    public CompletableFuture<Integer> getEntryCountByMoodAsync(int moodLevel) {
+        return read(key("getEntryCountByMood", moodLevel), () -> tiered(archive::isEmpty,
+                () -> journalEntryDao.getEntryCountByMood(moodLevel),
+                () -> archive.count("moodLevel = ?", moodLevel)));
     }
 
     /**
@@ -203,18 +731,20 @@ public class JournalRepository {
      * @param callback Callback to receive the count
      */
     public void getEntryCountByMood(int moodLevel, RepositoryCallback<Integer> callback) {
-        executorService.execute(() -> {
-            try {
-                int count = journalEntryDao.getEntryCountByMood(moodLevel);
-                if (callback != null) {
-                    callback.onComplete(count);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+        deliver(getEntryCountByMoodAsync(moodLevel), callback);
+    }
+
+    /**
+     * Get average mood for statistics in background thread
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return Future of the average
+     */
+    public CompletableFuture<Float> getAverageMoodAsync(long startTime, long endTime) {
+        return read(key("getAverageMood", startTime, endTime),
+                () -> tiered(() -> !archive.mayContain(startTime),
+                        () -> journalEntryDao.getAverageMood(startTime, endTime),
+                        () -> archive.getAverageMood(startTime, endTime)));
     }
 
     /**
@@ -224,221 +754,724 @@ public class JournalRepository {
      * @param callback Callback to receive the average
      */
     public void getAverageMood(long startTime, long endTime, RepositoryCallback<Float> callback) {
-        executorService.execute(() -> {
-            try {
-                float average = journalEntryDao.getAverageMood(startTime, endTime);
-                if (callback != null) {
-                    callback.onComplete(average);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+        deliver(getAverageMoodAsync(startTime, endTime), callback);
     }
 
     /**
-     * Delete all entries in background thread
+     * Delete all entries in background thread, archived ones included.
+     * The entries are kept as tombstones until compaction, so they can be restored.
+     * Archived entries are tombstoned in place, with the same deletion time, once the
+     * journal's delete has committed; a crash in between leaves them live, never lost.
+     * @return Future of the deletion time, which {@link #restoreAllEntries} takes to undo it
      */
-    public void deleteAllEntries() {
-        executorService.execute(() -> journalEntryDao.deleteAllEntries());
+    public CompletableFuture<Long> deleteAllEntries() {
+        return writeDays(() -> {
+            long deletedAt = System.currentTimeMillis();
+            journalEntryDao.markAllDeleted(deletedAt);
+            dailySummaryDao.deleteAll();
+            return deletedAt;
+        }, deletedAt -> {
+            archive.markAllDeleted(deletedAt);
+            entryCache.clear();
+            inFlightReads.forgetAll();
+            statsCache.invalidate();
+            streaks.invalidate();
+        });
     }
 
     /**
-     * Shutdown the executor service when no longer needed
+     * Undo a {@link #deleteAllEntries} in background thread.
+     * Archived entries are restored in place by a statement of their own; should the
+     * journal's transaction fail after it, undoing again completes the restore.
+     * @param deletedAt The deletion time it returned
+     * @return Future of the number of entries restored
      */
-    public void shutdown() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-        }
+    public CompletableFuture<Integer> restoreAllEntries(long deletedAt) {
+        return writeDays(() -> {
+            Set<Long> days = new HashSet<>();
+            for (long timestamp : journalEntryDao.getTimestampsDeletedAt(deletedAt)) {
+                days.add(DateUtils.getEpochDay(timestamp));
+            }
+            int restored = journalEntryDao.restoreDeletedAt(deletedAt);
+            for (long epochDay : days) {
+                dailySummaryDao.recomputeDay(epochDay);
+            }
+            restored += archive.restoreDeletedAt(deletedAt);
+            mergeArchivedSummaries();
+            return restored;
+        }, restored -> {
+            inFlightReads.forgetAll();
+            statsCache.invalidate();
+            streaks.invalidate();
+        });
     }
 
-    // ========== Statistics Methods ==========
+    /**
+     * Get the daily summaries of a range of local days as LiveData
+     * @param startDay First epoch day (inclusive)
+     * @param endDay Last epoch day (inclusive)
+     * @return LiveData list of summaries, oldest first
+     */
+    public LiveData<List<DailySummaryEntity>> getDailySummaries(long startDay, long endDay) {
+        return dailySummaryDao.getSummariesLive(startDay, endDay);
+    }
 
     /**
-     * Get photo count in date range
+     * Get the daily summaries of a time range in background thread
      * @param startTime Start timestamp
      * @param endTime End timestamp
-     * @param callback Callback to receive the count
+     * @return Future of the summaries, oldest first
      */
-    public void getPhotoCountInRange(long startTime, long endTime, RepositoryCallback<Integer> callback) {
-        executorService.execute(() -> {
-            try {
-                int count = journalEntryDao.getPhotoCountInRange(startTime, endTime);
-                if (callback != null) {
-                    callback.onComplete(count);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+    public CompletableFuture<List<DailySummaryEntity>> getDailySummariesInRangeAsync(long startTime, long endTime) {
+        return read(key("getDailySummariesInRange", startTime, endTime),
+                () -> dailySummaryDao.getSummariesSync(DateUtils.getEpochDay(startTime), DateUtils.getEpochDay(endTime)));
     }
 
     /**
-     * Get voice memo count in date range
+     * Get the daily summaries of a time range in background thread
      * @param startTime Start timestamp
      * @param endTime End timestamp
-     * @param callback Callback to receive the count
+     * @param callback Callback to receive the summaries, oldest first
      */
-    public void getVoiceMemoCountInRange(long startTime, long endTime, RepositoryCallback<Integer> callback) {
-        executorService.execute(() -> {
-            try {
-                int count = journalEntryDao.getVoiceMemoCountInRange(startTime, endTime);
-                if (callback != null) {
-                    callback.onComplete(count);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+    public void getDailySummariesInRange(long startTime, long endTime, RepositoryCallback<List<DailySummaryEntity>> callback) {
+        deliver(getDailySummariesInRangeAsync(startTime, endTime), callback);
     }
 
     /**
-     * Get total photo count
-     * @param callback Callback to receive the count
+     * Re-bucket every entry into the local days of the current time zone and rebuild
+     * the daily summaries, e.g. after the device time zone changed.
+     * Runs as one write, so entries written meanwhile are stamped in the new zone.
+     * Archived entries are re-bucketed in place; only a day that now has entries in
+     * both databases is moved back into the journal, so no day is split between them.
+     * @return Future completed when the days and summaries are rebuilt
      */
-    public void getTotalPhotoCount(RepositoryCallback<Integer> callback) {
-        executorService.execute(() -> {
-            try {
-                int count = journalEntryDao.getTotalPhotoCount();
-                if (callback != null) {
-                    callback.onComplete(count);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
+    public CompletableFuture<Void> rebuildDailySummaries() {
+        return writeDays(() -> {
+            journalEntryDao.recomputeEpochDays();
+            archive.recomputeEpochDays();
+            dailySummaryDao.rebuild();
+            mergeArchivedSummaries();
+            return null;
+        }, result -> {
+            entryCache.clear();
+            inFlightReads.forgetAll();
+            statsCache.invalidate();
+            streaks.invalidate();
         });
     }
 
     /**
-     * Get total voice memo count
-     * @param callback Callback to receive the count
+     * Write the summaries of archived days into the journal database, where they are
+     * kept. A day that also has entries in the journal is moved back into it instead,
+     * so no day is split between the databases. Runs inside the writer's transaction,
+     * once the summaries of the journal's own entries are current.
      */
-    public void getTotalVoiceMemoCount(RepositoryCallback<Integer> callback) {
-        executorService.execute(() -> {
-            try {
-                int count = journalEntryDao.getTotalVoiceMemoCount();
-                if (callback != null) {
-                    callback.onComplete(count);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
+    private void mergeArchivedSummaries() {
+        List<DailySummaryEntity> archived = archive.getDailySummaries();
+        if (archived.isEmpty()) {
+            return;
+        }
+        Set<Long> journalDays = new HashSet<>();
+        for (DailySummaryEntity summary : dailySummaryDao.getSummariesSync(
+                archived.get(0).getEpochDay(), archived.get(archived.size() - 1).getEpochDay())) {
+            journalDays.add(summary.getEpochDay());
+        }
+        for (DailySummaryEntity summary : archived) {
+            if (journalDays.contains(summary.getEpochDay())) {
+                unarchiveDay(summary.getEpochDay());
+                dailySummaryDao.recomputeDay(summary.getEpochDay());
+            } else {
+                dailySummaryDao.upsert(summary);
             }
-        });
+        }
     }
 
+    // ========== Streak Methods ==========
+
     /**
-     * Get entry count in date range
-     * @param startTime Start timestamp
-     * @param endTime End timestamp
-     * @param callback Callback to receive the count
+     * Get the current and longest streak of days with entries. Answered from the
+     * streak tracker, so the future is already complete unless a write it could not
+     * follow made it rebuild from the daily summaries in background thread.
+     * @return Future of the streaks
      */
-    public void getEntryCountInRange(long startTime, long endTime, RepositoryCallback<Integer> callback) {
-        executorService.execute(() -> {
-            try {
-                int count = journalEntryDao.getEntryCountInRange(startTime, endTime);
-                if (callback != null) {
-                    callback.onComplete(count);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
+    public CompletableFuture<StreakTracker.Streaks> getStreaksAsync() {
+        long today = DateUtils.getEpochDay(System.currentTimeMillis());
+        if (streaks.isValid()) {
+            return CompletableFuture.completedFuture(streaks.getStreaks(today));
+        }
+        return read(key("getStreaks", today), () -> {
+            long version = streaks.getVersion();
+            return streaks.rebuild(dailySummaryDao.getEpochDays(), version, today);
         });
     }
 
+    // ========== Archive Methods ==========
+
     /**
-     * Get mood count by level in date range
-     * @param moodLevel The mood level (1-5)
-     * @param startTime Start timestamp
-     * @param endTime End timestamp
-     * @param callback Callback to receive the count
+     * Move the entries of days older than the archive horizon into the archive database,
+     * whole days and about {@link #ARCHIVE_BATCH_SIZE} entries per write, so the journal
+     * database and its indexes stay small. Each batch is one write of the group-commit
+     * writer, so user writes are never blocked for long.
+     * Must be called on a background thread, e.g. by the compaction job.
+     * @return Number of entries archived
      */
-    public void getMoodCountInRange(int moodLevel, long startTime, long endTime, RepositoryCallback<Integer> callback) {
-        executorService.execute(() -> {
-            try {
-                int count = journalEntryDao.getMoodCountInRange(moodLevel, startTime, endTime);
-                if (callback != null) {
-                    callback.onComplete(count);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+    public int archiveOldEntriesSync() {
+        long cutoffDay = archive.getCutoffDay();
+        int archived = 0;
+        int moved;
+        do {
+            moved = writer.submit(() -> applyArchive(cutoffDay), count -> {
+                entryCache.clear();
+                inFlightReads.forgetAll();
+            }).join();
+            archived += moved;
+        } while (moved > 0);
+        return archived;
     }
 
     /**
-     * Get entries in date range synchronously
-     * @param startTime Start timestamp
-     * @param endTime End timestamp
-     * @param callback Callback to receive the entries
+     * Copy one batch of old entries and their tag links into the archive, then delete
+     * them from the journal. Daily summaries stay. Runs inside the writer's batch transaction;
+     * if it rolls back, the archive copies stay hidden until the next run drops them.
+     * @param cutoffDay Entries of epoch days before this one are archived
+     * @return Number of entries moved
      */
-    public void getEntriesInRangeSync(long startTime, long endTime, RepositoryCallback<List<JournalEntryEntity>> callback) {
-        executorService.execute(() -> {
-            try {
-                List<JournalEntryEntity> entries = journalEntryDao.getEntriesInRangeSync(startTime, endTime);
-                if (callback != null) {
-                    callback.onComplete(entries);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
+    private int applyArchive(long cutoffDay) {
+        List<JournalEntryEntity> batch = journalEntryDao.getArchivableEntries(cutoffDay, ARCHIVE_BATCH_SIZE);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (JournalEntryEntity entry : batch) {
+            ids.add(entry.getId());
+        }
+        archive.insertAll(batch, tagDao.getEntryTags(ids));
+        for (long id : ids) {
+            tagDao.deleteTagsForEntry(id);
+        }
+        journalEntryDao.deleteByIds(ids);
+        return batch.size();
+    }
+
+    // ========== Statistics Methods ==========
+
+    /**
+     * Get photo count in date range
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return Future of the count
+     */
+    public CompletableFuture<Integer> getPhotoCountInRangeAsync(long startTime, long endTime) {
+        return read(key("getPhotoCountInRange", startTime, endTime),
+                () -> tiered(() -> !archive.mayContain(startTime),
+                        () -> journalEntryDao.getPhotoCountInRange(startTime, endTime),
+                        () -> archive.count(JournalArchive.HAS_PHOTO + " AND " + JournalArchive.IN_RANGE, startTime, endTime)));
+    }
+
+    /**
+     * Get photo count in date range
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @param callback Callback to receive the count
+     */
+    public void getPhotoCountInRange(long startTime, long endTime, RepositoryCallback<Integer> callback) {
+        deliver(getPhotoCountInRangeAsync(startTime, endTime), callback);
+    }
+
+    /**
+     * Get voice memo count in date range
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return Future of the count
+     */
+    public CompletableFuture<Integer> getVoiceMemoCountInRangeAsync(long startTime, long endTime) {
+        return read(key("getVoiceMemoCountInRange", startTime, endTime),
+                () -> tiered(() -> !archive.mayContain(startTime),
+                        () -> journalEntryDao.getVoiceMemoCountInRange(startTime, endTime),
+                        () -> archive.count(JournalArchive.HAS_VOICE + " AND " + JournalArchive.IN_RANGE, startTime, endTime)));
+    }
+
+    /**
+     * Get voice memo count in date range
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @param callback Callback to receive the count
+     */
+    public void getVoiceMemoCountInRange(long startTime, long endTime, RepositoryCallback<Integer> callback) {
+        deliver(getVoiceMemoCountInRangeAsync(startTime, endTime), callback);
+    }
+
+    /**
+     * Get total photo count, from the daily summaries
+     * @return Future of the count
+     */
+    public CompletableFuture<Integer> getTotalPhotoCountAsync() {
+        return read(key("getTotalPhotoCount"), dailySummaryDao::getTotalPhotoCount);
+    }
+
+    /**
+     * Get total photo count
+     * @param callback Callback to receive the count
+     */
+    public void getTotalPhotoCount(RepositoryCallback<Integer> callback) {
+        deliver(getTotalPhotoCountAsync(), callback);
+    }
+
+    /**
+     * Get total voice memo count, from the daily summaries
+     * @return Future of the count
+     */
+    public CompletableFuture<Integer> getTotalVoiceMemoCountAsync() {
+        return read(key("getTotalVoiceMemoCount"), dailySummaryDao::getTotalVoiceCount);
+    }
+
+    /**
+     * Get total voice memo count
+     * @param callback Callback to receive the count
+     */
+    public void getTotalVoiceMemoCount(RepositoryCallback<Integer> callback) {
+        deliver(getTotalVoiceMemoCountAsync(), callback);
+    }
+
+    /**
+     * Get entry count in date range
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return Future of the count
+     */
+    public CompletableFuture<Integer> getEntryCountInRangeAsync(long startTime, long endTime) {
+        return read(key("getEntryCountInRange", startTime, endTime),
+                () -> tiered(() -> !archive.mayContain(startTime),
+                        () -> journalEntryDao.getEntryCountInRange(startTime, endTime),
+                        () -> archive.count(JournalArchive.IN_RANGE, startTime, endTime)));
+    }
+
+    /**
+     * Get entry count in date range
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @param callback Callback to receive the count
+     */
+    public void getEntryCountInRange(long startTime, long endTime, RepositoryCallback<Integer> callback) {
+        deliver(getEntryCountInRangeAsync(startTime, endTime), callback);
+    }
+
+    /**
+     * Get mood count by level in date range
+     * @param moodLevel The mood level (1-5)
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return Future of the count
+     */
+    public CompletableFuture<Integer> getMoodCountInRangeAsync(int moodLevel, long startTime, long endTime) {
+        return read(key("getMoodCountInRange", moodLevel, startTime, endTime),
+                () -> tiered(() -> !archive.mayContain(startTime),
+                        () -> journalEntryDao.getMoodCountInRange(moodLevel, startTime, endTime),
+                        () -> archive.count("moodLevel = ? AND " + JournalArchive.IN_RANGE, moodLevel, startTime, endTime)));
+    }
+
+    /**
+     * Get mood count by level in date range
+     * @param moodLevel The mood level (1-5)
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @param callback Callback to receive the count
+     */
+    public void getMoodCountInRange(int moodLevel, long startTime, long endTime, RepositoryCallback<Integer> callback) {
+        deliver(getMoodCountInRangeAsync(moodLevel, startTime, endTime), callback);
+    }
+
+    /**
+     * Get the statistics of a date range (count, mood histogram and average, media totals)
+     * from a single aggregate query in background thread
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return Future of the statistics
+     */
+    public CompletableFuture<PeriodStats> getPeriodStatsAsync(long startTime, long endTime) {
+        return read(key("getPeriodStats", startTime, endTime),
+                () -> PeriodStats.from(tiered(() -> !archive.mayContain(startTime),
+                        () -> journalEntryDao.getMoodLevelStatsInRange(startTime, endTime),
+                        () -> archive.getMoodLevelStatsInRange(startTime, endTime))));
+    }
+
+    /**
+     * Get the statistics of a date range (count, mood histogram and average, media totals)
+     * from a single aggregate query in background thread
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @param callback Callback to receive the statistics
+     */
+    public void getPeriodStats(long startTime, long endTime, RepositoryCallback<PeriodStats> callback) {
+        deliver(getPeriodStatsAsync(startTime, endTime), callback);
+    }
+
+    /**
+     * Get the chart models of a statistics period, computed in background thread from
+     * the period statistics and daily summaries. Results are cached until the next
+     * journal write, so the returned future is already complete on a cache hit.
+     * @param period One of the StatsEngine.PERIOD_ constants
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return Future of the chart models
+     */
+    public CompletableFuture<StatsEngine.Result> getPeriodChartsAsync(int period, long startTime, long endTime) {
+        return getPeriodCharts(period, startTime, endTime, () -> getDailySummariesInRangeAsync(startTime, endTime));
+    }
+
+    /**
+     * Compute and cache the chart models of the weekly, monthly and yearly periods
+     * in parallel, so the stats screen switches periods without waiting. The periods
+     * all end today and nest in the yearly one, so a single daily summary query serves
+     * the three; their mood histograms come from one aggregate query each, run side by
+     * side on the read lane. A later {@link #getPeriodChartsAsync} for one of the
+     * periods joins the computation in flight.
+     * @return Future completed when all three periods are cached
+     */
+    public CompletableFuture<Void> prefetchPeriodChartsAsync() {
+        int periods = StatsEngine.PERIOD_YEARLY + 1;
+        long[][] ranges = new long[periods][];
+        long firstStart = Long.MAX_VALUE;
+        long lastEnd = Long.MIN_VALUE;
+        for (int period = 0; period < periods; period++) {
+            ranges[period] = DateUtils.getDateRangeForPeriod(period);
+            firstStart = Math.min(firstStart, ranges[period][0]);
+            lastEnd = Math.max(lastEnd, ranges[period][1]);
+        }
+
+        // Queried by the first period that is not cached, then shared
+        long startTime = firstStart;
+        long endTime = lastEnd;
+        AtomicReference<CompletableFuture<List<DailySummaryEntity>>> summaries = new AtomicReference<>();
+        Supplier<CompletableFuture<List<DailySummaryEntity>>> sharedSummaries = () -> {
+            if (summaries.get() == null) {
+                summaries.set(getDailySummariesInRangeAsync(startTime, endTime));
             }
+            return summaries.get();
+        };
+
+        CompletableFuture<?>[] results = new CompletableFuture<?>[periods];
+        for (int period = 0; period < periods; period++) {
+            results[period] = getPeriodCharts(period, ranges[period][0], ranges[period][1], sharedSummaries);
+        }
+        return CompletableFuture.allOf(results);
+    }
+
+    /**
+     * Get the chart models of a period from the cache, from the identical computation
+     * in flight, or by computing them from the given daily summaries
+     * @param summaries Starts the query of daily summaries covering at least the period
+     */
+    private CompletableFuture<StatsEngine.Result> getPeriodCharts(
+            int period, long startTime, long endTime,
+            Supplier<CompletableFuture<List<DailySummaryEntity>>> summaries) {
+        StatsEngine.Result cached = statsCache.get(period, startTime, endTime);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return inFlightReads.execute(key("getPeriodCharts", period, startTime, endTime), () -> {
+            long version = statsCache.getVersion();
+            long startDay = DateUtils.getEpochDay(startTime);
+            long endDay = DateUtils.getEpochDay(endTime);
+            // Built on the database thread completing the second query; days of
+            // the summaries outside the period are skipped
+            return getPeriodStatsAsync(startTime, endTime)
+                    .thenCombine(summaries.get(),
+                            (stats, days) -> StatsEngine.compute(period, startDay, endDay, stats, days))
+                    .thenApply(result -> {
+                        statsCache.putIfUnchanged(period, startTime, endTime, result, version);
+                        return result;
+                    });
         });
     }
 
+    /**
+     * Get entries in date range in background thread
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @return Future of the entries
+     */
+    public CompletableFuture<List<JournalEntryEntity>> getEntriesInRangeAsync(long startTime, long endTime) {
+        return read(key("getEntriesInRange", startTime, endTime),
+                () -> tiered(() -> !archive.mayContain(startTime),
+                        () -> journalEntryDao.getEntriesInRangeSync(startTime, endTime),
+                        () -> archive.getEntries(JournalArchive.IN_RANGE, false, -1, startTime, endTime)));
+    }
+
+    /**
+     * Get entries in date range synchronously
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @param callback Callback to receive the entries
+     */
+    public void getEntriesInRangeSync(long startTime, long endTime, RepositoryCallback<List<JournalEntryEntity>> callback) {
+        deliver(getEntriesInRangeAsync(startTime, endTime), callback);
+    }
+
     // ========== Search and Filter Methods ==========
 
     /**
-     * Search entries by keyword in note, emotions, and activities
+     * Search entries by keyword in note, emotions, and activities.
+     * Every word of the keyword is matched as a prefix against the full-text index.
      * @param keyword The search keyword
-     * @param callback Callback to receive matching entries
+     * @return Future of matching entries, newest first
+     */
+    public CompletableFuture<List<JournalEntryEntity>> searchEntriesByKeywordAsync(String keyword) {
+        return read(key("searchEntriesByKeyword", keyword), () -> {
+            String query = FtsUtils.buildPrefixQuery(keyword);
+            if (query == null) {
+                return new ArrayList<>();
+            }
+            return tiered(archive::isEmpty,
+                    () -> journalEntryDao.searchEntriesByKeyword(query),
+                    () -> archive.searchEntriesByKeyword(query));
+        });
+    }
+
+    /**
+     * Search entries by keyword in note, emotions, and activities.
+     * Every word of the keyword is matched as a prefix against the full-text index.
+     * @param keyword The search keyword
+     * @param callback Callback to receive matching entries, newest first
      */
     public void searchEntriesByKeyword(String keyword, RepositoryCallback<List<JournalEntryEntity>> callback) {
-        executorService.execute(() -> {
-            try {
-                List<JournalEntryEntity> entries = journalEntryDao.searchEntriesByKeyword(keyword);
-                if (callback != null) {
-                    callback.onComplete(entries);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
+        deliver(searchEntriesByKeywordAsync(keyword), callback);
+    }
+
+    /**
+     * Full-text search ranked by relevance, with match offsets for highlighting
+     * @param text The search text
+     * @param limit Maximum number of results
+     * @return Future of results, best match first
+     */
+    public CompletableFuture<List<EntrySearchResult>> searchEntriesAsync(String text, int limit) {
+        return read(key("searchEntries", text, limit), () -> {
+            String query = FtsUtils.buildPrefixQuery(text);
+            List<EntrySearchResult> results = query == null ? new ArrayList<>()
+                    : tiered(archive::isEmpty,
+                            () -> journalEntryDao.searchEntries(query, limit),
+                            () -> archive.searchEntries(query, limit));
+            for (EntrySearchResult result : results) {
+                result.setScore(FtsUtils.rank(result.matchInfo));
+            }
+            results.sort((a, b) -> {
+                int byScore = Double.compare(b.getScore(), a.getScore());
+                return byScore != 0 ? byScore
+                        : Long.compare(b.getEntry().getTimestamp(), a.getEntry().getTimestamp());
+            });
+            return results;
+        });
+    }
+
+    /**
+     * Full-text search ranked by relevance, with match offsets for highlighting
+     * @param text The search text
+     * @param limit Maximum number of results
+     * @param callback Callback to receive results, best match first
+     */
+    public void searchEntries(String text, int limit, RepositoryCallback<List<EntrySearchResult>> callback) {
+        deliver(searchEntriesAsync(text, limit), callback);
+    }
+
+    /**
+     * Get the IDs of entries matching a search text
+     * @param text The search text
+     * @return Future of the matching IDs
+     */
+    public CompletableFuture<Set<Long>> searchEntryIdsAsync(String text) {
+        return read(key("searchEntryIds", text), () -> {
+            String query = FtsUtils.buildPrefixQuery(text);
+            if (query == null) {
+                return new HashSet<>();
+            }
+            return new HashSet<>(tiered(archive::isEmpty,
+                    () -> journalEntryDao.searchEntryIds(query),
+                    () -> archive.searchEntryIds(query)));
+        });
+    }
+
+    /**
+     * Get the IDs of entries matching a search text
+     * @param text The search text
+     * @param callback Callback to receive the matching IDs
+     */
+    public void searchEntryIds(String text, RepositoryCallback<Set<Long>> callback) {
+        deliver(searchEntryIdsAsync(text), callback);
+    }
+
+    /**
+     * Get entries tagged with a specific emotion, sleep tag or activity
+     * @param category The tag category (see TagEntity)
+     * @param name The tag name (case-insensitive)
+     * @return Future of matching entries
+     */
+    public CompletableFuture<List<JournalEntryEntity>> getEntriesWithTagAsync(String category, String name) {
+        return read(key("getEntriesWithTag", category, name), () -> tiered(archive::isEmpty,
+                () -> tagDao.getEntriesWithTag(category, name),
+                () -> archive.getEntriesWithTag(category, name)));
+    }
+
+    /**
+     * Get entries tagged with a specific emotion, sleep tag or activity
+     * @param category The tag category (see TagEntity)
+     * @param name The tag name (case-insensitive)
+     * @param callback Callback to receive matching entries
+     */
+    public void getEntriesWithTag(String category, String name, RepositoryCallback<List<JournalEntryEntity>> callback) {
+        deliver(getEntriesWithTagAsync(category, name), callback);
+    }
+
+    /**
+     * Get entries carrying all of the given emotions and sleep tags.
+     * Tags are trimmed once and then matched exactly, as the vocabulary encodes them;
+     * empty ones are ignored. The first tag selects the candidates through the tag
+     * index, whose case-insensitive match only widens them; every tag, the first
+     * included, is then matched on the masks if it is a default tag or on the loaded
+     * entries if it is a custom one.
+     * @param emotions Required emotions, may be empty
+     * @param sleepTags Required sleep tags, may be empty
+     * @return Future of matching entries, newest first
+     */
+    public CompletableFuture<List<JournalEntryEntity>> getEntriesWithAllTagsAsync(List<String> requiredEmotions,
+                                                                                  List<String> requiredSleepTags) {
+        List<String> emotions = normalizeTags(requiredEmotions);
+        List<String> sleepTags = normalizeTags(requiredSleepTags);
+        return read(key("getEntriesWithAllTags", emotions, sleepTags), () -> {
+            String category;
+            String name;
+            if (!emotions.isEmpty()) {
+                category = TagEntity.CATEGORY_EMOTION;
+                name = emotions.get(0);
+            } else if (!sleepTags.isEmpty()) {
+                category = TagEntity.CATEGORY_SLEEP;
+                name = sleepTags.get(0);
+            } else {
+                return tiered(archive::isEmpty,
+                        () -> journalEntryDao.getAllEntriesSync(),
+                        () -> archive.getEntries(JournalArchive.ANY, true, -1));
+            }
+            long emotionMask = TagVocabulary.EMOTIONS.maskOf(emotions);
+            long sleepMask = TagVocabulary.SLEEP.maskOf(sleepTags);
+            List<JournalEntryEntity> entries = tiered(archive::isEmpty,
+                    () -> journalEntryDao.getEntriesWithTagAndMasks(category, name, emotionMask, sleepMask),
+                    () -> archive.getEntriesWithTagAndMasks(category, name, emotionMask, sleepMask));
+            List<String> customEmotions = TagVocabulary.EMOTIONS.customTagsOf(emotions);
+            List<String> customSleepTags = TagVocabulary.SLEEP.customTagsOf(sleepTags);
+            if (customEmotions.isEmpty() && customSleepTags.isEmpty()) {
+                return entries;
+            }
+            List<JournalEntryEntity> matching = new ArrayList<>();
+            for (JournalEntryEntity entry : entries) {
+                if (containsAll(entry.getEmotions(), customEmotions)
+                        && containsAll(entry.getCustomSleepTags(), customSleepTags)) {
+                    matching.add(entry);
                 }
             }
+            return matching;
         });
     }
 
+    /**
+     * Get entries carrying all of the given emotions and sleep tags
+     * @param emotions Required emotions, may be empty
+     * @param sleepTags Required sleep tags, may be empty
+     * @param callback Callback to receive matching entries, newest first
+     */
+    public void getEntriesWithAllTags(List<String> emotions, List<String> sleepTags,
+                                      RepositoryCallback<List<JournalEntryEntity>> callback) {
+        deliver(getEntriesWithAllTagsAsync(emotions, sleepTags), callback);
+    }
+
+    // Trimmed, non-empty tags without duplicates, in order
+    private static List<String> normalizeTags(List<String> tags) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (tags != null) {
+            for (String tag : tags) {
+                String trimmed = tag != null ? tag.trim() : "";
+                if (!trimmed.isEmpty()) {
+                    normalized.add(trimmed);
+                }
+            }
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    private static boolean containsAll(List<String> tags, List<String> required) {
+        return required.isEmpty() || (tags != null && normalizeTags(tags).containsAll(required));
+    }
+
+    /**
+     * Get the most used tags of a category in a date range
+     * @param category The tag category (see TagEntity)
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @param limit Maximum number of tags
+     * @return Future of the tag counts
+     */
+    public CompletableFuture<List<TagCount>> getTagFrequenciesAsync(String category, long startTime, long endTime, int limit) {
+        return read(key("getTagFrequencies", category, startTime, endTime, limit),
+                () -> tiered(() -> !archive.mayContain(startTime),
+                        () -> tagDao.getTagFrequencies(category, startTime, endTime, limit),
+                        () -> archive.getTagFrequencies(category, startTime, endTime, limit)));
+    }
+
+    /**
+     * Get the most used tags of a category in a date range
+     * @param category The tag category (see TagEntity)
+     * @param startTime Start timestamp
+     * @param endTime End timestamp
+     * @param limit Maximum number of tags
+     * @param callback Callback to receive the tag counts
+     */
+    public void getTagFrequencies(String category, long startTime, long endTime, int limit,
+                                  RepositoryCallback<List<TagCount>> callback) {
+        deliver(getTagFrequenciesAsync(category, startTime, endTime, limit), callback);
+    }
+
+    /**
+     * Get entries with photos as LiveData
+     * @return LiveData list of entries with photos, newest first
+     */
+    public LiveData<List<JournalEntryEntity>> getEntriesWithPhotosLive() {
+        return withArchive(journalEntryDao.getEntriesWithPhotosLive(), entries -> !archive.isEmpty(),
+                () -> archive.getArchivedEntries(JournalArchive.HAS_PHOTO, -1), JournalEntryEntity::getId, ENTRY_ORDER, -1);
+    }
+
+    /**
+     * Get entries with voice memos as LiveData
+     * @return LiveData list of entries with voice memos, newest first
+     */
+    public LiveData<List<JournalEntryEntity>> getEntriesWithVoiceMemosLive() {
+        return withArchive(journalEntryDao.getEntriesWithVoiceMemosLive(), entries -> !archive.isEmpty(),
+                () -> archive.getArchivedEntries(JournalArchive.HAS_VOICE, -1), JournalEntryEntity::getId, ENTRY_ORDER, -1);
+    }
+
+    /**
+     * Get entries with photos
+     * @return Future of entries with photos
+     */
+    public CompletableFuture<List<JournalEntryEntity>> getEntriesWithPhotosAsync() {
+        return read(key("getEntriesWithPhotos"), () -> tiered(archive::isEmpty,
+                () -> journalEntryDao.getEntriesWithPhotos(),
+                () -> archive.getEntries(JournalArchive.HAS_PHOTO, true, -1)));
+    }
+
     /**
      * Get entries with photos
      * @param callback Callback to receive entries with photos
      */
     public void getEntriesWithPhotos(RepositoryCallback<List<JournalEntryEntity>> callback) {
-        executorService.execute(() -> {
-            try {
-                List<JournalEntryEntity> entries = journalEntryDao.getEntriesWithPhotos();
-                if (callback != null) {
-                    callback.onComplete(entries);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+        deliver(getEntriesWithPhotosAsync(), callback);
+    }
+
+    /**
+     * Get entries with voice memos
+     * @return Future of entries with voice memos
+     */
+    public CompletableFuture<List<JournalEntryEntity>> getEntriesWithVoiceMemosAsync() {
+        return read(key("getEntriesWithVoiceMemos"), () -> tiered(archive::isEmpty,
+                () -> journalEntryDao.getEntriesWithVoiceMemos(),
+                () -> archive.getEntries(JournalArchive.HAS_VOICE, true, -1)));
     }
 
     /**
@@ -446,18 +1479,18 @@ public class JournalRepository {
      * @param callback Callback to receive entries with voice memos
      */
     public void getEntriesWithVoiceMemos(RepositoryCallback<List<JournalEntryEntity>> callback) {
-        executorService.execute(() -> {
-            try {
-                List<JournalEntryEntity> entries = journalEntryDao.getEntriesWithVoiceMemos();
-                if (callback != null) {
-                    callback.onComplete(entries);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+        deliver(getEntriesWithVoiceMemosAsync(), callback);
+    }
+
+    /**
+     * Get entries by mood level
+     * @param moodLevel The mood level (1-5)
+     * @return Future of entries
+     */
+    public CompletableFuture<List<JournalEntryEntity>> getEntriesByMoodLevelAsync(int moodLevel) {
+        return read(key("getEntriesByMoodLevel", moodLevel), () -> tiered(archive::isEmpty,
+                () -> journalEntryDao.getEntriesByMoodLevel(moodLevel),
+                () -> archive.getEntries("moodLevel = ?", true, -1, moodLevel)));
     }
 
     /**
@@ -466,18 +1499,21 @@ public class JournalRepository {
      * @param callback Callback to receive entries
      */
     public void getEntriesByMoodLevel(int moodLevel, RepositoryCallback<List<JournalEntryEntity>> callback) {
-        executorService.execute(() -> {
-            try {
-                List<JournalEntryEntity> entries = journalEntryDao.getEntriesByMoodLevel(moodLevel);
-                if (callback != null) {
-                    callback.onComplete(entries);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+        deliver(getEntriesByMoodLevelAsync(moodLevel), callback);
+    }
+
+    /**
+     * Get entries by multiple mood levels
+     * @param moodLevels List of mood levels to filter by
+     * @return Future of entries
+     */
+    public CompletableFuture<List<JournalEntryEntity>> getEntriesByMoodLevelsAsync(List<Integer> moodLevels) {
+        return read(key("getEntriesByMoodLevels", moodLevels),
+                () -> moodLevels.isEmpty() ? journalEntryDao.getEntriesByMoodLevels(moodLevels)
+                        : tiered(archive::isEmpty,
+                                () -> journalEntryDao.getEntriesByMoodLevels(moodLevels),
+                                () -> archive.getEntries("moodLevel IN (" + placeholders(moodLevels.size()) + ")",
+                                        true, -1, moodLevels.toArray())));
     }
 
     /**
@@ -486,18 +1522,17 @@ public class JournalRepository {
      * @param callback Callback to receive entries
      */
     public void getEntriesByMoodLevels(List<Integer> moodLevels, RepositoryCallback<List<JournalEntryEntity>> callback) {
-        executorService.execute(() -> {
-            try {
-                List<JournalEntryEntity> entries = journalEntryDao.getEntriesByMoodLevels(moodLevels);
-                if (callback != null) {
-                    callback.onComplete(entries);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
-                }
-            }
-        });
+        deliver(getEntriesByMoodLevelsAsync(moodLevels), callback);
+    }
+
+    /**
+     * Get all entries in background thread
+     * @return Future of all entries
+     */
+    public CompletableFuture<List<JournalEntryEntity>> getAllEntriesAsync() {
+        return read(key("getAllEntries"), () -> tiered(archive::isEmpty,
+                () -> journalEntryDao.getAllEntriesSync(),
+                () -> archive.getEntries(JournalArchive.ANY, true, -1)));
     }
 
     /**
@@ -505,17 +1540,301 @@ public class JournalRepository {
      * @param callback Callback to receive all entries
      */
     public void getAllEntriesSync(RepositoryCallback<List<JournalEntryEntity>> callback) {
-        executorService.execute(() -> {
-            try {
-                List<JournalEntryEntity> entries = journalEntryDao.getAllEntriesSync();
-                if (callback != null) {
-                    callback.onComplete(entries);
-                }
-            } catch (Exception e) {
-                if (callback != null) {
-                    callback.onError(e);
+        deliver(getAllEntriesAsync(), callback);
+    }
+
+    // ========== Streaming Methods ==========
+
+    /**
+     * Open a forward-only cursor over the live entries of a time range.
+     * Rows are read as the caller advances, so memory use does not grow with the journal.
+     * A cursor cannot be read again, so it reads the archive too unless the range lies
+     * after every entry archived while it is open.
+     * Must be called on a background thread; the caller must close the cursor.
+     * @param columns The columns to read, e.g. {@link EntryCursor#ALL_COLUMNS}
+     * @param startTime Start timestamp (inclusive)
+     * @param endTime End timestamp (inclusive)
+     * @param newestFirst Whether to stream newest entries first
+     * @return The cursor
+     */
+    public EntryCursor openEntryCursor(Set<EntryCursor.Column> columns, long startTime, long endTime,
+                                       boolean newestFirst) {
+        if (archive.mayReach(startTime)) {
+            return archive.openEntryCursor(columns, startTime, endTime, newestFirst);
+        }
+        return new EntryCursor(journalEntryDao.streamEntries(
+                EntryCursor.buildQuery(columns, startTime, endTime, newestFirst)));
+    }
+
+    /**
+     * Visit the live entries of a time range one at a time.
+     * Must be called on a background thread.
+     * @param columns The columns to read
+     * @param startTime Start timestamp (inclusive)
+     * @param endTime End timestamp (inclusive)
+     * @param newestFirst Whether to visit newest entries first
+     * @param visitor Called for each entry until it returns false
+     * @return Number of entries visited
+     */
+    public int forEachEntrySync(Set<EntryCursor.Column> columns, long startTime, long endTime,
+                                boolean newestFirst, EntryVisitor visitor) {
+        int visited = 0;
+        try (EntryCursor cursor = openEntryCursor(columns, startTime, endTime, newestFirst)) {
+            while (cursor.moveToNext()) {
+                visited++;
+                if (!visitor.visit(cursor.getEntry())) {
+                    break;
                 }
             }
+        }
+        return visited;
+    }
+
+    /**
+     * Visit the live entries of a time range one at a time in background thread
+     * (see {@link #forEachEntrySync}). The visitor runs on the background thread.
+     * @param columns The columns to read
+     * @param startTime Start timestamp (inclusive)
+     * @param endTime End timestamp (inclusive)
+     * @param newestFirst Whether to visit newest entries first
+     * @param visitor Called for each entry until it returns false
+     * @return Future of the number of entries visited
+     */
+    public CompletableFuture<Integer> forEachEntryAsync(Set<EntryCursor.Column> columns, long startTime,
+                                                       long endTime, boolean newestFirst, EntryVisitor visitor) {
+        return CompletableFuture.supplyAsync(
+                () -> forEachEntrySync(columns, startTime, endTime, newestFirst, visitor), backgroundExecutor);
+    }
+
+    /**
+     * Get the batching counters of the group-commit writer
+     * @return Snapshot of the writer counters
+     */
+    public GroupCommitWriter.Metrics getWriterMetrics() {
+        return writer.getMetrics();
+    }
+
+    /**
+     * Get the hit rate and size of the entry cache
+     * @return Snapshot of the entry cache counters
+     */
+    public static EntryCache.Metrics getEntryCacheMetrics() {
+        return entryCache.getMetrics();
+    }
+
+    /**
+     * Get the counters of identical reads that were shared instead of re-run
+     * @return Snapshot of the single-flight counters
+     */
+    public static SingleFlight.Metrics getSingleFlightMetrics() {
+        return inFlightReads.getMetrics();
+    }
+
+    // ========== Paging Methods ==========
+
+    /**
+     * Get one page of entry summaries matching a filter, using keyset pagination on (timestamp, id)
+     * @param filter The list filter
+     * @param after Key of the last entry of the previous page, or null for the first page
+     * @param pageSize Maximum number of entries
+     * @return Future of the page
+     */
+    public CompletableFuture<List<EntrySummary>> getSummaryPageAsync(EntryFilter filter, EntryFilter.PageKey after,
+                                                                     int pageSize) {
+        return CompletableFuture.supplyAsync(() -> archive.read(() -> {
+            List<EntrySummary> page = journalEntryDao.getSummaryPage(filter.toPageQuery(after, pageSize));
+            // Archived entries are no newer than the archive's bound, so a full page
+            // ending after it is complete without them
+            boolean reachesArchive = page.size() < pageSize
+                    || archive.mayContain(page.get(page.size() - 1).getTimestamp());
+            return reachesArchive && archive.mayContain(rangeStart(filter))
+                    ? archive.getSummaryPage(filter, after, pageSize)
+                    : page;
+        }, () -> archive.getSummaryPage(filter, after, pageSize)), readExecutor);
+    }
+
+    /**
+     * Get one page of entry summaries matching a filter, using keyset pagination on (timestamp, id)
+     * @param filter The list filter
+     * @param after Key of the last entry of the previous page, or null for the first page
+     * @param pageSize Maximum number of entries
+     * @param callback Callback to receive the page
+     */
+    public void getSummaryPage(EntryFilter filter, EntryFilter.PageKey after, int pageSize,
+                               RepositoryCallback<List<EntrySummary>> callback) {
+        deliver(getSummaryPageAsync(filter, after, pageSize), callback);
+    }
+
+    /**
+     * Count entries matching a filter
+     * @param filter The list filter
+     * @return Future of the count
+     */
+    public CompletableFuture<Integer> countEntriesAsync(EntryFilter filter) {
+        return CompletableFuture.supplyAsync(() -> tiered(() -> !archive.mayContain(rangeStart(filter)),
+                () -> journalEntryDao.countEntries(filter.toCountQuery()),
+                () -> archive.countEntries(filter)), readExecutor);
+    }
+
+    /**
+     * Count entries matching a filter
+     * @param filter The list filter
+     * @param callback Callback to receive the count
+     */
+    public void countEntries(EntryFilter filter, RepositoryCallback<Integer> callback) {
+        deliver(countEntriesAsync(filter), callback);
+    }
+
+    /**
+     * Read from the journal alone when that suffices, otherwise from journal and archive
+     * in one statement; run again if entries moved meanwhile (see {@link JournalArchive#read})
+     * @param journalSuffices Whether the archive surely holds no matching entry
+     * @param journal The read of the journal
+     * @param combined The same read over journal and archive
+     */
+    private <T> T tiered(BooleanSupplier journalSuffices, Supplier<T> journal, Supplier<T> combined) {
+        return archive.read(() -> journalSuffices.getAsBoolean() ? journal.get() : combined.get(), combined);
+    }
+
+    /**
+     * Get the start of a filter's date range, Long.MIN_VALUE if it has none
+     */
+    private static long rangeStart(EntryFilter filter) {
+        return filter.hasDateRange() ? filter.getStartTime() : Long.MIN_VALUE;
+    }
+
+    /**
+     * Build a list of SQL argument placeholders, e.g. "?, ?, ?"
+     */
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Complete a journal LiveData with archived entries when it may lack some.
+     * The archived part is read from the archive alone and kept until the archive
+     * changes, so a journal change only re-merges the lists instead of re-running a
+     * query over both databases; an archive change re-merges with a fresh part.
+     * @param journal LiveData of the journal's own rows
+     * @param needsArchive Whether a journal value may lack archived rows, tested on the main thread
+     * @param archived Reads the matching archived rows that are not in the journal
+     * @param idOf ID of a row
+     * @param order Order of the merged list, newest first
+     * @param limit Maximum number of rows, -1 for all
+     * @return LiveData of the merged rows
+     */
+    private <T> LiveData<List<T>> withArchive(LiveData<List<T>> journal, Predicate<List<T>> needsArchive,
+                                              Supplier<List<T>> archived, ToLongFunction<T> idOf,
+                                              Comparator<T> order, int limit) {
+        MediatorLiveData<List<T>> result = new MediatorLiveData<>();
+        ArchiveGuard.Snapshot<List<T>> archivedPart = archive.snapshot(archived);
+        AtomicInteger generation = new AtomicInteger();
+        Executor mainThread = DatabaseScheduler.getInstance().mainThread();
+        Runnable merge = () -> {
+            List<T> values = journal.getValue();
+            int current = generation.incrementAndGet();
+            if (values == null || !needsArchive.test(values)) {
+                result.setValue(values);
+                return;
+            }
+            readExecutor.execute(() -> {
+                List<T> merged = merge(values, archivedPart.get(), idOf, order, limit);
+                mainThread.execute(() -> {
+                    // A newer value supersedes this one
+                    if (generation.get() == current) {
+                        result.setValue(merged);
+                    }
+                });
+            });
+        };
+        result.addSource(journal, values -> merge.run());
+        result.addSource(archive.getVersionLive(), version -> {
+            List<T> values = journal.getValue();
+            if (values != null && needsArchive.test(values)) {
+                merge.run();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Merge journal rows with archived ones, preferring the journal's copy of a row
+     */
+    private static <T> List<T> merge(List<T> journal, List<T> archived, ToLongFunction<T> idOf,
+                                     Comparator<T> order, int limit) {
+        Set<Long> ids = new HashSet<>();
+        for (T value : journal) {
+            ids.add(idOf.applyAsLong(value));
+        }
+        List<T> merged = new ArrayList<>(journal.size() + archived.size());
+        merged.addAll(journal);
+        for (T value : archived) {
+            if (!ids.contains(idOf.applyAsLong(value))) {
+                merged.add(value);
+            }
+        }
+        merged.sort(order);
+        return limit >= 0 && merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    /**
+     * Run a read on the read lane, sharing it with identical reads already in flight
+     * @param key Query key from {@link #key}
+     * @param query The query
+     * @return Future of the query result
+     */
+    private <T> CompletableFuture<T> read(String key, Supplier<T> query) {
+        return inFlightReads.execute(key, () -> CompletableFuture.supplyAsync(query, readExecutor));
+    }
+
+    /**
+     * Build the single-flight key of a read from its method name and parameters
+     */
+    private static String key(String method, Object... params) {
+        return method + Arrays.deepToString(params);
+    }
+
+    /**
+     * Wait for a write on the calling background thread, rethrowing its failure unwrapped
+     * @param future A future returned by the writer
+     * @return The result of the write
+     */
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Adapt a future to the callback API. The callback runs on the database thread
+     * that completed the future, or right away if it is already complete (cache hits);
+     * callers post to the main thread themselves.
+     */
+    private static <T> void deliver(CompletableFuture<T> future, RepositoryCallback<T> callback) {
+        future.whenComplete((result, error) -> {
+            if (callback == null) {
+                return;
+            }
+            if (error == null) {
+                callback.onComplete(result);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            callback.onError(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
         });
     }
 }
@@ -0,0 +1,103 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.repository;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical queries: while a query for a key is in flight,
+ * later callers with the same key get the same future instead of a second
+ * database execution. Results are shared by all waiters, so they must be treated
+ * as read-only.
+ */
+public final class SingleFlight {
+
+    private final ConcurrentHashMap<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    // Calls that started a query
+    private final AtomicLong executions = new AtomicLong();
+    // Calls that joined a query already in flight
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Run a query, or join the identical one already in flight
+     * @param key Method name and parameters identifying the query
+     * @param query Starts the query; only called if no query with this key is in flight
+     * @return Future of the query result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String key, Supplier<CompletableFuture<T>> query) {
+        CompletableFuture<T> placeholder = new CompletableFuture<>();
+        CompletableFuture<?> existing = inFlight.putIfAbsent(key, placeholder);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return (CompletableFuture<T>) existing;
+        }
+        executions.incrementAndGet();
+        try {
+            query.get().whenComplete((result, error) -> {
+                inFlight.remove(key, placeholder);
+                if (error != null) {
+                    placeholder.completeExceptionally(error);
+                } else {
+                    placeholder.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, placeholder);
+            placeholder.completeExceptionally(e);
+        }
+        return placeholder;
+    }
+
+    /**
+     * Stop sharing the queries in flight, so callers after a write start fresh
+     * queries that see it. Queries already running still complete their waiters.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /**
+     * @return Snapshot of the execution and coalesce counters
+     */
+    public Metrics getMetrics() {
+        return new Metrics(executions.get(), coalesced.get(), inFlight.size());
+    }
+
+    /**
+     * Point-in-time counters of a {@link SingleFlight}.
+     */
+    public static final class Metrics {
+        // Calls that ran a database query
+        public final long executions;
+        // Calls served by a query already in flight
+        public final long coalesced;
+        public final int inFlight;
+
+        Metrics(long executions, long coalesced, int inFlight) {
+            this.executions = executions;
+            this.coalesced = coalesced;
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * @return Fraction of calls that were served without their own query
+         */
+        public float getCoalesceRate() {
+            long total = executions + coalesced;
+            return total > 0 ? (float) coalesced / total : 0f;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "executions=%d coalesced=%d inFlight=%d coalesceRate=%.2f",
+                    executions, coalesced, inFlight, getCoalesceRate());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package gui.ceng.mu.edu.mentalhealthjournal.data.repository;
+
+import gui.ceng.mu.edu.mentalhealthjournal.util.StatsEngine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded, least-recently-used cache of computed period statistics,
+ * keyed by period and time range. Results are immutable and shared as is.
+ * Any write to the journal drops every result, since one entry can fall into
+ * all periods; every invalidation bumps a version so a computation that raced
+ * a write cannot cache stale results.
+ */
+public final class StatsCache {
+
+    private final LinkedHashMap<String, StatsEngine.Result> results;
+
+    // Guarded by this
+    private long version;
+
+    /**
+     * @param maxSize Maximum number of cached results
+     */
+    public StatsCache(int maxSize) {
+        // Access order, so iteration starts at the least recently used result
+        results = new LinkedHashMap<String, StatsEngine.Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StatsEngine.Result> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Look up the statistics of a period
+     * @param period One of the StatsEngine.PERIOD_ constants
+     * @param startTime Start timestamp of the range
+     * @param endTime End timestamp of the range
+     * @return The cached result, or null on a miss
+     */
+    public synchronized StatsEngine.Result get(int period, long startTime, long endTime) {
+        return results.get(key(period, startTime, endTime));
+    }
+
+    /**
+     * @return The current version; pass it to {@link #putIfUnchanged} after computing a result
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Cache a computed result, unless the journal changed since the computation began
+     * @param period One of the StatsEngine.PERIOD_ constants
+     * @param startTime Start timestamp of the range
+     * @param endTime End timestamp of the range
+     * @param result The computed result
+     * @param loadVersion The version read before the computation
+     */
+    public synchronized void putIfUnchanged(int period, long startTime, long endTime,
+                                            StatsEngine.Result result, long loadVersion) {
+        if (result != null && version == loadVersion) {
+            results.put(key(period, startTime, endTime), result);
+        }
+    }
+
+    /**
+     * Drop every cached result, after a write to the journal
+     */
+    public synchronized void invalidate() {
+        version++;
+        results.clear();
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    private static String key(int period, long startTime, long endTime) {
+        return period + ":" + startTime + ":" + endTime;
+    }
+}
@@ -9,24 +9,30 @@ import androidx.annotation.NonNull;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
-import gui.ceng.mu.edu.mentalhealthjournal.data.database.JournalDatabase;
+import gui.ceng.mu.edu.mentalhealthjournal.data.database.DatabaseScheduler;
 import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.EntryCursor;
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.JournalRepository;
 
 /**
  * Manages backup and restore operations for journal data.
@@ -38,14 +44,21 @@ public class BackupManager {
     private static final String BACKUP_FOLDER = "MentalHealthJournal";
     private static final String BACKUP_FILE_PREFIX = "journal_backup_";
     private static final String BACKUP_FILE_EXTENSION = ".json";
+    private static final int BACKUP_VERSION = 1;
 
     private final Context context;
     private final Gson gson;
-    private final ExecutorService executor;
+    private final Executor executor;
+    private final JournalRepository repository;
 
     public interface BackupCallback {
         void onSuccess(String message);
         void onError(String error);
+
+        /**
+         * Called on the backup thread as restored or imported entries are written.
+         */
+        default void onProgress(int written, int total) {}
     }
 
     public BackupManager(@NonNull Context context) {
@@ -53,7 +66,9 @@ public class BackupManager {
         this.gson = new GsonBuilder()
                 .setPrettyPrinting()
                 .create();
-        this.executor = Executors.newSingleThreadExecutor();
+        // Backups are bulk jobs, keep them off the lanes screens wait on
+        this.executor = DatabaseScheduler.getInstance().background();
+        this.repository = new JournalRepository(this.context);
     }
 
     /**
@@ -63,26 +78,11 @@ public class BackupManager {
     public void createBackup(@NonNull BackupCallback callback) {
         executor.execute(() -> {
             try {
-                // Get all entries from database
-                JournalDatabase db = JournalDatabase.getInstance(context);
-                List<JournalEntryEntity> entries = db.journalEntryDao().getAllEntriesSync();
-
-                // Create backup data
-                BackupData backupData = new BackupData();
-                backupData.version = 1;
-                backupData.createdAt = System.currentTimeMillis();
-                backupData.entries = entries;
-
-                // Convert to JSON
-                String json = gson.toJson(backupData);
-
-                // Get backup file
                 File backupFile = getBackupFile();
-                
-                // Write to file
-                try (FileOutputStream fos = new FileOutputStream(backupFile);
-                     OutputStreamWriter writer = new OutputStreamWriter(fos)) {
-                    writer.write(json);
+
+                // Stream entries from the database straight into the file
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(backupFile)))) {
+                    writeBackup(writer);
                 }
 
                 callback.onSuccess("Backup saved to: " + backupFile.getName());
@@ -124,17 +124,13 @@ public class BackupManager {
                     return;
                 }
 
-                // Clear existing entries and insert restored ones
-                JournalDatabase db = JournalDatabase.getInstance(context);
-                db.journalEntryDao().deleteAllEntries();
-                
-                for (JournalEntryEntity entry : backupData.entries) {
-                    // Reset ID to let Room auto-generate
-                    entry.setId(0);
-                    db.journalEntryDao().insert(entry);
-                }
+                // Replace existing entries with the restored ones in one transaction,
+                // so a failed restore keeps the current journal
+                List<JournalEntryEntity> entries = backupData.toEntities();
+                repository.bulkInsertSync(entries,
+                        JournalRepository.DEFAULT_BATCH_SIZE, true, false, callback::onProgress);
 
-                callback.onSuccess("Restored " + backupData.entries.size() + " entries");
+                callback.onSuccess("Restored " + entries.size() + " entries");
 
             } catch (Exception e) {
                 callback.onError("Restore failed: " + e.getMessage());
@@ -148,26 +144,14 @@ public class BackupManager {
     public void exportToUri(@NonNull Uri uri, @NonNull BackupCallback callback) {
         executor.execute(() -> {
             try {
-                // Get all entries from database
-                JournalDatabase db = JournalDatabase.getInstance(context);
-                List<JournalEntryEntity> entries = db.journalEntryDao().getAllEntriesSync();
-
-                // Create export data
-                BackupData exportData = new BackupData();
-                exportData.version = 1;
-                exportData.createdAt = System.currentTimeMillis();
-                exportData.entries = entries;
-
-                // Convert to JSON
-                String json = gson.toJson(exportData);
-
-                // Write to URI
-                try (java.io.OutputStream os = context.getContentResolver().openOutputStream(uri);
-                     OutputStreamWriter writer = new OutputStreamWriter(os)) {
-                    writer.write(json);
+                // Stream entries from the database straight into the URI
+                int exported;
+                try (OutputStream os = context.getContentResolver().openOutputStream(uri);
+                     Writer writer = new BufferedWriter(new OutputStreamWriter(os))) {
+                    exported = writeBackup(writer);
                 }
 
-                callback.onSuccess("Exported " + entries.size() + " entries");
+                callback.onSuccess("Exported " + exported + " entries");
 
             } catch (Exception e) {
                 callback.onError("Export failed: " + e.getMessage());
@@ -199,16 +183,9 @@ public class BackupManager {
                     return;
                 }
 
-                // Insert imported entries (merge with existing)
-                JournalDatabase db = JournalDatabase.getInstance(context);
-                int imported = 0;
-                
-                for (JournalEntryEntity entry : importData.entries) {
-                    // Reset ID to let Room auto-generate (creates new entries)
-                    entry.setId(0);
-                    db.journalEntryDao().insert(entry);
-                    imported++;
-                }
+                // Insert imported entries (merge with existing) in batched transactions
+                int imported = repository.bulkInsertSync(importData.toEntities(),
+                        JournalRepository.DEFAULT_BATCH_SIZE, false, false, callback::onProgress);
 
                 callback.onSuccess("Imported " + imported + " entries");
 
@@ -218,6 +195,31 @@ public class BackupManager {
         });
     }
 
+    /**
+     * Writes all entries as backup JSON, one entry at a time off a database cursor,
+     * so memory use does not grow with the journal.
+     * Produces the same document as serializing {@link BackupData}.
+     * @return Number of entries written
+     */
+    private int writeBackup(Writer out) throws IOException {
+        JsonWriter json = gson.newJsonWriter(out);
+        json.beginObject();
+        json.name("version").value(BACKUP_VERSION);
+        json.name("createdAt").value(System.currentTimeMillis());
+        json.name("entries").beginArray();
+        int written = 0;
+        try (EntryCursor cursor = repository.openEntryCursor(EntryCursor.ALL_COLUMNS, 0, Long.MAX_VALUE, true)) {
+            while (cursor.moveToNext()) {
+                gson.toJson(BackupEntry.from(cursor.getEntry()), BackupEntry.class, json);
+                written++;
+            }
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+        return written;
+    }
+
     /**
      * Checks if a backup file exists.
      */
@@ -250,6 +252,59 @@ public class BackupManager {
     private static class BackupData {
         int version;
         long createdAt;
-        List<JournalEntryEntity> entries;
+        List<BackupEntry> entries;
+
+        /**
+         * Convert the entries for writing, with IDs reset to let Room auto-generate them
+         */
+        List<JournalEntryEntity> toEntities() {
+            List<JournalEntryEntity> result = new ArrayList<>(entries.size());
+            for (BackupEntry entry : entries) {
+                result.add(entry.toEntity());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * One entry as stored in a backup file (version 1). Kept apart from the database
+     * entity, so columns the database derives from an entry, such as its local day
+     * and tag masks, never change the file format: sleep tags are stored as one full list.
+     */
+    private static class BackupEntry {
+        long id;
+        long timestamp;
+        int moodLevel;
+        List<String> emotions;
+        List<String> sleepTags;
+        List<String> activities;
+        String note;
+        String photoPath;
+        String voiceMemoPath;
+
+        static BackupEntry from(JournalEntryEntity entity) {
+            BackupEntry entry = new BackupEntry();
+            entry.id = entity.getId();
+            entry.timestamp = entity.getTimestamp();
+            entry.moodLevel = entity.getMoodLevel();
+            entry.emotions = entity.getEmotions();
+            entry.sleepTags = entity.getSleepTags();
+            entry.activities = entity.getActivities();
+            entry.note = entity.getNote();
+            entry.photoPath = entity.getPhotoPath();
+            entry.voiceMemoPath = entity.getVoiceMemoPath();
+            return entry;
+        }
+
+        JournalEntryEntity toEntity() {
+            JournalEntryEntity entity = new JournalEntryEntity(timestamp, moodLevel);
+            entity.setEmotions(emotions);
+            entity.setSleepTags(sleepTags);
+            entity.setActivities(activities);
+            entity.setNote(note);
+            entity.setPhotoPath(photoPath);
+            entity.setVoiceMemoPath(voiceMemoPath);
+            return entity;
+        }
     }
 }
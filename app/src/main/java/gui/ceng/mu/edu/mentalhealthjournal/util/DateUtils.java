@@ -1,6 +1,9 @@
 package gui.ceng.mu.edu.mentalhealthjournal.util;
 
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
@@ -171,6 +174,42 @@ public final class DateUtils {
         return format(timestamp, PATTERN_DATE_KEY);
     }
 
+    /**
+     * Get the local epoch day (days since 1970-01-01 in the default time zone) of a timestamp.
+     * @param timestamp Timestamp in milliseconds
+     * @return Epoch day
+     */
+    public static long getEpochDay(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Get the local epoch day of a calendar date.
+     * @param cal Calendar instance
+     * @return Epoch day
+     */
+    public static long getEpochDay(Calendar cal) {
+        return LocalDate.of(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH)).toEpochDay();
+    }
+
+    /**
+     * Get the first millisecond of a local epoch day.
+     * @param epochDay Epoch day
+     * @return Start of day timestamp
+     */
+    public static long getStartOfEpochDay(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Get the last millisecond of a local epoch day (handles DST-length days).
+     * @param epochDay Epoch day
+     * @return End of day timestamp
+     */
+    public static long getEndOfEpochDay(long epochDay) {
+        return getStartOfEpochDay(epochDay + 1) - 1;
+    }
+
     /**
      * Get the start of current week (Monday).
      * @return Calendar set to start of week
@@ -0,0 +1,163 @@
+package gui.ceng.mu.edu.mentalhealthjournal.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Utility class for full-text search over journal_entries_fts.
+ * Builds MATCH expressions from user input, ranks results from FTS4 matchinfo
+ * and maps FTS4 offsets back to character ranges.
+ */
+public final class FtsUtils {
+
+    // Column indices of journal_entries_fts
+    public static final int COLUMN_NOTE = 0;
+    public static final int COLUMN_EMOTIONS = 1;
+    public static final int COLUMN_ACTIVITIES = 2;
+
+    // Tag matches are stronger signals than a word somewhere in a long note
+    private static final double[] COLUMN_WEIGHTS = {1.0, 2.0, 2.0};
+
+    // Upper bound on terms, keeps pathological input from building huge queries
+    private static final int MAX_TERMS = 8;
+
+    // Prevent instantiation
+    private FtsUtils() {}
+
+    /**
+     * Build a prefix MATCH expression from free-form user input.
+     * Every word becomes a prefix term and all terms must match,
+     * e.g. "Happy wor" becomes "happy* wor*".
+     * @param input User search input
+     * @return MATCH expression, or null if the input has no searchable words
+     */
+    public static String buildPrefixQuery(String input) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        StringBuilder term = new StringBuilder();
+        int terms = 0;
+        int length = input.length();
+        for (int i = 0; i <= length && terms < MAX_TERMS; ) {
+            int codePoint = i < length ? input.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                term.appendCodePoint(codePoint);
+            } else if (term.length() > 0) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append(term.toString().toLowerCase(Locale.ROOT)).append('*');
+                term.setLength(0);
+                terms++;
+            }
+            i += i < length ? Character.charCount(codePoint) : 1;
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    /**
+     * Score a result from its matchinfo(..., 'pcx') blob.
+     * Each phrase hit in a column counts in proportion to how rare the phrase
+     * is in that column across all rows, weighted per column.
+     * @param matchInfo The matchinfo blob
+     * @return Relevance score, higher is better
+     */
+    public static double rank(byte[] matchInfo) {
+        if (matchInfo == null || matchInfo.length < 8) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phraseCount = buffer.getInt(0);
+        int columnCount = buffer.getInt(4);
+        double score = 0;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                int base = 8 + 12 * (phrase * columnCount + column);
+                if (base + 8 > matchInfo.length) {
+                    return score;
+                }
+                int hitsInRow = buffer.getInt(base);
+                int hitsInAllRows = buffer.getInt(base + 4);
+                if (hitsInRow > 0 && hitsInAllRows > 0) {
+                    double weight = column < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[column] : 1.0;
+                    score += weight * hitsInRow / hitsInAllRows;
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Parse the result of offsets(journal_entries_fts).
+     * @param offsets Space-separated integers, four per matched term
+     * @return List of {column, term, byteOffset, byteLength}
+     */
+    public static List<int[]> parseOffsets(String offsets) {
+        if (offsets == null || offsets.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String[] parts = offsets.trim().split(" ");
+        List<int[]> result = new ArrayList<>(parts.length / 4);
+        for (int i = 0; i + 3 < parts.length; i += 4) {
+            result.add(new int[]{
+                    Integer.parseInt(parts[i]),
+                    Integer.parseInt(parts[i + 1]),
+                    Integer.parseInt(parts[i + 2]),
+                    Integer.parseInt(parts[i + 3])
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Convert the UTF-8 byte offsets of one column's matches into character ranges.
+     * @param text The column text
+     * @param offsets Parsed offsets (see {@link #parseOffsets})
+     * @param column The column index
+     * @return List of {start, end} character ranges (end exclusive)
+     */
+    public static List<int[]> getCharRanges(String text, List<int[]> offsets, int column) {
+        if (text == null || offsets.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<int[]> ranges = new ArrayList<>();
+        for (int[] match : offsets) {
+            if (match[0] != column) {
+                continue;
+            }
+            int start = byteToCharOffset(text, match[2]);
+            int end = byteToCharOffset(text, match[2] + match[3]);
+            if (start < end) {
+                ranges.add(new int[]{start, end});
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Map a UTF-8 byte offset within a string to a char index.
+     */
+    private static int byteToCharOffset(String text, int byteOffset) {
+        int bytes = 0;
+        int i = 0;
+        while (i < text.length() && bytes < byteOffset) {
+            int codePoint = text.codePointAt(i);
+            if (codePoint < 0x80) {
+                bytes += 1;
+            } else if (codePoint < 0x800) {
+                bytes += 2;
+            } else if (codePoint < 0x10000) {
+                bytes += 3;
+            } else {
+                bytes += 4;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return i;
+    }
+}
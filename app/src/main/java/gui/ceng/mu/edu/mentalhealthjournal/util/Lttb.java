@@ -0,0 +1,77 @@
+package gui.ceng.mu.edu.mentalhealthjournal.util;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a chart series.
+ * Keeps the first and last point, and from each bucket in between the point
+ * forming the largest triangle with the previously kept point and the average of
+ * the next bucket, so peaks and dips survive while the point count stays bounded.
+ * Points are placed at their index, as the charts draw them.
+ */
+public final class Lttb {
+
+    // Fewer points than this cannot be split into first, middle and last buckets
+    public static final int MIN_POINTS = 3;
+
+    // Prevent instantiation
+    private Lttb() {}
+
+    /**
+     * Pick the points to draw, in O(n)
+     * @param values Values of the series, in display order
+     * @param maxPoints Maximum number of points to keep
+     * @return Ascending indices of the kept points; every index if the series already fits
+     */
+    public static int[] select(float[] values, int maxPoints) {
+        int n = values.length;
+        if (maxPoints >= n || maxPoints < MIN_POINTS) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] kept = new int[maxPoints];
+        // The first and last point are kept; the others are split into maxPoints - 2 buckets
+        double bucketSize = (double) (n - 2) / (maxPoints - 2);
+        int previous = 0;
+        kept[0] = 0;
+
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            boolean last = bucket == maxPoints - 3;
+            int start = (int) (bucket * bucketSize) + 1;
+            // Computed exactly for the final bucket, so rounding cannot drop its last point
+            int end = last ? n - 1 : (int) ((bucket + 1) * bucketSize) + 1;
+
+            // Average of the next bucket, or the last point for the final bucket
+            int nextStart = end;
+            int nextEnd = last ? n : Math.min((int) ((bucket + 2) * bucketSize) + 1, n - 1);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += i;
+                avgY += values[i];
+            }
+            avgX /= nextEnd - nextStart;
+            avgY /= nextEnd - nextStart;
+
+            double prevY = values[previous];
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle area; only the comparison matters
+                double area = Math.abs((previous - avgX) * (values[i] - prevY)
+                        - (previous - i) * (avgY - prevY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            kept[bucket + 1] = chosen;
+            previous = chosen;
+        }
+
+        kept[maxPoints - 1] = n - 1;
+        return kept;
+    }
+}
@@ -0,0 +1,275 @@
+package gui.ceng.mu.edu.mentalhealthjournal.util;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.DailySummaryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.PeriodStats;
+
+/**
+ * Turns the statistics of a period into chart models the stats screen can draw
+ * without further work. Plain Java, meant to run on a background thread: the
+ * per-day input is read as parallel primitive arrays in one pass, and dates are
+ * only formatted once per chart bucket.
+ */
+public final class StatsEngine {
+
+    // Period types, as used by DateUtils.getDateRangeForPeriod
+    public static final int PERIOD_WEEKLY = 0;
+    public static final int PERIOD_MONTHLY = 1;
+    public static final int PERIOD_YEARLY = 2;
+
+    private static final String[] MOOD_NAMES = {"Very Bad", "Bad", "Normal", "Good", "Very Good"};
+
+    private static final DateTimeFormatter WEEKDAY = DateTimeFormatter.ofPattern("EEE", Locale.US);
+    private static final DateTimeFormatter DAY_OF_MONTH = DateTimeFormatter.ofPattern("dd", Locale.US);
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("MMM", Locale.US);
+    private static final DateTimeFormatter MONTH_DAY = DateTimeFormatter.ofPattern("MMM d", Locale.US);
+
+    private static final Series EMPTY = new Series(new String[0], new float[0]);
+
+    // Prevent instantiation
+    private StatsEngine() {}
+
+    /**
+     * Labelled values of one chart, in display order.
+     */
+    public static final class Series {
+        public final String[] labels;
+        public final float[] values;
+
+        Series(String[] labels, float[] values) {
+            this.labels = labels;
+            this.values = values;
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        public boolean isEmpty() {
+            return values.length == 0;
+        }
+    }
+
+    /**
+     * Everything the stats screen shows for one period.
+     */
+    public static final class Result {
+        public final int totalEntries;
+        // Average mood formatted for display, "--" when the period is empty
+        public final String averageMood;
+        public final int photoCount;
+        public final int voiceCount;
+        // Average mood per day; days without entries are left out. Up to a year of points,
+        // so charts downsample it to their width (see Lttb)
+        public final Series moodTrend;
+        // Entries per day, per week or per month, including empty buckets; no buckets for an empty period
+        public final Series entryCounts;
+        // Entries per mood level; levels without entries are left out
+        public final Series moodShares;
+        // Mood level of each slice of moodShares, for its color
+        public final int[] moodShareLevels;
+
+        Result(PeriodStats stats, Series moodTrend, Series entryCounts, Series moodShares, int[] moodShareLevels) {
+            this.totalEntries = stats.getTotalEntries();
+            this.averageMood = stats.isEmpty() ? "--" : String.format(Locale.US, "%.1f", stats.getAverageMood());
+            this.photoCount = stats.getPhotoCount();
+            this.voiceCount = stats.getVoiceCount();
+            this.moodTrend = moodTrend;
+            this.entryCounts = entryCounts;
+            this.moodShares = moodShares;
+            this.moodShareLevels = moodShareLevels;
+        }
+
+        public boolean isEmpty() {
+            return totalEntries == 0;
+        }
+    }
+
+    /**
+     * Build the chart models of a period from its daily summaries.
+     * @param period One of the PERIOD_ constants
+     * @param startDay First local epoch day of the period
+     * @param endDay Last local epoch day of the period
+     * @param stats Totals and mood histogram of the period
+     * @param summaries Daily summaries covering the period, oldest first; others are ignored
+     * @return The chart models
+     */
+    public static Result compute(int period, long startDay, long endDay,
+                                 PeriodStats stats, List<DailySummaryEntity> summaries) {
+        int size = summaries.size();
+        long[] days = new long[size];
+        int[] entryCounts = new int[size];
+        int[] moodSums = new int[size];
+        for (int i = 0; i < size; i++) {
+            DailySummaryEntity summary = summaries.get(i);
+            days[i] = summary.getEpochDay();
+            entryCounts[i] = summary.getEntryCount();
+            moodSums[i] = summary.getMoodSum();
+        }
+        return compute(period, startDay, endDay, stats, days, entryCounts, moodSums);
+    }
+
+    /**
+     * Build the chart models of a period from per-day columns.
+     * @param period One of the PERIOD_ constants
+     * @param startDay First local epoch day of the period
+     * @param endDay Last local epoch day of the period
+     * @param stats Totals and mood histogram of the period
+     * @param days Local epoch days with entries, ascending; days outside the period are ignored
+     * @param entryCounts Number of entries of each day
+     * @param moodSums Sum of the mood levels of each day
+     * @return The chart models
+     */
+    public static Result compute(int period, long startDay, long endDay, PeriodStats stats,
+                                 long[] days, int[] entryCounts, int[] moodSums) {
+        if (days.length != entryCounts.length || days.length != moodSums.length) {
+            throw new IllegalArgumentException("Columns differ in length");
+        }
+
+        long[] trendStarts = dayStarts(startDay, endDay);
+        long[] countStarts = period == PERIOD_YEARLY ? monthStarts(startDay, endDay)
+                : period == PERIOD_MONTHLY ? weekStarts(startDay, endDay) : trendStarts;
+
+        long[] trendSums = new long[trendStarts.length];
+        int[] trendCounts = new int[trendStarts.length];
+        int[] bucketCounts = new int[countStarts.length];
+
+        // Both bucket lists are ascending like the days, so one pass with a cursor per chart suffices
+        int trend = 0;
+        int count = 0;
+        int total = 0;
+        for (int i = 0; i < days.length; i++) {
+            long day = days[i];
+            if (day < startDay || day > endDay) {
+                continue;
+            }
+            trend = advance(trendStarts, trend, day);
+            count = advance(countStarts, count, day);
+            trendSums[trend] += moodSums[i];
+            trendCounts[trend] += entryCounts[i];
+            bucketCounts[count] += entryCounts[i];
+            total += entryCounts[i];
+        }
+
+        DateTimeFormatter trendFormat = period == PERIOD_YEARLY ? MONTH_DAY
+                : period == PERIOD_MONTHLY ? DAY_OF_MONTH : WEEKDAY;
+        DateTimeFormatter countFormat = period == PERIOD_YEARLY ? MONTH
+                : period == PERIOD_MONTHLY ? MONTH_DAY : WEEKDAY;
+
+        int[] levels = moodShareLevels(stats);
+        return new Result(stats,
+                moodTrend(trendStarts, trendSums, trendCounts, trendFormat),
+                total > 0 ? entryCounts(countStarts, bucketCounts, countFormat) : EMPTY,
+                moodShares(stats, levels),
+                levels);
+    }
+
+    /**
+     * Index of the bucket holding a day, moving forward from the previous day's bucket.
+     */
+    private static int advance(long[] starts, int bucket, long day) {
+        while (bucket + 1 < starts.length && starts[bucket + 1] <= day) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static Series moodTrend(long[] starts, long[] sums, int[] counts, DateTimeFormatter format) {
+        int points = 0;
+        for (int c : counts) {
+            if (c > 0) {
+                points++;
+            }
+        }
+        String[] labels = new String[points];
+        float[] values = new float[points];
+        int point = 0;
+        for (int bucket = 0; bucket < starts.length; bucket++) {
+            if (counts[bucket] > 0) {
+                labels[point] = format.format(LocalDate.ofEpochDay(starts[bucket]));
+                values[point] = (float) sums[bucket] / counts[bucket];
+                point++;
+            }
+        }
+        return new Series(labels, values);
+    }
+
+    private static Series entryCounts(long[] starts, int[] counts, DateTimeFormatter format) {
+        String[] labels = new String[starts.length];
+        float[] values = new float[starts.length];
+        for (int bucket = 0; bucket < starts.length; bucket++) {
+            labels[bucket] = format.format(LocalDate.ofEpochDay(starts[bucket]));
+            values[bucket] = counts[bucket];
+        }
+        return new Series(labels, values);
+    }
+
+    private static Series moodShares(PeriodStats stats, int[] levels) {
+        String[] labels = new String[levels.length];
+        float[] values = new float[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            labels[i] = MOOD_NAMES[levels[i] - PeriodStats.MIN_MOOD];
+            values[i] = stats.getMoodCount(levels[i]);
+        }
+        return new Series(labels, values);
+    }
+
+    private static int[] moodShareLevels(PeriodStats stats) {
+        int slices = 0;
+        for (int level = PeriodStats.MIN_MOOD; level <= PeriodStats.MAX_MOOD; level++) {
+            if (stats.getMoodCount(level) > 0) {
+                slices++;
+            }
+        }
+        int[] levels = new int[slices];
+        int slice = 0;
+        for (int level = PeriodStats.MIN_MOOD; level <= PeriodStats.MAX_MOOD; level++) {
+            if (stats.getMoodCount(level) > 0) {
+                levels[slice++] = level;
+            }
+        }
+        return levels;
+    }
+
+    private static long[] dayStarts(long startDay, long endDay) {
+        long[] starts = new long[(int) Math.max(0, endDay - startDay + 1)];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = startDay + i;
+        }
+        return starts;
+    }
+
+    /**
+     * Seven-day buckets counted from the first day, the last one possibly shorter.
+     */
+    private static long[] weekStarts(long startDay, long endDay) {
+        long[] starts = new long[(int) Math.max(0, (endDay - startDay) / 7 + 1)];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = startDay + 7L * i;
+        }
+        return starts;
+    }
+
+    /**
+     * Calendar-month buckets; the first starts on the first day, not on the 1st.
+     */
+    private static long[] monthStarts(long startDay, long endDay) {
+        if (endDay < startDay) {
+            return new long[0];
+        }
+        LocalDate first = LocalDate.ofEpochDay(startDay);
+        LocalDate last = LocalDate.ofEpochDay(endDay);
+        int months = (last.getYear() - first.getYear()) * 12 + last.getMonthValue() - first.getMonthValue() + 1;
+        long[] starts = new long[months];
+        starts[0] = startDay;
+        LocalDate month = first.withDayOfMonth(1);
+        for (int i = 1; i < months; i++) {
+            starts[i] = month.plusMonths(i).toEpochDay();
+        }
+        return starts;
+    }
+}
@@ -0,0 +1,252 @@
+package gui.ceng.mu.edu.mentalhealthjournal.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * Keeps the current and longest streak of consecutive local days with entries,
+ * so every screen gets the same answer without reading the journal.
+ * Only the latest run of days and the longest length are kept, persisted in
+ * preferences. Writes adjust them in place when that is enough to stay exact,
+ * e.g. an entry for today; anything else, like a backfilled old day, marks them
+ * stale and the next read rebuilds them from the list of days with entries.
+ *
+ * Writes are bracketed by {@link #beginWrite} and {@link #endWrite}. The persisted
+ * state is only marked valid while no write is open, and {@code beginWrite} clears
+ * it with a synchronous commit before the write's transaction commits, so a crash
+ * between the journal commit and the preference save leaves the streaks stale,
+ * never wrong.
+ */
+public final class StreakTracker {
+
+    private static final String PREFS_NAME = "streak_prefs";
+    private static final String KEY_VALID = "valid";
+    private static final String KEY_RUN_START = "run_start";
+    private static final String KEY_RUN_END = "run_end";
+    private static final String KEY_LONGEST = "longest";
+
+    // Run bounds when no day has entries
+    private static final long NONE = Long.MIN_VALUE;
+
+    private static volatile StreakTracker INSTANCE;
+
+    private final SharedPreferences prefs;
+
+    // Guarded by this. The latest run of consecutive days with entries, NONE if
+    // there are no entries; only meaningful while valid.
+    private boolean valid;
+    private long runStart;
+    private long runEnd;
+    private int longest;
+    // Bumped by every change, so a rebuild that raced a write is not kept
+    private long version;
+    // Writes begun and not yet ended
+    private int openWrites;
+    // Whether the persisted state says valid
+    private boolean savedValid;
+
+    /**
+     * Current and longest streak, in days.
+     */
+    public static final class Streaks {
+        public final int current;
+        public final int longest;
+
+        Streaks(int current, int longest) {
+            this.current = current;
+            this.longest = longest;
+        }
+    }
+
+    /**
+     * @param prefs Preferences holding the tracker state
+     */
+    public StreakTracker(@NonNull SharedPreferences prefs) {
+        this.prefs = prefs;
+        valid = prefs.getBoolean(KEY_VALID, false);
+        runStart = prefs.getLong(KEY_RUN_START, NONE);
+        runEnd = prefs.getLong(KEY_RUN_END, NONE);
+        longest = prefs.getInt(KEY_LONGEST, 0);
+        savedValid = valid;
+    }
+
+    /**
+     * Get the singleton instance of the tracker
+     * @param context Application context
+     * @return The tracker
+     */
+    public static StreakTracker getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (StreakTracker.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new StreakTracker(context.getApplicationContext()
+                            .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @return Whether the streaks are known without a rebuild
+     */
+    public synchronized boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return The current version; pass it to {@link #rebuild} with the days read after it
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the streaks; only exact while {@link #isValid()}
+     * @param today Today's local epoch day
+     * @return The streaks
+     */
+    public synchronized Streaks getStreaks(long today) {
+        return new Streaks(currentStreak(runStart, runEnd, today), longest);
+    }
+
+    /**
+     * Mark the start of a write that may change the days with entries, before its
+     * transaction commits; must be paired with {@link #endWrite}. Only the first
+     * write after the state was saved valid waits for the disk.
+     */
+    public synchronized void beginWrite() {
+        openWrites++;
+        if (savedValid) {
+            prefs.edit().putBoolean(KEY_VALID, false).commit();
+            savedValid = false;
+        }
+    }
+
+    /**
+     * Mark the end of a write, after it committed or rolled back and its change,
+     * if any, was recorded
+     */
+    public synchronized void endWrite() {
+        openWrites--;
+        if (openWrites == 0 && valid) {
+            save();
+        }
+    }
+
+    /**
+     * Record that a day has an entry, after an insert or an edit that kept its day
+     * @param epochDay The local epoch day of the entry
+     */
+    public synchronized void onDayAdded(long epochDay) {
+        version++;
+        if (!valid || (runEnd != NONE && epochDay >= runStart && epochDay <= runEnd)) {
+            return;
+        }
+        if (runEnd == NONE || epochDay > runEnd + 1) {
+            // A new latest run; no day after the old one has entries
+            runStart = epochDay;
+            runEnd = epochDay;
+        } else if (epochDay == runEnd + 1) {
+            runEnd = epochDay;
+        } else {
+            // An earlier day may join older runs, which are not kept
+            valid = false;
+            save();
+            return;
+        }
+        longest = Math.max(longest, (int) (runEnd - runStart + 1));
+        save();
+    }
+
+    /**
+     * Record that a day no longer has entries, after a delete
+     * @param epochDay The local epoch day that became empty
+     */
+    public synchronized void onDayRemoved(long epochDay) {
+        version++;
+        if (!valid) {
+            return;
+        }
+        int length = runEnd == NONE ? 0 : (int) (runEnd - runStart + 1);
+        // Outside the latest run, or it was the longest or is now gone: older runs are needed
+        if (runEnd == NONE || epochDay < runStart || epochDay > runEnd || length >= longest || length == 1) {
+            valid = false;
+            save();
+            return;
+        }
+        if (epochDay == runEnd) {
+            runEnd--;
+        } else {
+            // The days after the removed one are the latest run now
+            runStart = epochDay + 1;
+        }
+        save();
+    }
+
+    /**
+     * Mark the streaks stale after a write whose effect on days is not known,
+     * e.g. a bulk import, a restore or a time zone change
+     */
+    public synchronized void invalidate() {
+        version++;
+        if (valid) {
+            valid = false;
+            save();
+        }
+    }
+
+    /**
+     * Rebuild the streaks from every day with entries, in O(days). The result is only
+     * kept if no write happened since the days were read.
+     * @param days Local epoch days with entries, ascending and distinct
+     * @param loadVersion The version read before the days
+     * @param today Today's local epoch day
+     * @return The streaks of the given days
+     */
+    public synchronized Streaks rebuild(List<Long> days, long loadVersion, long today) {
+        long start = NONE;
+        long end = NONE;
+        int max = 0;
+        for (long day : days) {
+            if (end == NONE || day != end + 1) {
+                start = day;
+            }
+            end = day;
+            max = Math.max(max, (int) (end - start + 1));
+        }
+        if (loadVersion == version) {
+            valid = true;
+            runStart = start;
+            runEnd = end;
+            longest = max;
+            save();
+        }
+        return new Streaks(currentStreak(start, end, today), max);
+    }
+
+    /**
+     * Length of a run up to today, if it ends today or yesterday
+     */
+    private static int currentStreak(long start, long end, long today) {
+        if (end == NONE || end < today - 1 || start > today) {
+            return 0;
+        }
+        return (int) (Math.min(end, today) - start + 1);
+    }
+
+    private void save() {
+        // While a write is open the journal may already hold changes not recorded here
+        savedValid = valid && openWrites == 0;
+        prefs.edit()
+                .putBoolean(KEY_VALID, savedValid)
+                .putLong(KEY_RUN_START, runStart)
+                .putLong(KEY_RUN_END, runEnd)
+                .putInt(KEY_LONGEST, longest)
+                .apply();
+    }
+}
@@ -0,0 +1,188 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.ArchiveGuard;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ArchiveGuard.
+ * Journal and archive are modelled as two counters: a move takes entries from one
+ * and adds them to the other, a split read adds them up with two separate reads,
+ * and a combined read sees both at once.
+ */
+public class ArchiveGuardTest {
+
+    private static final int ENTRIES = 1000;
+
+    @Test
+    public void testRead_NoMove_RunsSplitReadOnce() {
+        ArchiveGuard guard = new ArchiveGuard();
+        AtomicInteger splitReads = new AtomicInteger();
+
+        int result = guard.read(() -> {
+            splitReads.incrementAndGet();
+            return 1;
+        }, () -> 2);
+
+        assertEquals(1, result);
+        assertEquals(1, splitReads.get());
+        assertEquals(0, guard.getRetries());
+    }
+
+    @Test
+    public void testRead_MoveDuringSplitRead_RetriesRead() {
+        ArchiveGuard guard = new ArchiveGuard();
+        AtomicInteger splitReads = new AtomicInteger();
+
+        int result = guard.read(() -> {
+            if (splitReads.incrementAndGet() == 1) {
+                // A move begins and ends while the first attempt runs
+                guard.beginMove();
+                guard.endMove();
+                return -1;
+            }
+            return 1;
+        }, () -> 2);
+
+        assertEquals(1, result);
+        assertEquals(2, splitReads.get());
+        assertEquals(1, guard.getRetries());
+    }
+
+    @Test
+    public void testRead_ChangeDuringSplitRead_RetriesRead() {
+        ArchiveGuard guard = new ArchiveGuard();
+        AtomicInteger splitReads = new AtomicInteger();
+
+        guard.read(() -> {
+            if (splitReads.incrementAndGet() == 1) {
+                guard.changed();
+            }
+            return 1;
+        }, () -> 2);
+
+        assertEquals(2, splitReads.get());
+    }
+
+    @Test
+    public void testRead_MoveInProgress_UsesCombinedRead() {
+        ArchiveGuard guard = new ArchiveGuard();
+        guard.beginMove();
+
+        int result = guard.read(() -> {
+            throw new AssertionError("Split read during a move");
+        }, () -> 2);
+
+        assertEquals(2, result);
+        assertTrue(guard.isMoving());
+        guard.endMove();
+        assertFalse(guard.isMoving());
+    }
+
+    @Test
+    public void testSnapshot_UnchangedArchive_KeepsValue() {
+        ArchiveGuard guard = new ArchiveGuard();
+        AtomicInteger loads = new AtomicInteger();
+        ArchiveGuard.Snapshot<Integer> snapshot = new ArchiveGuard.Snapshot<>(guard, loads::incrementAndGet);
+
+        assertEquals(1, snapshot.get().intValue());
+        assertEquals(1, snapshot.get().intValue());
+
+        guard.changed();
+        assertEquals(2, snapshot.get().intValue());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testSnapshot_LoadedDuringMove_NotKept() {
+        ArchiveGuard guard = new ArchiveGuard();
+        AtomicInteger loads = new AtomicInteger();
+        ArchiveGuard.Snapshot<Integer> snapshot = new ArchiveGuard.Snapshot<>(guard, loads::incrementAndGet);
+
+        guard.beginMove();
+        snapshot.get();
+        snapshot.get();
+        guard.endMove();
+
+        assertEquals(2, loads.get());
+        snapshot.get();
+        snapshot.get();
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testRead_ConcurrentMoves_NeverMissOrDoubleCount() throws Exception {
+        ArchiveGuard guard = new ArchiveGuard();
+        Object lock = new Object();
+        AtomicInteger journal = new AtomicInteger(ENTRIES);
+        AtomicInteger archived = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+
+        // Moves entries back and forth; the two counters change one after the other,
+        // like the archive insert and the journal delete
+        Thread mover = new Thread(() -> {
+            started.countDown();
+            for (int i = 0; i < 20000; i++) {
+                boolean toArchive = i % 2 == 0;
+                guard.beginMove();
+                try {
+                    synchronized (lock) {
+                        (toArchive ? archived : journal).addAndGet(10);
+                    }
+                    Thread.yield();
+                    synchronized (lock) {
+                        (toArchive ? journal : archived).addAndGet(-10);
+                    }
+                } finally {
+                    guard.endMove();
+                }
+            }
+            done.set(true);
+        });
+
+        Runnable reader = () -> {
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            while (!done.get()) {
+                int total = guard.read(() -> {
+                    int inJournal = journal.get();
+                    Thread.yield();
+                    return inJournal + archived.get();
+                }, () -> {
+                    // One statement over both, which sees entries in both or neither
+                    synchronized (lock) {
+                        int both = journal.get() + archived.get();
+                        return both > ENTRIES ? ENTRIES : both;
+                    }
+                });
+                if (total != ENTRIES) {
+                    failure.compareAndSet(null, "Read " + total + " entries");
+                }
+            }
+        };
+        Thread[] readers = {new Thread(reader), new Thread(reader), new Thread(reader)};
+        for (Thread thread : readers) {
+            thread.start();
+        }
+        mover.start();
+        mover.join();
+        for (Thread thread : readers) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,103 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.EntryCache;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for EntryCache class.
+ * Tests LRU eviction, copy isolation, write-through and stale-load protection.
+ */
+public class EntryCacheTest {
+
+    private EntryCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new EntryCache(2);
+    }
+
+    private static JournalEntryEntity createEntry(long id, int moodLevel) {
+        JournalEntryEntity entry = new JournalEntryEntity(1704153600000L + id, moodLevel);
+        entry.setId(id);
+        entry.setEmotions(new ArrayList<>(Arrays.asList("happy")));
+        return entry;
+    }
+
+    @Test
+    public void testGet_MissThenHit() {
+        assertNull(cache.get(1));
+        cache.putIfUnchanged(createEntry(1, 4), cache.getVersion());
+
+        JournalEntryEntity cached = cache.get(1);
+        assertNotNull(cached);
+        assertEquals(4, cached.getMoodLevel());
+        assertEquals(1, cache.getMetrics().hits);
+        assertEquals(1, cache.getMetrics().misses);
+        assertEquals(0.5f, cache.getMetrics().getHitRate(), 0.001f);
+    }
+
+    @Test
+    public void testGet_ReturnsIndependentCopy() {
+        cache.put(createEntry(1, 4));
+
+        JournalEntryEntity first = cache.get(1);
+        first.setMoodLevel(1);
+        first.getEmotions().add("excited");
+
+        JournalEntryEntity second = cache.get(1);
+        assertEquals(4, second.getMoodLevel());
+        assertEquals(1, second.getEmotions().size());
+    }
+
+    @Test
+    public void testPut_EvictsLeastRecentlyUsed() {
+        cache.put(createEntry(1, 1));
+        cache.put(createEntry(2, 2));
+        cache.get(1);
+        cache.put(createEntry(3, 3));
+
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(3));
+        assertEquals(2, cache.getMetrics().size);
+    }
+
+    @Test
+    public void testPutIfUnchanged_IgnoresLoadThatRacedAWrite() {
+        long version = cache.getVersion();
+        cache.put(createEntry(1, 5));
+
+        // A load that started before the write returns the old row
+        cache.putIfUnchanged(createEntry(1, 2), version);
+
+        assertEquals(5, cache.get(1).getMoodLevel());
+    }
+
+    @Test
+    public void testPutIfUnchanged_IgnoresMissingEntry() {
+        cache.putIfUnchanged(null, cache.getVersion());
+        assertEquals(0, cache.getMetrics().size);
+    }
+
+    @Test
+    public void testRemoveAndClear() {
+        cache.put(createEntry(1, 1));
+        cache.put(createEntry(2, 2));
+
+        cache.remove(1);
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(2));
+
+        cache.clear();
+        assertNull(cache.get(2));
+        assertEquals(0, cache.getMetrics().size);
+    }
+}
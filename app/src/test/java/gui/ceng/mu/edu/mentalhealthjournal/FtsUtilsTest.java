@@ -0,0 +1,72 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import gui.ceng.mu.edu.mentalhealthjournal.util.FtsUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for FtsUtils class.
+ * Tests MATCH query building, matchinfo ranking and offsets mapping.
+ */
+public class FtsUtilsTest {
+
+    @Test
+    public void testBuildPrefixQuery_MultipleWords() {
+        assertEquals("happy* wor*", FtsUtils.buildPrefixQuery("Happy wor"));
+    }
+
+    @Test
+    public void testBuildPrefixQuery_StripsOperatorsAndPunctuation() {
+        assertEquals("happy* or* sad*", FtsUtils.buildPrefixQuery("\"happy\" OR -sad*"));
+    }
+
+    @Test
+    public void testBuildPrefixQuery_NonAsciiWords() {
+        assertEquals("güzel* gün*", FtsUtils.buildPrefixQuery("Güzel, gün!"));
+    }
+
+    @Test
+    public void testBuildPrefixQuery_NoSearchableWords() {
+        assertNull(FtsUtils.buildPrefixQuery(null));
+        assertNull(FtsUtils.buildPrefixQuery(""));
+        assertNull(FtsUtils.buildPrefixQuery("  ,.!"));
+    }
+
+    @Test
+    public void testRank_PrefersRareTermsAndTagColumns() {
+        // One phrase, three columns: {hitsInRow, hitsInAllRows, docsWithHits}
+        byte[] noteHit = matchInfo(1, 3, 1, 10, 5, 0, 0, 0, 0, 0, 0);
+        byte[] emotionHit = matchInfo(1, 3, 0, 0, 0, 1, 10, 5, 0, 0, 0);
+        byte[] rareNoteHit = matchInfo(1, 3, 1, 2, 1, 0, 0, 0, 0, 0, 0);
+
+        assertTrue(FtsUtils.rank(emotionHit) > FtsUtils.rank(noteHit));
+        assertTrue(FtsUtils.rank(rareNoteHit) > FtsUtils.rank(noteHit));
+        assertEquals(0, FtsUtils.rank(null), 0.0);
+    }
+
+    @Test
+    public void testGetCharRanges_MapsUtf8ByteOffsets() {
+        String note = "Çok happy bugün";
+        // "happy" starts after "Çok " which is 5 bytes in UTF-8
+        List<int[]> offsets = FtsUtils.parseOffsets("0 0 5 5 1 0 0 5");
+
+        List<int[]> ranges = FtsUtils.getCharRanges(note, offsets, FtsUtils.COLUMN_NOTE);
+
+        assertEquals(1, ranges.size());
+        assertEquals("happy", note.substring(ranges.get(0)[0], ranges.get(0)[1]));
+    }
+
+    private static byte[] matchInfo(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.nativeOrder());
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,77 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.JournalArchive;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the archive's view of journal_entries.
+ * The archive table itself is created and extended from the journal's columns,
+ * but the archive reads and writes the columns it names; this compares them with
+ * the latest exported Room schema, so a new entity column cannot be left out.
+ */
+public class JournalArchiveSchemaTest {
+
+    private static final String SCHEMA_DIR =
+            "schemas/gui.ceng.mu.edu.mentalhealthjournal.data.database.JournalDatabase";
+
+    @Test
+    public void testColumns_MatchLatestSchema() throws IOException {
+        Set<String> expected = new HashSet<>();
+        for (JsonElement field : getJournalEntriesEntity(latestSchema()).getAsJsonArray("fields")) {
+            expected.add(field.getAsJsonObject().get("columnName").getAsString());
+        }
+        Set<String> actual = new HashSet<>(Arrays.asList(JournalArchive.COLUMNS.split(", ")));
+
+        assertEquals(expected, actual);
+    }
+
+    private static File latestSchema() {
+        File[] schemas = new File(moduleDirectory(), SCHEMA_DIR).listFiles((dir, name) -> name.endsWith(".json"));
+        assertNotNull("Exported schemas not found", schemas);
+        File latest = null;
+        for (File schema : schemas) {
+            if (latest == null || version(schema) > version(latest)) {
+                latest = schema;
+            }
+        }
+        assertNotNull("No exported schema", latest);
+        return latest;
+    }
+
+    private static int version(File schema) {
+        return Integer.parseInt(schema.getName().replace(".json", ""));
+    }
+
+    private static JsonObject getJournalEntriesEntity(File schema) throws IOException {
+        try (Reader reader = Files.newBufferedReader(schema.toPath(), StandardCharsets.UTF_8)) {
+            JsonObject database = JsonParser.parseReader(reader).getAsJsonObject().getAsJsonObject("database");
+            for (JsonElement entity : database.getAsJsonArray("entities")) {
+                if ("journal_entries".equals(entity.getAsJsonObject().get("tableName").getAsString())) {
+                    return entity.getAsJsonObject();
+                }
+            }
+        }
+        throw new AssertionError("journal_entries not found in " + schema);
+    }
+
+    private static File moduleDirectory() {
+        // Gradle runs unit tests from the module directory, IDEs often from the project root
+        return new File(SCHEMA_DIR).isDirectory() ? new File(".") : new File("app");
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import gui.ceng.mu.edu.mentalhealthjournal.data.entity.JournalEntryEntity;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.TagVocabulary;
 
 import static org.junit.Assert.*;
 
@@ -114,6 +115,22 @@ public class JournalEntryEntityTest {
         assertTrue(retrieved.contains("good sleep"));
     }
 
+    @Test
+    public void testSetSleepTags_EncodesDefaultTags() {
+        entry.setSleepTags(Arrays.asList("nap", "good sleep"));
+
+        assertEquals(TagVocabulary.SLEEP.bitOf("good sleep"), entry.getSleepMask());
+        assertEquals(Arrays.asList("nap"), entry.getCustomSleepTags());
+        assertEquals(Arrays.asList("good sleep", "nap"), entry.getSleepTags());
+    }
+
+    @Test
+    public void testSetAndGetSleepTagsNull() {
+        entry.setSleepTags(null);
+        assertNull(entry.getSleepTags());
+        assertEquals(0, entry.getSleepMask());
+    }
+
     @Test
     public void testSetAndGetActivities() {
         List<String> activities = Arrays.asList("exercise", "reading", "music");
@@ -245,4 +262,26 @@ public class JournalEntryEntityTest {
         assertNotNull(entry.getPhotoPath());
         assertNotNull(entry.getVoiceMemoPath());
     }
+
+    @Test
+    public void testCopy_IsIndependent() {
+        entry.setId(7L);
+        entry.setTimestamp(1704153600000L);
+        entry.setMoodLevel(4);
+        entry.setEmotions(new ArrayList<>(Arrays.asList("happy", "grateful")));
+        entry.setNote("Original note");
+        entry.setPhotoPath("/path/to/photo.jpg");
+
+        JournalEntryEntity copy = entry.copy();
+        copy.getEmotions().add("calm");
+        copy.setNote("Edited note");
+
+        assertEquals(7L, copy.getId());
+        assertEquals(1704153600000L, copy.getTimestamp());
+        assertEquals(4, copy.getMoodLevel());
+        assertEquals("/path/to/photo.jpg", copy.getPhotoPath());
+        assertNull(copy.getSleepTags());
+        assertEquals(2, entry.getEmotions().size());
+        assertEquals("Original note", entry.getNote());
+    }
 }
@@ -0,0 +1,91 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import gui.ceng.mu.edu.mentalhealthjournal.util.Lttb;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Lttb downsampling.
+ */
+public class LttbTest {
+
+    @Test
+    public void shortSeriesIsKept() {
+        assertArrayEquals(new int[]{0, 1, 2, 3}, Lttb.select(new float[]{1, 2, 3, 4}, 4));
+        assertArrayEquals(new int[]{0, 1, 2}, Lttb.select(new float[]{1, 2, 3}, 10));
+    }
+
+    @Test
+    public void tooFewPointsRequestedKeepsEverything() {
+        assertEquals(5, Lttb.select(new float[]{1, 2, 3, 4, 5}, 2).length);
+    }
+
+    @Test
+    public void emptySeries() {
+        assertEquals(0, Lttb.select(new float[0], 10).length);
+    }
+
+    @Test
+    public void keepsEndpointsAndBoundsPointCount() {
+        float[] values = wave(365);
+        int[] kept = Lttb.select(values, 50);
+
+        assertEquals(50, kept.length);
+        assertEquals(0, kept[0]);
+        assertEquals(364, kept[49]);
+        for (int i = 1; i < kept.length; i++) {
+            assertTrue("indices ascend", kept[i] > kept[i - 1]);
+        }
+    }
+
+    @Test
+    public void keepsSpikes() {
+        float[] values = new float[365];
+        Arrays.fill(values, 3f);
+        values[100] = 5f;
+        values[250] = 1f;
+        int[] kept = Lttb.select(values, 20);
+
+        assertTrue(contains(kept, 100));
+        assertTrue(contains(kept, 250));
+    }
+
+    @Test
+    public void everyLengthAndThresholdGivesValidIndices() {
+        for (int n = 0; n <= 120; n++) {
+            float[] values = wave(n);
+            for (int max = 0; max <= n + 1; max++) {
+                int[] kept = Lttb.select(values, max);
+                int expected = max >= n || max < Lttb.MIN_POINTS ? n : max;
+                assertEquals(expected, kept.length);
+                for (int i = 1; i < kept.length; i++) {
+                    assertTrue(kept[i] > kept[i - 1]);
+                }
+                if (n > 0) {
+                    assertEquals(n - 1, kept[kept.length - 1]);
+                }
+            }
+        }
+    }
+
+    private static float[] wave(int n) {
+        float[] values = new float[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = 3f + 2f * (float) Math.sin(i / 9.0);
+        }
+        return values;
+    }
+
+    private static boolean contains(int[] indices, int index) {
+        for (int i : indices) {
+            if (i == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,321 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.database.JournalDatabase;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.EntryFilter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs EXPLAIN QUERY PLAN for every DAO query against the real schema and
+ * fails when one of them scans a table instead of using an index. Room does
+ * not retain {@code @Query} at runtime, so the SQL is read from the DAO
+ * sources. The database is seeded and analyzed first, so the planner sees
+ * statistics like those on a device with a couple of years of entries.
+ * The plans are written to build/reports/query-plans/query-plans.md.
+ */
+@RunWith(AndroidJUnit4.class)
+@Config(sdk = 34)
+public class QueryPlanTest {
+
+    private static final String DAO_DIR = "src/main/java/gui/ceng/mu/edu/mentalhealthjournal/data/dao";
+    private static final String REPORT = "build/reports/query-plans/query-plans.md";
+    private static final String[] CONSTANT_PACKAGES = {
+            "gui.ceng.mu.edu.mentalhealthjournal.data.model",
+            "gui.ceng.mu.edu.mentalhealthjournal.data.entity"
+    };
+
+    // A plain table scan; index scans say USING and FTS tables say VIRTUAL TABLE
+    private static final Pattern TABLE_SCAN = Pattern.compile("^SCAN (?:TABLE )?(\\w+)(?: AS \\w+)?$");
+    private static final Pattern METHOD_NAME =
+            Pattern.compile("\\s*(?:@\\w+(?:\\([^)]*\\))?\\s*)*[\\w<>\\[\\], ?]+?\\s+(\\w+)\\s*\\(");
+    private static final Pattern TOKEN = Pattern.compile("\"((?:\\\\.|[^\"\\\\])*)\"|([A-Za-z_][\\w.]*)");
+
+    /**
+     * Queries allowed to scan a table, with the reason. Keep this short: a
+     * new entry should be a deliberate decision, not a way to silence the test.
+     */
+    private static final Map<String, String> EXPECTED_SCANS = new HashMap<>();
+
+    static {
+        EXPECTED_SCANS.put("DailySummaryDao.getEpochDays",
+                "Streak rebuild reads every day; the table is keyed by epochDay, so this is an in-order walk");
+        String totals = "Whole-journal totals add up one small row per day instead of counting entries";
+        EXPECTED_SCANS.put("DailySummaryDao.getTotalEntryCount", totals);
+        EXPECTED_SCANS.put("DailySummaryDao.getTotalPhotoCount", totals);
+        EXPECTED_SCANS.put("DailySummaryDao.getTotalVoiceCount", totals);
+    }
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long START = 1_700_000_000_000L;
+    private static final int ENTRIES = 3000;
+    private static final int TAGS = 40;
+
+    private JournalDatabase database;
+    private SupportSQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, JournalDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        db = database.getOpenHelper().getWritableDatabase();
+        seed();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void queriesUseIndexes() throws IOException {
+        Map<String, String> queries = new LinkedHashMap<>();
+        File[] daos = new File(moduleDirectory(), DAO_DIR).listFiles((dir, name) -> name.endsWith(".java"));
+        assertNotNull("DAO sources not found", daos);
+        Arrays.sort(daos);
+        for (File dao : daos) {
+            String source = new String(Files.readAllBytes(dao.toPath()), StandardCharsets.UTF_8);
+            String prefix = dao.getName().replace(".java", "") + ".";
+            for (Map.Entry<String, String> query : readQueries(source).entrySet()) {
+                queries.put(prefix + query.getKey(), query.getValue());
+            }
+        }
+        assertTrue("No @Query methods found", queries.size() > 10);
+        addRawQueries(queries);
+
+        List<String> failures = new ArrayList<>();
+        StringBuilder report = new StringBuilder("# Query plans\n\n");
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            String name = query.getKey();
+            String sql = query.getValue();
+            List<String> plan = explain(sql);
+            report.append("## ").append(name).append("\n\n    ").append(sql).append("\n\n");
+            for (String step : plan) {
+                report.append("- ").append(step).append('\n');
+                if (TABLE_SCAN.matcher(step).matches() && !EXPECTED_SCANS.containsKey(name)) {
+                    failures.add(name + ": " + step);
+                }
+            }
+            String reason = EXPECTED_SCANS.get(name);
+            if (reason != null) {
+                report.append("\nFull scan expected: ").append(reason).append('\n');
+            }
+            report.append('\n');
+        }
+        writeReport(report.toString());
+
+        assertTrue("Queries scanning a table instead of an index:\n" + String.join("\n", failures),
+                failures.isEmpty());
+    }
+
+    /**
+     * Extracts each {@code @Query} of a DAO source, keyed by method name, with
+     * named parameters replaced by placeholders.
+     */
+    private static Map<String, String> readQueries(String source) {
+        Map<String, String> queries = new LinkedHashMap<>();
+        int from = 0;
+        while ((from = source.indexOf("@Query(", from)) >= 0) {
+            int start = from + "@Query(".length();
+            int end = closingParen(source, start);
+            Matcher method = METHOD_NAME.matcher(source);
+            method.region(end + 1, source.length());
+            assertTrue("No method after @Query at offset " + from, method.lookingAt());
+            String sql = evaluate(source.substring(start, end)).replaceAll(":\\w+", "?");
+            queries.put(method.group(1), sql);
+            from = end;
+        }
+        return queries;
+    }
+
+    /**
+     * Index of the parenthesis closing the one just before {@code start},
+     * skipping string literals.
+     */
+    private static int closingParen(String source, int start) {
+        int depth = 1;
+        boolean quoted = false;
+        for (int i = start; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (quoted) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        throw new AssertionError("Unbalanced @Query at offset " + start);
+    }
+
+    /**
+     * Evaluates a concatenation of string literals and constants such as
+     * {@code EntrySummary.COLUMNS}.
+     */
+    private static String evaluate(String expression) {
+        StringBuilder out = new StringBuilder();
+        Matcher token = TOKEN.matcher(expression);
+        while (token.find()) {
+            if (token.group(1) != null) {
+                out.append(token.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
+            } else {
+                out.append(constant(token.group(2)));
+            }
+        }
+        return out.toString();
+    }
+
+    private static String constant(String reference) {
+        int dot = reference.lastIndexOf('.');
+        assertTrue("Unqualified constant in @Query: " + reference, dot > 0);
+        String owner = reference.substring(0, dot);
+        String field = reference.substring(dot + 1);
+        for (String pkg : CONSTANT_PACKAGES) {
+            try {
+                return String.valueOf(Class.forName(pkg + "." + owner).getField(field).get(null));
+            } catch (ClassNotFoundException ignored) {
+                // Try the next package
+            } catch (ReflectiveOperationException e) {
+                throw new AssertionError("Cannot read " + reference, e);
+            }
+        }
+        throw new AssertionError("Unknown constant in @Query: " + reference);
+    }
+
+    /**
+     * Adds the queries the repository builds at runtime for {@code @RawQuery}.
+     */
+    private static void addRawQueries(Map<String, String> queries) {
+        EntryFilter.PageKey after = new EntryFilter.PageKey(START, 1);
+        Map<String, EntryFilter> filters = new LinkedHashMap<>();
+        filters.put("all", EntryFilter.all());
+        filters.put("search", new EntryFilter("happy", false, false, null, -1, -1));
+        filters.put("moods", new EntryFilter(null, false, false, new HashSet<>(Arrays.asList(1, 2)), -1, -1));
+        filters.put("dateRange", new EntryFilter(null, false, false, null, START, START + 30 * DAY));
+        filters.put("photo", new EntryFilter(null, true, false, null, -1, -1));
+        filters.put("voice", new EntryFilter(null, false, true, null, -1, -1));
+        for (Map.Entry<String, EntryFilter> filter : filters.entrySet()) {
+            EntryFilter f = filter.getValue();
+            queries.put("EntryFilter.toPageQuery(" + filter.getKey() + ")", f.toPageQuery(null, 20).getSql());
+            queries.put("EntryFilter.toPageQuery(" + filter.getKey() + ", after)", f.toPageQuery(after, 20).getSql());
+            queries.put("EntryFilter.toCountQuery(" + filter.getKey() + ")", f.toCountQuery().getSql());
+        }
+    }
+
+    private List<String> explain(String sql) {
+        Object[] args = new Object[countPlaceholders(sql)];
+        List<String> plan = new ArrayList<>();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        }
+        return plan.isEmpty() ? Collections.singletonList("(no table access)") : plan;
+    }
+
+    private static int countPlaceholders(String sql) {
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (c == '?' && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Two years of entries at about four a day, with some media, tags and
+     * tombstones, then ANALYZE so the planner has statistics to go on.
+     */
+    private void seed() {
+        Random random = new Random(1);
+        db.beginTransaction();
+        try {
+            for (int t = 0; t < TAGS; t++) {
+                db.execSQL("INSERT INTO tags (category, name) VALUES (?, ?)",
+                        new Object[]{t < TAGS / 2 ? "emotion" : "activity", "tag" + t});
+            }
+            for (int i = 0; i < ENTRIES; i++) {
+                long timestamp = START + i * (DAY / 4) + random.nextInt((int) (DAY / 8));
+                db.execSQL("INSERT INTO journal_entries (timestamp, epochDay, moodLevel, emotions, "
+                                + "emotionMask, sleepMask, activities, note, photoPath, voiceMemoPath, deletedAt) "
+                                + "VALUES (?, ?, ?, 'happy', 1, 0, 'walk', ?, ?, ?, ?)",
+                        new Object[]{timestamp, timestamp / DAY, 1 + random.nextInt(5), "note " + i,
+                                i % 10 == 0 ? "photo" + i : null,
+                                i % 20 == 0 ? "voice" + i : null,
+                                i % 50 == 0 ? timestamp : null});
+                for (int t = 0; t < 3; t++) {
+                    db.execSQL("INSERT OR IGNORE INTO entry_tags (entryId, tagId) VALUES (?, ?)",
+                            new Object[]{i + 1, 1 + random.nextInt(TAGS)});
+                }
+            }
+            db.execSQL("INSERT INTO daily_summary (epochDay, entryCount, moodSum, minMood, maxMood, "
+                    + "firstMood, lastMood, photoCount, voiceCount) "
+                    + "SELECT epochDay, COUNT(*), SUM(moodLevel), MIN(moodLevel), MAX(moodLevel), "
+                    + "MIN(moodLevel), MAX(moodLevel), 0, 0 FROM journal_entries GROUP BY epochDay");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        db.execSQL("ANALYZE");
+    }
+
+    private static File moduleDirectory() {
+        // Gradle runs unit tests from the module directory, IDEs often from the project root
+        return new File(DAO_DIR).isDirectory() ? new File(".") : new File("app");
+    }
+
+    private static void writeReport(String report) throws IOException {
+        File file = new File(moduleDirectory(), REPORT);
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(report);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.SingleFlight;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for SingleFlight class.
+ * Tests sharing of in-flight queries, key separation, failures and counters.
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void testExecute_SharesQueryInFlight() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        CompletableFuture<Integer> query = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+
+        CompletableFuture<Integer> first = singleFlight.execute("count[]", () -> {
+            started.incrementAndGet();
+            return query;
+        });
+        CompletableFuture<Integer> second = singleFlight.execute("count[]", () -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture(-1);
+        });
+        query.complete(42);
+
+        assertEquals(1, started.get());
+        assertEquals(Integer.valueOf(42), first.get());
+        assertEquals(Integer.valueOf(42), second.get());
+        assertEquals(1, singleFlight.getMetrics().executions);
+        assertEquals(1, singleFlight.getMetrics().coalesced);
+    }
+
+    @Test
+    public void testExecute_DifferentKeysRunSeparately() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        CompletableFuture<Integer> a = singleFlight.execute("count[1]", CompletableFuture::new);
+        CompletableFuture<Integer> b = singleFlight.execute("count[2]", CompletableFuture::new);
+
+        assertNotSame(a, b);
+        assertEquals(2, singleFlight.getMetrics().executions);
+        assertEquals(0, singleFlight.getMetrics().coalesced);
+    }
+
+    @Test
+    public void testExecute_CompletedQueryIsNotReused() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        singleFlight.execute("count[]", () -> CompletableFuture.completedFuture(1)).get();
+        Integer second = singleFlight.execute("count[]", () -> CompletableFuture.completedFuture(2)).get();
+
+        assertEquals(Integer.valueOf(2), second);
+        assertEquals(0, singleFlight.getMetrics().inFlight);
+    }
+
+    @Test
+    public void testExecute_FailurePropagatesToAllWaiters() {
+        SingleFlight singleFlight = new SingleFlight();
+        CompletableFuture<Integer> query = new CompletableFuture<>();
+        CompletableFuture<Integer> first = singleFlight.execute("count[]", () -> query);
+        CompletableFuture<Integer> second = singleFlight.execute("count[]", () -> query);
+        query.completeExceptionally(new IllegalStateException("disk I/O error"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        try {
+            second.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        } catch (InterruptedException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void testForgetAll_LaterCallersStartFreshQuery() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        CompletableFuture<Integer> stale = new CompletableFuture<>();
+        CompletableFuture<Integer> first = singleFlight.execute("count[]", () -> stale);
+
+        singleFlight.forgetAll();
+        CompletableFuture<Integer> second = singleFlight.execute("count[]",
+                () -> CompletableFuture.completedFuture(2));
+        stale.complete(1);
+
+        assertEquals(Integer.valueOf(1), first.get());
+        assertEquals(Integer.valueOf(2), second.get());
+        assertEquals(2, singleFlight.getMetrics().executions);
+    }
+
+    @Test
+    public void testMetrics_CoalesceRate() {
+        SingleFlight singleFlight = new SingleFlight();
+        assertEquals(0f, singleFlight.getMetrics().getCoalesceRate(), 0.001f);
+
+        CompletableFuture<Integer> query = new CompletableFuture<>();
+        for (int i = 0; i < 4; i++) {
+            singleFlight.execute("count[]", () -> query);
+        }
+        assertEquals(0.75f, singleFlight.getMetrics().getCoalesceRate(), 0.001f);
+    }
+}
@@ -0,0 +1,83 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.PeriodStats;
+import gui.ceng.mu.edu.mentalhealthjournal.data.repository.StatsCache;
+import gui.ceng.mu.edu.mentalhealthjournal.util.StatsEngine;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for StatsCache class.
+ * Tests keying by period and range, LRU eviction, invalidation and stale-load protection.
+ */
+public class StatsCacheTest {
+
+    private StatsCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new StatsCache(2);
+    }
+
+    private static StatsEngine.Result createResult() {
+        return StatsEngine.compute(StatsEngine.PERIOD_WEEKLY, 0, 6,
+                PeriodStats.from(Collections.emptyList()), new long[0], new int[0], new int[0]);
+    }
+
+    @Test
+    public void testGet_MissThenHit() {
+        StatsEngine.Result result = createResult();
+        assertNull(cache.get(StatsEngine.PERIOD_WEEKLY, 0, 100));
+        cache.putIfUnchanged(StatsEngine.PERIOD_WEEKLY, 0, 100, result, cache.getVersion());
+
+        assertSame(result, cache.get(StatsEngine.PERIOD_WEEKLY, 0, 100));
+    }
+
+    @Test
+    public void testGet_KeyedByPeriodAndRange() {
+        cache.putIfUnchanged(StatsEngine.PERIOD_WEEKLY, 0, 100, createResult(), cache.getVersion());
+
+        assertNull(cache.get(StatsEngine.PERIOD_MONTHLY, 0, 100));
+        assertNull(cache.get(StatsEngine.PERIOD_WEEKLY, 1, 100));
+        assertNull(cache.get(StatsEngine.PERIOD_WEEKLY, 0, 101));
+    }
+
+    @Test
+    public void testPut_EvictsLeastRecentlyUsed() {
+        long version = cache.getVersion();
+        cache.putIfUnchanged(StatsEngine.PERIOD_WEEKLY, 0, 100, createResult(), version);
+        cache.putIfUnchanged(StatsEngine.PERIOD_MONTHLY, 0, 100, createResult(), version);
+        // Touch weekly, so monthly is the eldest
+        cache.get(StatsEngine.PERIOD_WEEKLY, 0, 100);
+        cache.putIfUnchanged(StatsEngine.PERIOD_YEARLY, 0, 100, createResult(), version);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(StatsEngine.PERIOD_WEEKLY, 0, 100));
+        assertNull(cache.get(StatsEngine.PERIOD_MONTHLY, 0, 100));
+        assertNotNull(cache.get(StatsEngine.PERIOD_YEARLY, 0, 100));
+    }
+
+    @Test
+    public void testInvalidate_DropsEverything() {
+        cache.putIfUnchanged(StatsEngine.PERIOD_WEEKLY, 0, 100, createResult(), cache.getVersion());
+        cache.invalidate();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(StatsEngine.PERIOD_WEEKLY, 0, 100));
+    }
+
+    @Test
+    public void testPutIfUnchanged_IgnoresLoadThatRacedAWrite() {
+        long version = cache.getVersion();
+        // A write commits while the result is being computed
+        cache.invalidate();
+        cache.putIfUnchanged(StatsEngine.PERIOD_WEEKLY, 0, 100, createResult(), version);
+
+        assertNull(cache.get(StatsEngine.PERIOD_WEEKLY, 0, 100));
+    }
+}
@@ -0,0 +1,163 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.MoodLevelStats;
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.PeriodStats;
+import gui.ceng.mu.edu.mentalhealthjournal.util.StatsEngine;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for StatsEngine bucketing, labels and averages.
+ */
+public class StatsEngineTest {
+
+    private static final long MONDAY = LocalDate.of(2026, 3, 2).toEpochDay();
+
+    @Test
+    public void weeklyTrendSkipsEmptyDays() {
+        long[] days = {MONDAY, MONDAY + 2};
+        StatsEngine.Result result = StatsEngine.compute(StatsEngine.PERIOD_WEEKLY, MONDAY, MONDAY + 6,
+                stats(3), days, new int[]{2, 1}, new int[]{7, 2});
+
+        assertArrayEquals(new String[]{"Mon", "Wed"}, result.moodTrend.labels);
+        assertArrayEquals(new float[]{3.5f, 2f}, result.moodTrend.values, 0.0001f);
+    }
+
+    @Test
+    public void weeklyCountsHaveOneBarPerDay() {
+        long[] days = {MONDAY, MONDAY + 2};
+        StatsEngine.Result result = StatsEngine.compute(StatsEngine.PERIOD_WEEKLY, MONDAY, MONDAY + 6,
+                stats(3), days, new int[]{2, 1}, new int[]{7, 2});
+
+        assertArrayEquals(new String[]{"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"},
+                result.entryCounts.labels);
+        assertArrayEquals(new float[]{2, 0, 1, 0, 0, 0, 0}, result.entryCounts.values, 0f);
+    }
+
+    @Test
+    public void monthlyKeepsSameDayOfDifferentMonthsApart() {
+        long start = LocalDate.of(2026, 2, 17).toEpochDay();
+        long end = LocalDate.of(2026, 3, 17).toEpochDay();
+        long[] days = {start, end};
+        StatsEngine.Result result = StatsEngine.compute(StatsEngine.PERIOD_MONTHLY, start, end,
+                stats(2), days, new int[]{1, 1}, new int[]{1, 5});
+
+        assertArrayEquals(new String[]{"17", "17"}, result.moodTrend.labels);
+        assertArrayEquals(new float[]{1f, 5f}, result.moodTrend.values, 0.0001f);
+    }
+
+    @Test
+    public void monthlyCountsAreSevenDayBuckets() {
+        long start = LocalDate.of(2026, 2, 17).toEpochDay();
+        long end = LocalDate.of(2026, 3, 17).toEpochDay();
+        long[] days = {start, start + 6, start + 7, end};
+        StatsEngine.Result result = StatsEngine.compute(StatsEngine.PERIOD_MONTHLY, start, end,
+                stats(4), days, new int[]{1, 1, 1, 1}, new int[]{3, 3, 3, 3});
+
+        assertArrayEquals(new String[]{"Feb 17", "Feb 24", "Mar 3", "Mar 10", "Mar 17"},
+                result.entryCounts.labels);
+        assertArrayEquals(new float[]{2, 1, 0, 0, 1}, result.entryCounts.values, 0f);
+    }
+
+    @Test
+    public void yearlyCountsByCalendarMonth() {
+        long start = LocalDate.of(2025, 10, 17).toEpochDay();
+        long end = LocalDate.of(2026, 10, 17).toEpochDay();
+        long[] days = {
+                start,
+                LocalDate.of(2025, 10, 31).toEpochDay(),
+                LocalDate.of(2025, 11, 1).toEpochDay(),
+                end
+        };
+        StatsEngine.Result result = StatsEngine.compute(StatsEngine.PERIOD_YEARLY, start, end,
+                stats(4), days, new int[]{1, 1, 2, 1}, new int[]{2, 4, 10, 1});
+
+        assertEquals(13, result.entryCounts.size());
+        assertEquals("Oct", result.entryCounts.labels[0]);
+        assertEquals("Nov", result.entryCounts.labels[1]);
+        assertEquals("Oct", result.entryCounts.labels[12]);
+        assertEquals(2f, result.entryCounts.values[0], 0f);
+        assertEquals(2f, result.entryCounts.values[1], 0f);
+        assertEquals(1f, result.entryCounts.values[12], 0f);
+    }
+
+    @Test
+    public void yearlyTrendKeepsEveryDay() {
+        long start = LocalDate.of(2025, 10, 17).toEpochDay();
+        long end = LocalDate.of(2026, 10, 17).toEpochDay();
+        long[] days = {start, LocalDate.of(2025, 10, 31).toEpochDay(), LocalDate.of(2025, 11, 1).toEpochDay(), end};
+        StatsEngine.Result result = StatsEngine.compute(StatsEngine.PERIOD_YEARLY, start, end,
+                stats(5), days, new int[]{1, 1, 2, 1}, new int[]{2, 4, 10, 1});
+
+        assertArrayEquals(new String[]{"Oct 17", "Oct 31", "Nov 1", "Oct 17"}, result.moodTrend.labels);
+        assertArrayEquals(new float[]{2f, 4f, 5f, 1f}, result.moodTrend.values, 0.0001f);
+    }
+
+    @Test
+    public void daysOutsideThePeriodAreIgnored() {
+        long[] days = {MONDAY - 1, MONDAY, MONDAY + 7};
+        StatsEngine.Result result = StatsEngine.compute(StatsEngine.PERIOD_WEEKLY, MONDAY, MONDAY + 6,
+                stats(1), days, new int[]{4, 1, 4}, new int[]{4, 5, 4});
+
+        assertArrayEquals(new float[]{5f}, result.moodTrend.values, 0.0001f);
+        assertEquals(1f, result.entryCounts.values[0], 0f);
+    }
+
+    @Test
+    public void moodSharesSkipEmptyLevels() {
+        PeriodStats stats = PeriodStats.from(rows(new int[]{0, 2, 0, 0, 3}));
+        StatsEngine.Result result = StatsEngine.compute(StatsEngine.PERIOD_WEEKLY, MONDAY, MONDAY + 6,
+                stats, new long[0], new int[0], new int[0]);
+
+        assertArrayEquals(new String[]{"Bad", "Very Good"}, result.moodShares.labels);
+        assertArrayEquals(new float[]{2, 3}, result.moodShares.values, 0f);
+        assertArrayEquals(new int[]{2, 5}, result.moodShareLevels);
+        assertEquals(5, result.totalEntries);
+        assertEquals("3.8", result.averageMood);
+    }
+
+    @Test
+    public void emptyPeriod() {
+        StatsEngine.Result result = StatsEngine.compute(StatsEngine.PERIOD_MONTHLY, MONDAY, MONDAY + 30,
+                PeriodStats.from(Collections.emptyList()), new long[0], new int[0], new int[0]);
+
+        assertTrue(result.isEmpty());
+        assertEquals("--", result.averageMood);
+        assertTrue(result.moodTrend.isEmpty());
+        assertTrue(result.entryCounts.isEmpty());
+        assertTrue(result.moodShares.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsColumnsOfDifferentLength() {
+        StatsEngine.compute(StatsEngine.PERIOD_WEEKLY, MONDAY, MONDAY + 6,
+                stats(1), new long[]{MONDAY}, new int[0], new int[]{3});
+    }
+
+    /**
+     * Statistics of a period with the given number of entries, all of mood 3
+     */
+    private static PeriodStats stats(int entries) {
+        return PeriodStats.from(rows(new int[]{0, 0, entries, 0, 0}));
+    }
+
+    private static List<MoodLevelStats> rows(int[] countsByLevel) {
+        List<MoodLevelStats> rows = new ArrayList<>();
+        for (int i = 0; i < countsByLevel.length; i++) {
+            if (countsByLevel[i] > 0) {
+                MoodLevelStats row = new MoodLevelStats();
+                row.moodLevel = i + 1;
+                row.entryCount = countsByLevel[i];
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
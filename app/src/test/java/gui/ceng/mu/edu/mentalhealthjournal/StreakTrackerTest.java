@@ -0,0 +1,226 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import gui.ceng.mu.edu.mentalhealthjournal.util.StreakTracker;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for StreakTracker class.
+ * Tests rebuilds, incremental updates, invalidation and persistence.
+ */
+@RunWith(AndroidJUnit4.class)
+@Config(sdk = 34)
+public class StreakTrackerTest {
+
+    private static final long TODAY = 20_000;
+
+    private SharedPreferences prefs;
+    private StreakTracker tracker;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        prefs = context.getSharedPreferences("streak_test", Context.MODE_PRIVATE);
+        prefs.edit().clear().commit();
+        tracker = new StreakTracker(prefs);
+    }
+
+    private static List<Long> days(long... days) {
+        List<Long> list = new ArrayList<>();
+        for (long day : days) {
+            list.add(day);
+        }
+        return list;
+    }
+
+    private void rebuild(long... days) {
+        tracker.rebuild(days(days), tracker.getVersion(), TODAY);
+    }
+
+    @Test
+    public void testNewTracker_IsNotValid() {
+        assertFalse(tracker.isValid());
+    }
+
+    @Test
+    public void testRebuild_FindsCurrentAndLongestRun() {
+        StreakTracker.Streaks streaks = tracker.rebuild(
+                days(TODAY - 20, TODAY - 19, TODAY - 18, TODAY - 17, TODAY - 10, TODAY - 1, TODAY),
+                tracker.getVersion(), TODAY);
+
+        assertTrue(tracker.isValid());
+        assertEquals(2, streaks.current);
+        assertEquals(4, streaks.longest);
+        assertEquals(2, tracker.getStreaks(TODAY).current);
+    }
+
+    @Test
+    public void testCurrentStreak_EndsYesterdayOrToday() {
+        rebuild(TODAY - 3, TODAY - 2, TODAY - 1);
+
+        assertEquals(3, tracker.getStreaks(TODAY).current);
+        // Two days later the run is over, without any write
+        assertEquals(0, tracker.getStreaks(TODAY + 1).current);
+        assertEquals(3, tracker.getStreaks(TODAY + 1).longest);
+    }
+
+    @Test
+    public void testEmptyJournal() {
+        StreakTracker.Streaks streaks = tracker.rebuild(Collections.emptyList(), tracker.getVersion(), TODAY);
+
+        assertTrue(tracker.isValid());
+        assertEquals(0, streaks.current);
+        assertEquals(0, streaks.longest);
+    }
+
+    @Test
+    public void testDayAdded_ExtendsLatestRun() {
+        rebuild(TODAY - 2, TODAY - 1);
+        tracker.onDayAdded(TODAY);
+
+        assertTrue(tracker.isValid());
+        assertEquals(3, tracker.getStreaks(TODAY).current);
+        assertEquals(3, tracker.getStreaks(TODAY).longest);
+    }
+
+    @Test
+    public void testDayAdded_AfterGapStartsNewRun() {
+        rebuild(TODAY - 5, TODAY - 4, TODAY - 3);
+        tracker.onDayAdded(TODAY);
+
+        assertTrue(tracker.isValid());
+        assertEquals(1, tracker.getStreaks(TODAY).current);
+        assertEquals(3, tracker.getStreaks(TODAY).longest);
+    }
+
+    @Test
+    public void testDayAdded_SameDayKeepsStreak() {
+        rebuild(TODAY - 1, TODAY);
+        tracker.onDayAdded(TODAY);
+
+        assertTrue(tracker.isValid());
+        assertEquals(2, tracker.getStreaks(TODAY).current);
+    }
+
+    @Test
+    public void testDayAdded_EarlierDayInvalidates() {
+        rebuild(TODAY - 1, TODAY);
+        tracker.onDayAdded(TODAY - 5);
+
+        assertFalse(tracker.isValid());
+    }
+
+    @Test
+    public void testDayRemoved_ShrinksLatestRunShorterThanLongest() {
+        rebuild(TODAY - 10, TODAY - 9, TODAY - 8, TODAY - 7, TODAY - 2, TODAY - 1, TODAY);
+        tracker.onDayRemoved(TODAY);
+
+        assertTrue(tracker.isValid());
+        assertEquals(2, tracker.getStreaks(TODAY).current);
+        assertEquals(4, tracker.getStreaks(TODAY).longest);
+
+        // Removing a middle day keeps the days after it
+        tracker.onDayRemoved(TODAY - 2);
+        assertTrue(tracker.isValid());
+        assertEquals(1, tracker.getStreaks(TODAY).current);
+    }
+
+    @Test
+    public void testDayRemoved_FromLongestRunInvalidates() {
+        rebuild(TODAY - 2, TODAY - 1, TODAY);
+        tracker.onDayRemoved(TODAY);
+
+        assertFalse(tracker.isValid());
+    }
+
+    @Test
+    public void testRebuild_IgnoredAfterRacingWrite() {
+        long version = tracker.getVersion();
+        // An entry is written while the days are being read
+        tracker.onDayAdded(TODAY);
+        StreakTracker.Streaks streaks = tracker.rebuild(days(TODAY - 1), version, TODAY);
+
+        assertEquals(1, streaks.current);
+        assertFalse(tracker.isValid());
+    }
+
+    @Test
+    public void testInvalidate() {
+        rebuild(TODAY);
+        tracker.invalidate();
+
+        assertFalse(tracker.isValid());
+    }
+
+    @Test
+    public void testState_SurvivesRestart() {
+        rebuild(TODAY - 6, TODAY - 5, TODAY - 1);
+        tracker.onDayAdded(TODAY);
+
+        StreakTracker restarted = new StreakTracker(prefs);
+        assertTrue(restarted.isValid());
+        assertEquals(2, restarted.getStreaks(TODAY).current);
+        assertEquals(2, restarted.getStreaks(TODAY).longest);
+    }
+
+    @Test
+    public void testOpenWrite_RestartRebuilds() {
+        rebuild(TODAY - 1);
+        tracker.beginWrite();
+        // The journal commits, the app dies before the write is recorded
+        assertFalse(new StreakTracker(prefs).isValid());
+
+        tracker.onDayAdded(TODAY);
+        assertTrue(tracker.isValid());
+        assertFalse(new StreakTracker(prefs).isValid());
+
+        tracker.endWrite();
+        StreakTracker restarted = new StreakTracker(prefs);
+        assertTrue(restarted.isValid());
+        assertEquals(2, restarted.getStreaks(TODAY).current);
+    }
+
+    @Test
+    public void testOverlappingWrites_SavedValidAfterLastEnds() {
+        rebuild(TODAY - 1);
+        tracker.beginWrite();
+        tracker.beginWrite();
+        tracker.onDayAdded(TODAY);
+        tracker.endWrite();
+
+        assertFalse(new StreakTracker(prefs).isValid());
+        tracker.endWrite();
+        assertTrue(new StreakTracker(prefs).isValid());
+    }
+
+    @Test
+    public void testIncrementalUpdates_MatchRebuild() {
+        rebuild();
+        List<Long> written = new ArrayList<>(Arrays.asList(TODAY - 4, TODAY - 3, TODAY - 1, TODAY));
+        for (long day : written) {
+            tracker.onDayAdded(day);
+        }
+        StreakTracker.Streaks incremental = tracker.getStreaks(TODAY);
+
+        StreakTracker fresh = new StreakTracker(prefs);
+        StreakTracker.Streaks rebuilt = fresh.rebuild(written, fresh.getVersion(), TODAY);
+        assertEquals(rebuilt.current, incremental.current);
+        assertEquals(rebuilt.longest, incremental.longest);
+    }
+}
@@ -0,0 +1,108 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.function.Function;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.converter.StringListConverter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Allocation benchmark for StringListConverter.toList against the former
+ * split-based parser, reading 10k rows with realistic tag combinations.
+ * Bytes are measured with the JVM's per-thread allocation counter, so the
+ * numbers exclude the column strings themselves, which a cursor allocates anyway.
+ * Allocation counts vary with the JVM, so it only runs when asked for with
+ * {@code ./gradlew testDebugUnitTest -Pbenchmark}; the B/row figures are printed and
+ * written to {@code build/reports/benchmarks/StringListConverter.properties}.
+ */
+public class StringListConverterBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int ROUNDS = 5;
+
+    private static final String[] COMBINATIONS = {
+            "happy", "happy,grateful", "happy,excited,grateful", "relaxed,content",
+            "tired", "tired,stressed", "anxious,stressed", "sad", "sad,desperate",
+            "bored,unsure", "angry,stressed", "content", "happy,relaxed", "excited"
+    };
+
+    @Test
+    public void allocationPerRow() throws IOException {
+        Assume.assumeTrue("Run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+        Assume.assumeTrue(threads != null && threads.isThreadAllocatedMemorySupported());
+
+        List<String> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            // A fresh string per row, as read from a cursor
+            rows.add(new String(COMBINATIONS[i % COMBINATIONS.length].toCharArray()));
+        }
+
+        double split = bytesPerRow(threads, rows, data -> new ArrayList<>(Arrays.asList(data.split(","))));
+        double converter = bytesPerRow(threads, rows, StringListConverter::toList);
+
+        String summary = String.format(Locale.US, "toList over %d rows: split %.1f B/row, converter %.1f B/row",
+                ROWS, split, converter);
+        System.out.println(summary);
+        report(split, converter);
+        assertTrue(summary, converter < split);
+    }
+
+    private static void report(double split, double converter) throws IOException {
+        String dir = System.getProperty("benchmark.reportDir");
+        if (dir == null) {
+            return;
+        }
+        File file = new File(dir, "StringListConverter.properties");
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Cannot create " + file.getParent());
+        }
+        Properties results = new Properties();
+        results.setProperty("rows", String.valueOf(ROWS));
+        results.setProperty("split.bytesPerRow", String.format(Locale.US, "%.1f", split));
+        results.setProperty("converter.bytesPerRow", String.format(Locale.US, "%.1f", converter));
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            results.store(out, "StringListConverter.toList allocation");
+        }
+    }
+
+    private static double bytesPerRow(com.sun.management.ThreadMXBean threads, List<String> rows,
+                                      Function<String, List<String>> parser) {
+        long threadId = Thread.currentThread().getId();
+        // Warm up, so pools are filled and the parser is compiled
+        int sink = consume(rows, parser);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            sink += consume(rows, parser);
+            best = Math.min(best, threads.getThreadAllocatedBytes(threadId) - before);
+        }
+        assertTrue(sink > 0);
+        return (double) best / rows.size();
+    }
+
+    private static int consume(List<String> rows, Function<String, List<String>> parser) {
+        int tags = 0;
+        for (String row : rows) {
+            tags += parser.apply(row).size();
+        }
+        return tags;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+}
@@ -123,4 +123,48 @@ public class StringListConverterTest {
         assertEquals("medium sleep", result.get(1));
         assertEquals("bad sleep", result.get(2));
     }
+
+    @Test
+    public void testRoundTrip_TagsWithCommasAndBackslashes() {
+        List<String> original = Arrays.asList("tired, but ok", "back\\slash", "plain", "trailing\\");
+
+        String stored = StringListConverter.fromList(original);
+        List<String> reconstructed = StringListConverter.toList(stored);
+
+        assertEquals(original, reconstructed);
+    }
+
+    @Test
+    public void testFromList_EscapesSeparator() {
+        assertEquals("a\\,b,c", StringListConverter.fromList(Arrays.asList("a,b", "c")));
+    }
+
+    @Test
+    public void testToList_EmptyTagsLikeSplit() {
+        assertEquals(Arrays.asList("a", "", "b"), StringListConverter.toList("a,,b"));
+        assertEquals(Arrays.asList("a"), StringListConverter.toList("a,,"));
+        assertTrue(StringListConverter.toList(",").isEmpty());
+    }
+
+    @Test
+    public void testToList_InternsTags() {
+        List<String> first = StringListConverter.toList(new String("happy,sad"));
+        List<String> second = StringListConverter.toList(new String("sad,happy,calm"));
+
+        assertSame(first.get(0), second.get(1));
+        assertSame(first.get(1), second.get(0));
+    }
+
+    @Test
+    public void testToList_SharesListsForEqualValues() {
+        List<String> first = StringListConverter.toList(new String("happy,grateful"));
+        List<String> second = StringListConverter.toList(new String("happy,grateful"));
+
+        assertSame(first, second);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testToList_IsImmutable() {
+        StringListConverter.toList("happy,sad").add("calm");
+    }
 }
@@ -0,0 +1,108 @@
+package gui.ceng.mu.edu.mentalhealthjournal;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import gui.ceng.mu.edu.mentalhealthjournal.data.model.TagVocabulary;
+import gui.ceng.mu.edu.mentalhealthjournal.model.ActivityItem;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for TagVocabulary and its decoded tag list views.
+ */
+public class TagVocabularyTest {
+
+    @Test
+    public void testVocabulariesMatchDefaultOptions() {
+        List<ActivityItem> emotions = ActivityItem.getDefaultEmotions();
+        for (ActivityItem item : emotions) {
+            assertNotEquals(0, TagVocabulary.EMOTIONS.bitOf(item.getName()));
+        }
+        assertEquals(emotions.size(), TagVocabulary.EMOTIONS.size());
+        for (ActivityItem item : ActivityItem.getDefaultSleepOptions()) {
+            assertNotEquals(0, TagVocabulary.SLEEP.bitOf(item.getName()));
+        }
+    }
+
+    @Test
+    public void testBitPositionsAreStable() {
+        // Persisted in the database and written by Migrations.MIGRATION_7_8;
+        // names may only be appended
+        assertBitOrder(TagVocabulary.EMOTIONS, "happy", "excited", "grateful", "relaxed", "content",
+                "tired", "unsure", "bored", "anxious", "angry", "stressed", "sad", "desperate");
+        assertBitOrder(TagVocabulary.SLEEP, "good sleep", "medium sleep", "bad sleep", "sleep early");
+    }
+
+    private static void assertBitOrder(TagVocabulary vocabulary, String... names) {
+        assertTrue(vocabulary.size() >= names.length);
+        for (int bit = 0; bit < names.length; bit++) {
+            assertEquals(names[bit], vocabulary.nameAt(bit));
+            assertEquals(1L << bit, vocabulary.bitOf(names[bit]));
+        }
+    }
+
+    @Test
+    public void testBitOf_UnknownTag() {
+        assertEquals(0, TagVocabulary.EMOTIONS.bitOf("nostalgic"));
+        assertEquals(0, TagVocabulary.EMOTIONS.bitOf(null));
+    }
+
+    @Test
+    public void testBitOf_TrimsButKeepsCase() {
+        assertEquals(TagVocabulary.EMOTIONS.bitOf("happy"), TagVocabulary.EMOTIONS.bitOf(" happy "));
+        assertEquals(0, TagVocabulary.EMOTIONS.bitOf("Happy"));
+    }
+
+    @Test
+    public void testMaskOf_IgnoresCustomTags() {
+        long mask = TagVocabulary.EMOTIONS.maskOf(Arrays.asList("sad", "nostalgic", "happy"));
+        assertEquals(TagVocabulary.EMOTIONS.bitOf("sad") | TagVocabulary.EMOTIONS.bitOf("happy"), mask);
+        assertEquals(0, TagVocabulary.EMOTIONS.maskOf(null));
+    }
+
+    @Test
+    public void testCustomTagsOf_KeepsOrder() {
+        List<String> custom = TagVocabulary.SLEEP.customTagsOf(Arrays.asList("nap", "good sleep", "insomnia"));
+        assertEquals(Arrays.asList("nap", "insomnia"), custom);
+    }
+
+    @Test
+    public void testDecode_RoundTrip() {
+        List<String> tags = Arrays.asList("happy", "anxious", "nostalgic");
+        List<String> decoded = TagVocabulary.EMOTIONS.decode(
+                TagVocabulary.EMOTIONS.maskOf(tags), TagVocabulary.EMOTIONS.customTagsOf(tags));
+
+        assertEquals(tags, decoded);
+        assertTrue(decoded.contains("anxious"));
+        assertTrue(decoded.contains("nostalgic"));
+        assertFalse(decoded.contains("sad"));
+    }
+
+    @Test
+    public void testDecode_DefaultTagsInBitOrder() {
+        List<String> decoded = TagVocabulary.SLEEP.decode(
+                TagVocabulary.SLEEP.maskOf(Arrays.asList("sleep early", "good sleep")), null);
+        assertEquals(Arrays.asList("good sleep", "sleep early"), decoded);
+    }
+
+    @Test
+    public void testDecode_SharesVocabularyStrings() {
+        List<String> first = TagVocabulary.EMOTIONS.decode(TagVocabulary.EMOTIONS.bitOf("sad") | 1L, null);
+        List<String> second = TagVocabulary.EMOTIONS.decode(1L, Collections.emptyList());
+        assertSame(first.get(0), second.get(0));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDecode_IsImmutable() {
+        TagVocabulary.EMOTIONS.decode(1L, null).add("sad");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testDecode_IndexOutOfBounds() {
+        TagVocabulary.EMOTIONS.decode(1L, null).get(1);
+    }
+}